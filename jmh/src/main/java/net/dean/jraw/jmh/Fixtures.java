@@ -0,0 +1,75 @@
+package net.dean.jraw.jmh;
+
+import com.google.common.io.ByteStreams;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.RestRequest;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * This class loads the JSON fixtures bundled with the benchmarks. They are shaped like real Reddit API responses:
+ *
+ * <ul>
+ *     <li>{@code listing-25.json} and {@code listing-100.json}: a page of submissions from /r/pics</li>
+ *     <li>{@code comments.json}: a submission and a tree of 363 comments up to seven levels deep</li>
+ *     <li>{@code subreddit.json}: /r/pics/about.json</li>
+ * </ul>
+ */
+final class Fixtures {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Headers JSON_HEADERS = Headers.of("Content-Type", "application/json; charset=UTF-8");
+    private static final RestRequest REQUEST = new RestRequest.Builder()
+            .host("www.reddit.com")
+            .path("/r/pics/hot.json")
+            .build();
+
+    private Fixtures() {
+        // No instances
+    }
+
+    /**
+     * Reads a fixture into memory
+     *
+     * @param name The fixture's file name
+     * @return The raw bytes of the fixture
+     */
+    static byte[] bytes(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No such fixture: " + name);
+            }
+            return ByteStreams.toByteArray(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a fixture
+     *
+     * @param name The fixture's file name
+     * @return The root node of the fixture
+     */
+    static JsonNode json(String name) {
+        try {
+            return MAPPER.readTree(bytes(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wraps a body in a response as if a transport had just received it
+     *
+     * @param body The response's body
+     * @return A new successful response with a JSON content type
+     */
+    static HttpResponse response(byte[] body) {
+        return new HttpResponse(REQUEST, 200, "OK", JSON_HEADERS, body);
+    }
+}
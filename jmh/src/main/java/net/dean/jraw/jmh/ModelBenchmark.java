@@ -0,0 +1,111 @@
+package net.dean.jraw.jmh;
+
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.models.Comment;
+import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.RenderStringPair;
+import net.dean.jraw.models.Submission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast data is read out of models once they have been parsed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    /** The type passed to {@link Submission#data(String, Class)} */
+    @Param({"Boolean", "Double", "Integer", "Long", "Float", "String", "URL", "URI", "Date", "RenderStringPair"})
+    public String type;
+
+    private Submission submission;
+    private Listing<Comment> comments;
+    private String field;
+    private Class<?> typeClass;
+
+    @Setup
+    public void setUp() {
+        RedditResponse response = new RedditResponse(Fixtures.response(Fixtures.bytes("comments.json")));
+        this.submission = response.as(Submission.class);
+        this.comments = submission.getComments();
+
+        switch (type) {
+            case "Boolean": field = "over_18"; typeClass = Boolean.class; break;
+            case "Double": field = "created_utc"; typeClass = Double.class; break;
+            case "Integer": field = "score"; typeClass = Integer.class; break;
+            case "Long": field = "created_utc"; typeClass = Long.class; break;
+            case "Float": field = "score"; typeClass = Float.class; break;
+            case "String": field = "title"; typeClass = String.class; break;
+            case "URL": field = "url"; typeClass = URL.class; break;
+            case "URI": field = "url"; typeClass = URI.class; break;
+            case "Date": field = "created_utc"; typeClass = Date.class; break;
+            case "RenderStringPair": field = "selftext"; typeClass = RenderStringPair.class; break;
+            default: throw new IllegalArgumentException("Unknown type: " + type);
+        }
+    }
+
+    /** Reads a value that has already been decoded, which is what repeated getter calls on the same model do */
+    @Benchmark
+    public Object data() {
+        return submission.data(field, typeClass);
+    }
+
+    /** Reads a value from a model that hasn't decoded anything yet, for comparison with {@link #data()} */
+    @Benchmark
+    public Object dataFirstCall() {
+        return new Submission(submission.getDataNode()).data(field, typeClass);
+    }
+
+    /** Calls the getters a ranking function would call over and over on the same submission */
+    @Benchmark
+    public long rankingGetters() {
+        return submission.getScore() + submission.getCreatedUtc().getTime() / 1000 + submission.getCommentCount();
+    }
+
+    /** Reads the same values as {@link #rankingGetters()} through the primitive accessors, which box nothing */
+    @Benchmark
+    public long rankingPrimitives() {
+        return submission.score() + submission.createdUtcEpochSeconds() + submission.numComments();
+    }
+
+    @Benchmark
+    public String submissionToString() {
+        return submission.toString();
+    }
+
+    /** Visits every comment in the tree through getReplies() */
+    @Benchmark
+    public int walkReplies() {
+        return count(comments);
+    }
+
+    private static int count(Listing<Comment> listing) {
+        int count = 0;
+        for (Comment comment : listing) {
+            count++;
+            Listing<Comment> replies = comment.getReplies();
+            if (replies != null) {
+                count += count(replies);
+            }
+        }
+        return count;
+    }
+}
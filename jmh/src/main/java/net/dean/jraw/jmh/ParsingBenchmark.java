@@ -0,0 +1,79 @@
+package net.dean.jraw.jmh;
+
+import net.dean.jraw.JrawUtils;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RestResponse;
+import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.Submission;
+import org.codehaus.jackson.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast responses are turned into models: reading the JSON tree, building Listings, and instantiating
+ * Things through {@link JrawUtils#parseJson(JsonNode, Class)}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsingBenchmark {
+    /** The amount of submissions in the listing */
+    @Param({"25", "100"})
+    public int size;
+
+    private byte[] listingBytes;
+    private byte[] commentsBytes;
+    private JsonNode listingData;
+    private JsonNode firstChild;
+
+    @Setup
+    public void setUp() {
+        this.listingBytes = Fixtures.bytes("listing-" + size + ".json");
+        this.commentsBytes = Fixtures.bytes("comments.json");
+        this.listingData = Fixtures.json("listing-" + size + ".json").get("data");
+        this.firstChild = listingData.get("children").get(0);
+    }
+
+    /** Reads the raw JSON tree of a listing */
+    @Benchmark
+    public JsonNode restResponse() {
+        return new RestResponse(Fixtures.response(listingBytes)).getJson();
+    }
+
+    /** Builds a Listing out of an already parsed tree */
+    @Benchmark
+    public Listing<Submission> listing() {
+        return new Listing<>(listingData, Submission.class);
+    }
+
+    /** Goes from raw bytes to a Listing, like a paginator does */
+    @Benchmark
+    public Listing<Submission> responseToListing() {
+        return new RedditResponse(Fixtures.response(listingBytes)).asListing(Submission.class);
+    }
+
+    /** Goes from raw bytes to a Submission and its comments */
+    @Benchmark
+    public Submission responseToSubmission() {
+        return new RedditResponse(Fixtures.response(commentsBytes)).as(Submission.class);
+    }
+
+    @Benchmark
+    public Submission parseJson() {
+        return JrawUtils.parseJson(firstChild, Submission.class);
+    }
+}
@@ -0,0 +1,73 @@
+package net.dean.jraw.jmh;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.JrawUtils;
+import net.dean.jraw.http.RestRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast requests are built, and other small utilities called once per request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+
+    /** A listing request, like the ones paginators send */
+    @Benchmark
+    public RestRequest buildPath() {
+        return new RestRequest.Builder()
+                .host("www.reddit.com")
+                .path("/r/pics/hot.json")
+                .query("limit", "100", "after", "t3_2ks3so")
+                .build();
+    }
+
+    @Benchmark
+    public RestRequest buildEndpoint() {
+        return new RestRequest.Builder()
+                .host("www.reddit.com")
+                .endpoint(Endpoints.ME)
+                .build();
+    }
+
+    @Benchmark
+    public RestRequest buildEndpointWithParams() {
+        return new RestRequest.Builder()
+                .host("www.reddit.com")
+                .endpoint(Endpoints.SUBREDDIT_ABOUT, "pics")
+                .build();
+    }
+
+    @Benchmark
+    public RestRequest buildPost() {
+        return new RestRequest.Builder()
+                .host("www.reddit.com")
+                .endpoint(Endpoints.COMMENT)
+                .post(JrawUtils.args(
+                        "api_type", "json",
+                        "text", "A reply",
+                        "thing_id", "t1_cluw7hx"))
+                .build();
+    }
+
+    @Benchmark
+    public void isFullName(Blackhole bh) {
+        bh.consume(JrawUtils.isFullName("t3_2ks3so"));
+        bh.consume(JrawUtils.isFullName("2ks3so"));
+    }
+}
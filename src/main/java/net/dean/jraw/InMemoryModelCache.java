@@ -0,0 +1,329 @@
+package net.dean.jraw;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import net.dean.jraw.models.JsonModel;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class provides a size-bounded {@link ModelCache} backed by a Guava {@link Cache}. Every type of model can be given
+ * its own time to live, and once the total weight of all models exceeds the maximum, the least recently used ones are
+ * evicted. By default, a JsonModel weighs one unit per field in its JSON data, and a Collection one unit per element.
+ *
+ * <p>If refresh-ahead is enabled, a model that is requested after a certain fraction of its time to live has passed
+ * is returned as usual, but is also reloaded in the background, so that frequently requested models never actually
+ * expire.
+ */
+public class InMemoryModelCache implements ModelCache {
+    private final Cache<String, Entry> cache;
+    private final Map<Class<?>, Long> timesToLive;
+    private final long defaultTimeToLive;
+    private final double refreshAheadFactor;
+    private final Executor refreshExecutor;
+    private final Ticker ticker;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong refreshes;
+
+    private InMemoryModelCache(Builder b) {
+        this.timesToLive = new HashMap<>(b.timesToLive);
+        this.defaultTimeToLive = b.defaultTimeToLive;
+        this.refreshAheadFactor = b.refreshAheadFactor;
+        this.refreshExecutor = b.refreshExecutor;
+        this.ticker = b.ticker;
+        Weigher<Object, Object> weigher = b.weigher;
+        this.cache = CacheBuilder.newBuilder()
+                // Guava splits the maximum weight between its segments, so a single one bounds the total weight
+                .concurrencyLevel(1)
+                .maximumWeight(b.maximumWeight)
+                .weigher((String key, Entry entry) -> weigher.weigh(key, entry.value))
+                .build();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.refreshes = new AtomicLong();
+    }
+
+    @Override
+    public <V> V getIfPresent(String key, Class<V> type) {
+        Entry entry = cache.getIfPresent(key);
+        long now = ticker.read();
+        if (entry == null || now >= entry.expiresAt || !type.isInstance(entry.value)) {
+            if (entry != null && now >= entry.expiresAt) {
+                cache.asMap().remove(key, entry);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        if (now >= entry.refreshAt) {
+            refresh(key, entry);
+        }
+        return type.cast(entry.value);
+    }
+
+    @Override
+    public <V> void put(String key, V value, Loader<V> reloader) {
+        if (value == null) {
+            throw new NullPointerException("value cannot be null");
+        }
+        cache.put(key, newEntry(value, reloader));
+    }
+
+    @Override
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Reloads an entry on the refresh Executor, unless refresh-ahead is disabled, the entry has no reloader, or the
+     * entry is already being reloaded
+     */
+    private void refresh(String key, Entry entry) {
+        if (refreshExecutor == null || entry.reloader == null || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object value = entry.reloader.load();
+                    if (value != null) {
+                        @SuppressWarnings("unchecked")
+                        Loader<Object> reloader = (Loader<Object>) entry.reloader;
+                        // Only replace the entry if nobody else has in the meantime
+                        cache.asMap().replace(key, entry, newEntry(value, reloader));
+                        refreshes.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    // The old entry will be used until it expires
+                    JrawUtils.logger().warn("Could not refresh cached model for {}", key, e);
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Entry newEntry(Object value, Loader<?> reloader) {
+        long now = ticker.read();
+        long ttl = getTimeToLive(value.getClass());
+        long refreshAt = refreshAheadFactor < 1 ? now + (long) (ttl * refreshAheadFactor) : Long.MAX_VALUE;
+        return new Entry(value, reloader, now + ttl, refreshAt);
+    }
+
+    private long getTimeToLive(Class<?> type) {
+        // Look for the most specific type that has a time to live configured
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            Long ttl = timesToLive.get(c);
+            if (ttl != null) {
+                return ttl;
+            }
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            Long ttl = timesToLive.get(iface);
+            if (ttl != null) {
+                return ttl;
+            }
+        }
+        return defaultTimeToLive;
+    }
+
+    /**
+     * Gets the amount of models currently stored. Expired models are counted until they are requested or evicted.
+     * @return The amount of models in this cache
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the amount of times {@link #getIfPresent(String, Class)} returned a model
+     * @return The amount of hits
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the amount of times {@link #getIfPresent(String, Class)} returned null
+     * @return The amount of misses
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the amount of models that were successfully reloaded in the background
+     * @return The amount of refreshes
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Loader<?> reloader;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicBoolean refreshing;
+
+        private Entry(Object value, Loader<?> reloader, long expiresAt, long refreshAt) {
+            this.value = value;
+            this.reloader = reloader;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.refreshing = new AtomicBoolean(false);
+        }
+    }
+
+    /**
+     * This class is used to configure a new InMemoryModelCache
+     */
+    public static class Builder {
+        private final Map<Class<?>, Long> timesToLive;
+        private long defaultTimeToLive;
+        private long maximumWeight;
+        private Weigher<Object, Object> weigher;
+        private double refreshAheadFactor;
+        private Executor refreshExecutor;
+        private Ticker ticker;
+
+        /**
+         * Instantiates a new Builder. By default, models live for five minutes, the maximum weight is 100,000, and
+         * refresh-ahead is disabled.
+         */
+        public Builder() {
+            this.timesToLive = new HashMap<>();
+            this.defaultTimeToLive = TimeUnit.MINUTES.toNanos(5);
+            this.maximumWeight = 100_000;
+            this.weigher = Builder::defaultWeight;
+            this.refreshAheadFactor = 1;
+            this.ticker = Ticker.systemTicker();
+        }
+
+        /**
+         * Sets the time to live of every model whose type has not been given its own
+         *
+         * @param duration The amount of time
+         * @param unit The unit of {@code duration}
+         * @return This Builder
+         */
+        public Builder timeToLive(long duration, TimeUnit unit) {
+            this.defaultTimeToLive = checkDuration(duration, unit);
+            return this;
+        }
+
+        /**
+         * Sets the time to live of a certain type of model, including its subclasses
+         *
+         * @param type The type of model, for example {@code Subreddit.class}
+         * @param duration The amount of time
+         * @param unit The unit of {@code duration}
+         * @return This Builder
+         */
+        public Builder timeToLive(Class<?> type, long duration, TimeUnit unit) {
+            timesToLive.put(type, checkDuration(duration, unit));
+            return this;
+        }
+
+        /**
+         * Sets the total weight of all the models at which models will start to be evicted
+         *
+         * @param maximumWeight The maximum weight
+         * @return This Builder
+         */
+        public Builder maximumWeight(long maximumWeight) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("maximumWeight cannot be negative");
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets how the weight of a model is calculated
+         *
+         * @param weigher Calculates the weight of a model given its key and value. Weights must not be negative.
+         * @return This Builder
+         */
+        public Builder weigher(Weigher<Object, Object> weigher) {
+            if (weigher == null) {
+                throw new NullPointerException("weigher cannot be null");
+            }
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Enables refresh-ahead. A model requested after {@code factor} of its time to live has passed will be reloaded
+         * on the given Executor.
+         *
+         * @param factor The fraction of the time to live after which models will be refreshed. Must be between 0 and 1.
+         * @param executor The Executor models will be reloaded on
+         * @return This Builder
+         */
+        public Builder refreshAhead(double factor, Executor executor) {
+            if (factor <= 0 || factor >= 1) {
+                throw new IllegalArgumentException("factor must be between 0 and 1");
+            }
+            if (executor == null) {
+                throw new NullPointerException("executor cannot be null");
+            }
+            this.refreshAheadFactor = factor;
+            this.refreshExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the time source used to expire and refresh models. Meant for testing.
+         *
+         * @param ticker The new Ticker
+         * @return This Builder
+         */
+        public Builder ticker(Ticker ticker) {
+            if (ticker == null) {
+                throw new NullPointerException("ticker cannot be null");
+            }
+            this.ticker = ticker;
+            return this;
+        }
+
+        public InMemoryModelCache build() {
+            return new InMemoryModelCache(this);
+        }
+
+        private static long checkDuration(long duration, TimeUnit unit) {
+            if (duration <= 0) {
+                throw new IllegalArgumentException("duration must be greater than 0");
+            }
+            return unit.toNanos(duration);
+        }
+
+        private static int defaultWeight(Object key, Object value) {
+            if (value instanceof JsonModel) {
+                return 1 + ((JsonModel) value).getDataNode().size();
+            } else if (value instanceof Collection) {
+                return 1 + ((Collection<?>) value).size();
+            }
+            return 1;
+        }
+    }
+}
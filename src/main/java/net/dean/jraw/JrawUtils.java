@@ -1,6 +1,6 @@
 package net.dean.jraw;
 
-import com.squareup.okhttp.MediaType;
+import net.dean.jraw.http.MediaType;
 import net.dean.jraw.models.*;
 import net.dean.jraw.pagination.MultiHubPaginator;
 import org.codehaus.jackson.JsonNode;
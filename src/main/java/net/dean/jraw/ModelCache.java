@@ -0,0 +1,80 @@
+package net.dean.jraw;
+
+import net.dean.jraw.http.NetworkException;
+
+/**
+ * This interface provides a way to store parsed models (such as Subreddits and Accounts) in memory so that repeated
+ * lookups of the same object do not have to send a request and parse its response every time.
+ *
+ * @see RedditClient#setModelCache(ModelCache)
+ * @see InMemoryModelCache
+ */
+public interface ModelCache {
+
+    /**
+     * Gets a stored model
+     *
+     * @param key The model's key. Keys are made up of the endpoint's request descriptor and the arguments used.
+     * @param type The expected type of the model
+     * @param <V> The type of the model
+     * @return The stored model, or null if there is none, it has expired, or it is not an instance of {@code type}
+     */
+    <V> V getIfPresent(String key, Class<V> type);
+
+    /**
+     * Stores a model
+     *
+     * @param key The model's key
+     * @param value The model
+     * @param reloader Fetches a new copy of the model. Implementations may use it to refresh the model in the
+     *                 background before it expires. May be null.
+     * @param <V> The type of the model
+     */
+    <V> void put(String key, V value, Loader<V> reloader);
+
+    /**
+     * Removes a model from this cache
+     * @param key The model's key
+     */
+    void invalidate(String key);
+
+    /**
+     * Removes every model from this cache
+     */
+    void invalidateAll();
+
+    /**
+     * Creates the key of a model
+     *
+     * @param user The name of the user the model was requested by, or null if there is none. Some endpoints return
+     *             different data depending on who is asking, so models are never shared between users.
+     * @param endpoint The endpoint the model is fetched from
+     * @param args The arguments used to fetch the model, such as the subreddit's name
+     * @return A new key
+     */
+    static String key(String user, Endpoints endpoint, String... args) {
+        StringBuilder sb = new StringBuilder(endpoint.getEndpoint().getRequestDescriptor());
+        sb.append('|').append(user != null ? user : "");
+        for (String arg : args) {
+            sb.append('|').append(arg);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fetches a fresh copy of a model
+     *
+     * @param <V> The type of the model
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+        /**
+         * Fetches a fresh copy of a model
+         *
+         * @return The model
+         * @throws NetworkException If there was a problem sending the request
+         * @throws ApiException If the Reddit API returned an error
+         */
+        V load() throws NetworkException, ApiException;
+    }
+}
@@ -1,7 +1,5 @@
 package net.dean.jraw;
 
-import com.squareup.okhttp.MediaType;
-import com.squareup.okhttp.Response;
 import net.dean.jraw.http.*;
 import net.dean.jraw.models.*;
 import net.dean.jraw.pagination.Sorting;
@@ -10,10 +8,13 @@ import org.codehaus.jackson.JsonNode;
 
 import java.net.HttpCookie;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * This class provides access to the most basic Reddit features such as logging in. It is recommended that only one instance
- * of this class is used at a time, unless you disable request management and implement your own.
+ * This class provides access to the most basic Reddit features such as logging in. It is thread-safe, so one instance can
+ * be shared by all the threads of an application. It is recommended that only one instance of this class is used at a
+ * time, since every instance enforces the rate limit on its own, unless you disable request management and implement
+ * your own.
  */
 public class RedditClient extends RestClient<RedditResponse> {
 
@@ -38,7 +39,9 @@ public class RedditClient extends RestClient<RedditResponse> {
     /** The amount of trending subreddits that will appear in each /r/trendingsubreddits post */
     private static final int NUM_TRENDING_SUBREDDITS = 5;
 
-    private String authenticatedUser;
+    private volatile String authenticatedUser;
+    private volatile ModelCache modelCache;
+    private volatile Projection projection;
 
     /**
      * Instantiates a new RedditClient and adds the given user agent to the default headers of the RestClient
@@ -59,14 +62,41 @@ public class RedditClient extends RestClient<RedditResponse> {
      *                  </blockquote>
      */
     public RedditClient(String userAgent) {
-        super(HOST, userAgent, REQUESTS_PER_MINUTE);
+        this(HOST, userAgent);
+    }
+
+    /**
+     * Instantiates a new RedditClient that sends its requests to a host other than {@link #HOST}, such as a local server
+     * imitating the Reddit API. Requests to other hosts are sent over plain HTTP (including logging in) unless
+     * {@link #setHttpsDefault(boolean)} is called.
+     *
+     * @param host The host to send requests to, optionally followed by a port. For example, "localhost:8080".
+     * @param userAgent The User-Agent header that will be sent with all the HTTP requests
+     */
+    public RedditClient(String host, String userAgent) {
+        super(host, userAgent, REQUESTS_PER_MINUTE);
     }
 
     @Override
-    protected RedditResponse initResponse(Response r) {
+    protected RedditResponse initResponse(HttpResponse r) {
         return new RedditResponse(r);
     }
 
+    /**
+     * Opens connections to {@link #HOST}, {@link #HOST_OAUTH}, and {@link #HOST_HTTPS_SPECIAL} in the background, so
+     * that the first requests sent to them skip the TCP and TLS handshakes. When this client talks to another host, only
+     * that host is connected to.
+     *
+     * @return A future that completes once every host has been connected to or failed to be
+     * @see #preconnect(String...)
+     */
+    public CompletableFuture<Void> preconnect() {
+        if (getDefaultHost().equals(HOST)) {
+            return preconnect(HOST, HOST_OAUTH, HOST_HTTPS_SPECIAL);
+        }
+        return preconnect(getDefaultHost());
+    }
+
     /**
      * Gets the name of the currently logged in user
      * @return The name of the currently logged in user
@@ -75,6 +105,52 @@ public class RedditClient extends RestClient<RedditResponse> {
         return authenticatedUser;
     }
 
+    /**
+     * Gets the cache that parsed models are stored in
+     * @return The current ModelCache, or null if models are not being cached
+     */
+    public ModelCache getModelCache() {
+        return modelCache;
+    }
+
+    /**
+     * Sets the cache that parsed models will be stored in. When there is one, {@link #getSubreddit(String)},
+     * {@link #getUser(String)}, {@link #getSubredditsByTopic(String)}, {@link #getWikiPage(String, String)}, and
+     * {@link net.dean.jraw.managers.MultiRedditManager#get(String, String)} will return stored models instead of
+     * sending a request. Model caching is disabled by default.
+     *
+     * @param modelCache The new ModelCache, or null to disable model caching
+     * @see InMemoryModelCache
+     */
+    public void setModelCache(ModelCache modelCache) {
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * Gets the projection applied to every request this client creates
+     * @return The current Projection, or null if every attribute is kept
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Sets which attributes of things are kept while parsing the responses to the requests this client creates. This
+     * applies to the models returned by this client and by the paginators and managers that use it, unless they have
+     * a projection of their own. Models stored in the ModelCache are only returned to requests made with the same
+     * projection they were parsed with.
+     *
+     * @param projection The new Projection, or null to keep every attribute
+     */
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public RestRequest.Builder request() {
+        return super.request().projection(projection);
+    }
+
     /**
      * Logs in to an account and returns the data associated with it
      *
@@ -86,9 +162,10 @@ public class RedditClient extends RestClient<RedditResponse> {
      */
     @EndpointImplementation(Endpoints.LOGIN)
     public LoggedInAccount login(String username, String password) throws NetworkException, ApiException {
+        boolean reddit = getDefaultHost().equals(HOST);
         RestRequest request = request()
-                .host(HOST_HTTPS_SPECIAL)
-                .https(true) // Always HTTPS
+                .host(reddit ? HOST_HTTPS_SPECIAL : getDefaultHost())
+                .https(reddit || isHttpsDefault()) // Always HTTPS on Reddit itself
                 .endpoint(Endpoints.LOGIN)
                 .post(JrawUtils.args(
                         "user", username,
@@ -103,13 +180,15 @@ public class RedditClient extends RestClient<RedditResponse> {
             throw loginResponse.getErrors()[0];
         }
 
-        setHttpsDefault(loginResponse.getJson().get("json").get("data").get("need_https").asBoolean());
-        setHttpsDefault(true);
+        if (reddit) {
+            setHttpsDefault(loginResponse.getJson().get("json").get("data").get("need_https").asBoolean());
+            setHttpsDefault(true);
+        }
 
         String modhash = loginResponse.getJson().get("json").get("data").get("modhash").getTextValue();
 
         // Add the X-Modhash header, or update it if it already exists
-        defaultHeaders.put(HEADER_MODHASH, modhash);
+        setDefaultHeader(HEADER_MODHASH, modhash);
 
         LoggedInAccount me = me();
         this.authenticatedUser = me.getFullName();
@@ -160,6 +239,7 @@ public class RedditClient extends RestClient<RedditResponse> {
             RedditResponse response = execute(request()
                     .endpoint(Endpoints.NEEDS_CAPTCHA)
                     .get()
+                    .keepRaw(true)
                     .build());
             return Boolean.parseBoolean(response.getRaw());
         } catch (NetworkException e) {
@@ -222,10 +302,43 @@ public class RedditClient extends RestClient<RedditResponse> {
      */
     @EndpointImplementation(Endpoints.USER_USERNAME_ABOUT)
     public Account getUser(String username) throws NetworkException {
-        return execute(request()
+        Projection projection = this.projection;
+        String key = modelKey(projection, Endpoints.USER_USERNAME_ABOUT, username);
+        Account account = getCachedModel(key, Account.class);
+        if (account == null) {
+            account = execute(userRequest(username, projection)).as(Account.class);
+            putCachedModel(key, account, () -> execute(userRequest(username, projection)).as(Account.class));
+        }
+        return account;
+    }
+
+    /**
+     * Gets a user with a specific username without blocking the calling thread
+     *
+     * @param username The name of the desired user
+     * @return A CompletableFuture that will be completed with an Account whose name matches the given username
+     * @see #getUser(String)
+     */
+    public CompletableFuture<Account> getUserAsync(String username) {
+        Projection projection = this.projection;
+        String key = modelKey(projection, Endpoints.USER_USERNAME_ABOUT, username);
+        Account cached = getCachedModel(key, Account.class);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return executeAsync(userRequest(username, projection)).thenApply(response -> {
+            Account account = response.as(Account.class);
+            putCachedModel(key, account, () -> execute(userRequest(username, projection)).as(Account.class));
+            return account;
+        });
+    }
+
+    private RestRequest userRequest(String username, Projection projection) {
+        return request()
+                .projection(projection)
                 .endpoint(Endpoints.USER_USERNAME_ABOUT, username)
                 .get()
-                .build()).as(Account.class);
+                .build();
     }
 
     /**
@@ -241,6 +354,32 @@ public class RedditClient extends RestClient<RedditResponse> {
 
     @EndpointImplementation(Endpoints.COMMENTS_ARTICLE)
     public Submission getSubmission(SubmissionRequest request) throws NetworkException {
+        return execute(submissionRequest(request)).as(Submission.class);
+    }
+
+    /**
+     * Gets a link with a specific ID without blocking the calling thread
+     *
+     * @param id The link's ID, ex: "92dd8"
+     * @return A CompletableFuture that will be completed with a new Submission object
+     * @see #getSubmission(String)
+     */
+    public CompletableFuture<Submission> getSubmissionAsync(String id) {
+        return getSubmissionAsync(new SubmissionRequest(id));
+    }
+
+    /**
+     * Gets a link and its comments without blocking the calling thread
+     *
+     * @param request The parameters of the request
+     * @return A CompletableFuture that will be completed with a new Submission object
+     * @see #getSubmission(SubmissionRequest)
+     */
+    public CompletableFuture<Submission> getSubmissionAsync(SubmissionRequest request) {
+        return executeAsync(submissionRequest(request)).thenApply(response -> response.as(Submission.class));
+    }
+
+    private RestRequest submissionRequest(SubmissionRequest request) {
         Map<String, String> args = new HashMap<>();
         if (request.depth.isPresent())
             args.put("depth", Integer.toString(request.depth.get()));
@@ -253,11 +392,10 @@ public class RedditClient extends RestClient<RedditResponse> {
         if (request.sort.isPresent())
             args.put("sort", request.sort.get().name().toLowerCase());
 
-        return execute(request()
+        return request()
                 .path(String.format("/comments/%s.json", request.id))
                 .query(args)
-                .build()).as(Submission.class);
-
+                .build();
     }
 
     /**
@@ -269,9 +407,42 @@ public class RedditClient extends RestClient<RedditResponse> {
      */
     @EndpointImplementation(Endpoints.SUBREDDIT_ABOUT)
     public Subreddit getSubreddit(String name) throws NetworkException {
-        return execute(request()
+        Projection projection = this.projection;
+        String key = modelKey(projection, Endpoints.SUBREDDIT_ABOUT, name);
+        Subreddit subreddit = getCachedModel(key, Subreddit.class);
+        if (subreddit == null) {
+            subreddit = execute(subredditRequest(name, projection)).as(Subreddit.class);
+            putCachedModel(key, subreddit, () -> execute(subredditRequest(name, projection)).as(Subreddit.class));
+        }
+        return subreddit;
+    }
+
+    /**
+     * Gets a Subreddit without blocking the calling thread
+     *
+     * @param name The subreddit's name
+     * @return A CompletableFuture that will be completed with a new Subreddit object
+     * @see #getSubreddit(String)
+     */
+    public CompletableFuture<Subreddit> getSubredditAsync(String name) {
+        Projection projection = this.projection;
+        String key = modelKey(projection, Endpoints.SUBREDDIT_ABOUT, name);
+        Subreddit cached = getCachedModel(key, Subreddit.class);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return executeAsync(subredditRequest(name, projection)).thenApply(response -> {
+            Subreddit subreddit = response.as(Subreddit.class);
+            putCachedModel(key, subreddit, () -> execute(subredditRequest(name, projection)).as(Subreddit.class));
+            return subreddit;
+        });
+    }
+
+    private RestRequest subredditRequest(String name, Projection projection) {
+        return request()
+                .projection(projection)
                 .endpoint(Endpoints.SUBREDDIT_ABOUT, name)
-                .build()).as(Subreddit.class);
+                .build();
     }
 
     /**
@@ -286,6 +457,7 @@ public class RedditClient extends RestClient<RedditResponse> {
         RedditResponse response = execute(request()
                 .endpoint(Endpoints.USERNAME_AVAILABLE)
                 .query("user", name)
+                .keepRaw(true)
                 .build());
 
         return Boolean.parseBoolean(response.getRaw());
@@ -349,6 +521,20 @@ public class RedditClient extends RestClient<RedditResponse> {
      */
     @EndpointImplementation(Endpoints.SUBREDDITS_BY_TOPIC)
     public List<String> getSubredditsByTopic(String topic) throws NetworkException {
+        // The response only contains names, so no projection applies to it
+        String key = modelKey(null, Endpoints.SUBREDDITS_BY_TOPIC, topic);
+        @SuppressWarnings("unchecked")
+        List<String> cached = getCachedModel(key, List.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<String> subreddits = fetchSubredditsByTopic(topic);
+        putCachedModel(key, subreddits, () -> fetchSubredditsByTopic(topic));
+        return subreddits;
+    }
+
+    private List<String> fetchSubredditsByTopic(String topic) throws NetworkException {
         List<String> subreddits = new ArrayList<>();
 
         RestRequest request = request()
@@ -361,7 +547,7 @@ public class RedditClient extends RestClient<RedditResponse> {
             subreddits.add(childNode.get("name").asText());
         }
 
-        return subreddits;
+        return Collections.unmodifiableList(subreddits);
     }
 
     /**
@@ -497,12 +683,50 @@ public class RedditClient extends RestClient<RedditResponse> {
      */
     @EndpointImplementation(Endpoints.WIKI_PAGE)
     public WikiPage getWikiPage(String subreddit, String page) throws NetworkException {
+        Projection projection = this.projection;
+        String key = modelKey(projection, Endpoints.WIKI_PAGE, subreddit, page);
+        WikiPage wikiPage = getCachedModel(key, WikiPage.class);
+        if (wikiPage == null) {
+            wikiPage = execute(wikiPageRequest(subreddit, page, projection)).as(WikiPage.class);
+            putCachedModel(key, wikiPage,
+                    () -> execute(wikiPageRequest(subreddit, page, projection)).as(WikiPage.class));
+        }
+        return wikiPage;
+    }
+
+    private RestRequest wikiPageRequest(String subreddit, String page, Projection projection) {
         String path = getSubredditPath(subreddit, "/wiki/" + page + ".json");
 
-        RestRequest r = request()
+        return request()
+                .projection(projection)
                 .path(path)
                 .build();
-        return execute(r).as(WikiPage.class);
+    }
+
+    /**
+     * Creates the ModelCache key of a model requested by the current user. Models parsed with different projections
+     * have different keys, since a projected model is missing attributes.
+     *
+     * @param projection The projection the model is parsed with, or null if it has every attribute
+     * @param endpoint The endpoint the model is fetched from
+     * @param args The arguments used to fetch the model
+     * @return A new key
+     */
+    private String modelKey(Projection projection, Endpoints endpoint, String... args) {
+        String key = ModelCache.key(authenticatedUser, endpoint, args);
+        return projection != null ? key + '|' + projection : key;
+    }
+
+    private <V> V getCachedModel(String key, Class<V> type) {
+        ModelCache cache = modelCache;
+        return cache != null ? cache.getIfPresent(key, type) : null;
+    }
+
+    private <V> void putCachedModel(String key, V value, ModelCache.Loader<V> reloader) {
+        ModelCache cache = modelCache;
+        if (cache != null) {
+            cache.put(key, value, reloader);
+        }
     }
 
 
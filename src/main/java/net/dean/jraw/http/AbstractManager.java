@@ -2,6 +2,9 @@ package net.dean.jraw.http;
 
 import net.dean.jraw.RedditClient;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * This class serves as the base class for all "manager" classes, which have control over a certain section of the API,
  * such as multireddits, wikis, or messages
@@ -20,11 +23,26 @@ public abstract class AbstractManager implements NetworkAccessible<RedditRespons
 
     @Override
     public final RedditResponse execute(RestRequest r) throws NetworkException {
+        checkAuthentication();
+        return reddit.execute(r);
+    }
+
+    @Override
+    public final CompletableFuture<RedditResponse> executeAsync(RestRequest r, Executor executor) {
+        checkAuthentication();
+        return reddit.executeAsync(r, executor);
+    }
+
+    @Override
+    public final CompletableFuture<RedditResponse> executeAsync(RestRequest r) {
+        checkAuthentication();
+        return reddit.executeAsync(r);
+    }
+
+    private void checkAuthentication() {
         if (requiresAuthentication() && !reddit.isLoggedIn()) {
             throw new IllegalStateException("This manager requires an authenticated user");
         }
-
-        return reddit.execute(r);
     }
 
 
@@ -0,0 +1,230 @@
+package net.dean.jraw.http;
+
+import com.google.common.base.Ticker;
+import net.dean.jraw.JrawUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class paces requests according to the budget the server reports through the {@code X-Ratelimit-Used},
+ * {@code X-Ratelimit-Remaining}, and {@code X-Ratelimit-Reset} headers.
+ *
+ * <p>While plenty of the budget is left, requests are let through with little or no delay. As the remaining fraction
+ * of the budget drops towards {@link #getLowWatermark() the low watermark}, the delay between requests grows smoothly
+ * until it reaches the even spacing that would spread the remaining requests across the time left in the period. Once
+ * only {@link #getSafetyMargin() the safety margin} is left, requests wait for the period to reset.
+ *
+ * <p>When the headers have never been received, or the period they described has ended without new ones arriving,
+ * requests are spaced out at the fallback rate instead. Both rates share the same schedule, so permits reserved before
+ * the switch are never handed out a second time after it.
+ */
+public class AdaptiveRatelimiter implements Ratelimiter {
+    /** The header containing the amount of requests used in the current period */
+    public static final String HEADER_USED = "X-Ratelimit-Used";
+    /** The header containing the amount of requests remaining in the current period */
+    public static final String HEADER_REMAINING = "X-Ratelimit-Remaining";
+    /** The header containing the amount of seconds until the current period ends */
+    public static final String HEADER_RESET = "X-Ratelimit-Reset";
+
+    private static final double DEFAULT_LOW_WATERMARK = 0.5;
+    private static final int DEFAULT_SAFETY_MARGIN = 2;
+
+    private final Ticker ticker;
+    /** Provides the fallback rate. Its own schedule is not used. */
+    private final StaticRatelimiter fallback;
+    private final double lowWatermark;
+    private final int safetyMargin;
+
+    // All guarded by 'this'
+    private boolean hasBudget;
+    private double used;
+    private double remaining;
+    private long resetAtNanos;
+    /** The time at which the next permit becomes available, whichever rate it is handed out at */
+    private long nextFreeNanos;
+    private long lastIntervalNanos;
+    /** If the last permit was counted against the server's budget */
+    private boolean lastHeaderDriven;
+    /** The end of the period the last permit was counted against */
+    private long lastResetAtNanos;
+
+    /**
+     * Instantiates a new AdaptiveRatelimiter with a low watermark of 50% and a safety margin of two requests
+     *
+     * @param fallbackRequestsPerMinute The rate to use when the server has not reported a budget
+     */
+    public AdaptiveRatelimiter(double fallbackRequestsPerMinute) {
+        this(fallbackRequestsPerMinute, DEFAULT_LOW_WATERMARK, DEFAULT_SAFETY_MARGIN, Ticker.systemTicker());
+    }
+
+    /**
+     * Instantiates a new AdaptiveRatelimiter
+     *
+     * @param fallbackRequestsPerMinute The rate to use when the server has not reported a budget
+     * @param lowWatermark The fraction of the budget (between 0 and 1, exclusive) at which requests start being spaced
+     *                     out evenly across the rest of the period
+     * @param safetyMargin The amount of requests to hold back to account for requests the server has not answered yet
+     * @param ticker The source of time
+     */
+    public AdaptiveRatelimiter(double fallbackRequestsPerMinute, double lowWatermark, int safetyMargin, Ticker ticker) {
+        if (lowWatermark <= 0 || lowWatermark >= 1) {
+            throw new IllegalArgumentException("lowWatermark must be between 0 and 1, exclusive");
+        }
+        if (safetyMargin < 0) {
+            throw new IllegalArgumentException("safetyMargin must not be negative");
+        }
+        this.ticker = ticker;
+        this.fallback = new StaticRatelimiter(fallbackRequestsPerMinute, ticker);
+        this.lowWatermark = lowWatermark;
+        this.safetyMargin = safetyMargin;
+        this.hasBudget = false;
+    }
+
+    @Override
+    public synchronized long reserve() {
+        long now = ticker.read();
+        long start = Math.max(nextFreeNanos, now);
+        long interval;
+        boolean headerDriven = isHeaderDriven(now);
+        if (headerDriven) {
+            interval = computeInterval(start);
+            if (remaining - safetyMargin < 1) {
+                // The budget has been spent, wait until it is refilled. The new budget is not known until a response
+                // arrives, so don't let everything that queued up in the meantime through at once.
+                start = Math.max(start, resetAtNanos);
+                interval = fallback.getIntervalNanos();
+            }
+            remaining--;
+            used++;
+        } else {
+            interval = fallback.getIntervalNanos();
+        }
+
+        nextFreeNanos = start + interval;
+        lastIntervalNanos = interval;
+        lastHeaderDriven = headerDriven;
+        lastResetAtNanos = resetAtNanos;
+        return start - now;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire() {
+        long now = ticker.read();
+        if (nextFreeNanos > now || (isHeaderDriven(now) && remaining - safetyMargin < 1)) {
+            return false;
+        }
+
+        reserve();
+        return true;
+    }
+
+    @Override
+    public synchronized void release() {
+        long now = ticker.read();
+        nextFreeNanos = Math.max(now, nextFreeNanos - lastIntervalNanos);
+        if (lastHeaderDriven && lastResetAtNanos == resetAtNanos && isHeaderDriven(now)) {
+            // Only give the permit back to the budget it was taken from. A new period's budget never counted it.
+            remaining++;
+            used--;
+        }
+    }
+
+    @Override
+    public void update(Headers headers) {
+        String usedHeader = headers.get(HEADER_USED);
+        String remainingHeader = headers.get(HEADER_REMAINING);
+        String resetHeader = headers.get(HEADER_RESET);
+        if (usedHeader == null || remainingHeader == null || resetHeader == null) {
+            return;
+        }
+
+        double newUsed;
+        double newRemaining;
+        long resetSeconds;
+        try {
+            newUsed = Double.parseDouble(usedHeader);
+            newRemaining = Double.parseDouble(remainingHeader);
+            resetSeconds = Long.parseLong(resetHeader.trim());
+        } catch (NumberFormatException e) {
+            JrawUtils.logger().warn("Malformed rate limit headers (used={}, remaining={}, reset={})",
+                    usedHeader, remainingHeader, resetHeader);
+            return;
+        }
+
+        synchronized (this) {
+            long now = ticker.read();
+            long newResetAt = now + TimeUnit.SECONDS.toNanos(resetSeconds);
+            if (hasBudget && now < resetAtNanos && newResetAt <= resetAtNanos + TimeUnit.SECONDS.toNanos(1)) {
+                // Same period. Responses can arrive out of order, so never give back requests that have already been
+                // reserved.
+                this.remaining = Math.min(remaining, newRemaining);
+                this.used = Math.max(used, newUsed);
+            } else {
+                this.remaining = newRemaining;
+                this.used = newUsed;
+            }
+            this.resetAtNanos = newResetAt;
+            this.hasBudget = true;
+        }
+    }
+
+    @Override
+    public synchronized RatelimitState getState() {
+        long now = ticker.read();
+        if (!isHeaderDriven(now)) {
+            return fallback.getState();
+        }
+        return new RatelimitState(true, used, remaining, resetAtNanos - now, lastIntervalNanos);
+    }
+
+    /**
+     * Gets the fraction of the budget at which requests start being spaced out evenly
+     * @return The low watermark
+     */
+    public double getLowWatermark() {
+        return lowWatermark;
+    }
+
+    /**
+     * Gets the amount of requests that are held back to account for requests the server has not answered yet
+     * @return The safety margin
+     */
+    public int getSafetyMargin() {
+        return safetyMargin;
+    }
+
+    /**
+     * Checks if the budget reported by the server is still valid. Must be called while holding this object's lock.
+     *
+     * @param now The current time
+     * @return If the server's budget should be used
+     */
+    private boolean isHeaderDriven(long now) {
+        return hasBudget && now < resetAtNanos;
+    }
+
+    /**
+     * Calculates how long to wait after a request sent at the given time. Must be called while holding this object's
+     * lock.
+     *
+     * @param at The time at which the request will be sent
+     * @return The interval in nanoseconds
+     */
+    private long computeInterval(long at) {
+        long timeLeft = Math.max(0, resetAtNanos - at);
+        double spendable = remaining - safetyMargin;
+        if (spendable < 1) {
+            return 0;
+        }
+
+        // The interval that would spread the remaining budget evenly over the rest of the period
+        double even = timeLeft / spendable;
+
+        double total = used + remaining;
+        double fractionLeft = total > 0 ? remaining / total : 0;
+        // 0 when the budget is full, 1 when it has dropped to the low watermark or below
+        double pressure = Math.min(1, Math.max(0, (1 - fractionLeft) / (1 - lowWatermark)));
+
+        return (long) (even * pressure);
+    }
+}
@@ -0,0 +1,102 @@
+package net.dean.jraw.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces call timeouts for transports whose underlying client has none, by aborting the call once it is over
+ */
+final class CallTimer {
+    private static final ScheduledExecutorService TIMER;
+
+    static {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("jraw-call-timeout-%d")
+                .build());
+        // Almost every call finishes in time, so don't keep cancelled timeouts around until they would have fired
+        timer.setRemoveOnCancelPolicy(true);
+        TIMER = timer;
+    }
+
+    private CallTimer() {
+        // no instances
+    }
+
+    /**
+     * Schedules a call to be aborted
+     *
+     * @param abort Aborts the call
+     * @param timeoutMillis How long the call may take, or 0 for no limit
+     * @return The timeout, which must be cancelled once the call is done, or null if there is no limit
+     */
+    static Future<?> start(Runnable abort, long timeoutMillis) {
+        return timeoutMillis > 0 ? TIMER.schedule(abort, timeoutMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    /**
+     * Schedules a call to be aborted once it reaches the call timeout or the request's deadline, whichever comes first
+     *
+     * @param abort Aborts the call
+     * @param request The request being sent
+     * @param callTimeoutMillis The transport's call timeout, or 0 for no limit
+     * @return The timeout, which must be cancelled once the call is done, or null if there is no limit
+     */
+    static Future<?> start(Runnable abort, RestRequest request, long callTimeoutMillis) {
+        return start(abort, limitMillis(request, callTimeoutMillis));
+    }
+
+    /**
+     * Gets how long a call may take at most
+     *
+     * @param request The request being sent
+     * @param callTimeoutMillis The transport's call timeout, or 0 for no limit
+     * @return The call timeout or the time left before the request's deadline, whichever is shorter, or 0 for no limit
+     */
+    static long limitMillis(RestRequest request, long callTimeoutMillis) {
+        long remaining = request.getRemainingNanos();
+        if (remaining == Long.MAX_VALUE) {
+            return callTimeoutMillis;
+        }
+        // Round up so that a deadline that hasn't quite passed yet doesn't disable the timeout
+        long remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+        return callTimeoutMillis > 0 ? Math.min(callTimeoutMillis, remainingMillis) : remainingMillis;
+    }
+
+    /**
+     * Cancels a timeout
+     * @param timeout The timeout returned by {@link #start(Runnable, long)}
+     */
+    static void cancel(Future<?> timeout) {
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * Makes the call last until its body is closed
+     *
+     * @param body The response's body
+     * @param timeout The timeout returned by {@link #start(Runnable, long)}
+     * @return A stream that cancels the timeout when it is closed
+     */
+    static InputStream cancelOnClose(InputStream body, Future<?> timeout) {
+        if (timeout == null) {
+            return body;
+        }
+        return new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException {
+                timeout.cancel(false);
+                super.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,213 @@
+package net.dean.jraw.http;
+
+import net.dean.jraw.JrawUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps track of the health of a single host. While the circuit is closed, every call is let through and
+ * its outcome is recorded in a sliding window. Once too many of the recent calls failed or were slow, the circuit opens
+ * and calls are rejected right away instead of tying up threads and rate limit permits. After a while the circuit
+ * becomes half-open and lets a few trial calls through, which decide whether it closes again or goes back to being
+ * open.
+ *
+ * @see CircuitBreakerConfig
+ * @see CircuitBreakerOpenException
+ */
+public class CircuitBreaker {
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    /** Returned by {@link #tryAcquirePermission()} when a call is not let through */
+    public static final long NO_PERMISSION = -1;
+
+    /** The states a circuit can be in */
+    public enum State {
+        /** Calls are let through and recorded */
+        CLOSED,
+        /** Calls are rejected */
+        OPEN,
+        /** A limited amount of trial calls are let through */
+        HALF_OPEN
+    }
+
+    private final String host;
+    private final CircuitBreakerConfig config;
+
+    // All fields below are guarded by this
+    private State state;
+    /** A ring buffer of the outcomes of the most recent calls, made up of SUCCESS, FAILURE, and SLOW flags */
+    private final byte[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    /** The amount of trial calls let through since the circuit became half-open */
+    private int trialCalls;
+    /** Incremented on every transition, so that calls let through in an earlier state can be told apart */
+    private long generation;
+
+    /**
+     * Instantiates a new CircuitBreaker
+     *
+     * @param host The host this circuit breaker watches
+     * @param config The settings to use
+     */
+    public CircuitBreaker(String host, CircuitBreakerConfig config) {
+        this.host = host;
+        this.config = config;
+        this.state = State.CLOSED;
+        this.window = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * Asks for permission to send a call. If permission is granted, the outcome of the call must be reported using
+     * {@link #onResult(long, boolean, long)}, or the permission given back using {@link #release(long)} if the call is
+     * never sent.
+     *
+     * @return The permission, which identifies the state the call was let through in, or {@link #NO_PERMISSION} if
+     *         the call may not be sent
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (config.getTicker().read() - openedAt < config.getOpenNanos()) {
+                return NO_PERMISSION;
+            }
+            transition(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialCalls >= config.getHalfOpenCalls()) {
+                return NO_PERMISSION;
+            }
+            trialCalls++;
+        }
+        return generation;
+    }
+
+    /**
+     * Gives back a permission that was granted but not used, for example because the call missed its deadline while
+     * waiting for the rate limit or was cancelled before it had an outcome. While the circuit is half-open, this lets
+     * another trial call through in its place. Permissions granted before the circuit last changed state are ignored.
+     *
+     * @param permission The permission returned by {@link #tryAcquirePermission()}
+     */
+    public synchronized void release(long permission) {
+        if (permission == generation && state == State.HALF_OPEN && trialCalls > 0) {
+            trialCalls--;
+        }
+    }
+
+    /**
+     * Records the outcome of a call. The outcomes of calls let through before the circuit last changed state are
+     * ignored, so that a slow call from while the circuit was closed isn't taken for a trial call.
+     *
+     * @param permission The permission returned by {@link #tryAcquirePermission()}
+     * @param failed If the call failed
+     * @param durationNanos How long the call took
+     */
+    public synchronized void onResult(long permission, boolean failed, long durationNanos) {
+        if (permission != generation) {
+            // A call that was let through in an earlier state
+            return;
+        }
+
+        byte outcome = failed ? FAILURE : SUCCESS;
+        if (durationNanos >= config.getSlowCallNanos()) {
+            outcome |= SLOW;
+        }
+        record(outcome);
+
+        if (state == State.HALF_OPEN) {
+            if (recorded >= config.getHalfOpenCalls()) {
+                transition(isUnhealthy() ? State.OPEN : State.CLOSED);
+            }
+        } else if (recorded >= config.getMinimumCalls() && isUnhealthy()) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void record(byte outcome) {
+        if (recorded == window.length) {
+            // Forget the oldest outcome
+            byte oldest = window[windowIndex];
+            if ((oldest & FAILURE) != 0) failures--;
+            if ((oldest & SLOW) != 0) slowCalls--;
+        } else {
+            recorded++;
+        }
+
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if ((outcome & FAILURE) != 0) failures++;
+        if ((outcome & SLOW) != 0) slowCalls++;
+    }
+
+    private boolean isUnhealthy() {
+        return getFailureRate() >= config.getFailureRateThreshold() ||
+                getSlowCallRate() >= config.getSlowCallRateThreshold();
+    }
+
+    private void transition(State newState) {
+        if (newState != State.CLOSED || state != State.CLOSED) {
+            JrawUtils.logger().warn("Circuit breaker for {} went from {} to {}", host, state, newState);
+        }
+        this.state = newState;
+        this.generation++;
+        // Every state starts with a clean slate
+        this.windowIndex = 0;
+        this.recorded = 0;
+        this.failures = 0;
+        this.slowCalls = 0;
+        this.trialCalls = 0;
+        if (newState == State.OPEN) {
+            this.openedAt = config.getTicker().read();
+        }
+    }
+
+    /**
+     * Gets the current state of the circuit. An open circuit whose open duration has passed is reported as open until
+     * the next call asks for permission.
+     *
+     * @return The current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Gets the fraction of recorded calls in the current state that failed
+     * @return The failure rate, or 0 if no calls have been recorded
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    /**
+     * Gets the fraction of recorded calls in the current state that were slow
+     * @return The slow call rate, or 0 if no calls have been recorded
+     */
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCalls / recorded;
+    }
+
+    /**
+     * Gets how long it will be until the circuit lets trial calls through
+     *
+     * @param unit The unit of the returned value
+     * @return The remaining time, or 0 if the circuit is not open
+     */
+    public synchronized long getRemainingOpenTime(TimeUnit unit) {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        long remaining = config.getOpenNanos() - (config.getTicker().read() - openedAt);
+        return unit.convert(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+    }
+
+    public String getHost() {
+        return host;
+    }
+}
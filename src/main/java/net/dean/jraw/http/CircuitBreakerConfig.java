@@ -0,0 +1,225 @@
+package net.dean.jraw.http;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class holds the settings shared by every {@link CircuitBreaker} of a RestClient
+ *
+ * @see RestClient#setCircuitBreakerConfig(CircuitBreakerConfig)
+ */
+public final class CircuitBreakerConfig {
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final Ticker ticker;
+
+    private CircuitBreakerConfig(Builder b) {
+        this.windowSize = b.windowSize;
+        this.minimumCalls = b.minimumCalls;
+        this.failureRateThreshold = b.failureRateThreshold;
+        this.slowCallNanos = b.slowCallNanos;
+        this.slowCallRateThreshold = b.slowCallRateThreshold;
+        this.openNanos = b.openNanos;
+        this.halfOpenCalls = b.halfOpenCalls;
+        this.ticker = b.ticker;
+    }
+
+    /**
+     * Gets the amount of most recent calls that failure and slow call rates are calculated from
+     * @return The amount of most recent calls that failure and slow call rates are calculated from
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Gets the amount of calls that have to be recorded before the circuit can open
+     * @return The amount of calls that have to be recorded before the circuit can open
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * Gets the fraction of failed calls at which the circuit opens
+     * @return The fraction of failed calls at which the circuit opens
+     */
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Gets the duration after which a call counts as slow, in nanoseconds
+     * @return The duration after which a call counts as slow, in nanoseconds
+     */
+    public long getSlowCallNanos() {
+        return slowCallNanos;
+    }
+
+    /**
+     * Gets the fraction of slow calls at which the circuit opens
+     * @return The fraction of slow calls at which the circuit opens
+     */
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Gets how long the circuit stays open before letting trial calls through, in nanoseconds
+     * @return How long the circuit stays open before letting trial calls through, in nanoseconds
+     */
+    public long getOpenNanos() {
+        return openNanos;
+    }
+
+    /**
+     * Gets the amount of trial calls let through while the circuit is half-open
+     * @return The amount of trial calls let through while the circuit is half-open
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * This class is used to create a new CircuitBreakerConfig
+     */
+    public static class Builder {
+        private int windowSize;
+        private int minimumCalls;
+        private double failureRateThreshold;
+        private long slowCallNanos;
+        private double slowCallRateThreshold;
+        private long openNanos;
+        private int halfOpenCalls;
+        private Ticker ticker;
+
+        /**
+         * Instantiates a new Builder. By default, the circuit opens when at least half of the last 20 calls (with a
+         * minimum of 10) failed, or when at least 80% of them took over 10 seconds. It then stays open for 30 seconds,
+         * after which 3 trial calls are let through.
+         */
+        public Builder() {
+            this.windowSize = 20;
+            this.minimumCalls = 10;
+            this.failureRateThreshold = 0.5;
+            this.slowCallNanos = TimeUnit.SECONDS.toNanos(10);
+            this.slowCallRateThreshold = 0.8;
+            this.openNanos = TimeUnit.SECONDS.toNanos(30);
+            this.halfOpenCalls = 3;
+            this.ticker = Ticker.systemTicker();
+        }
+
+        /**
+         * Sets the size of the sliding window
+         *
+         * @param windowSize The amount of most recent calls that rates are calculated from
+         * @param minimumCalls The amount of calls that have to be recorded before the circuit can open. Must not be
+         *                     greater than {@code windowSize}.
+         * @return This Builder
+         */
+        public Builder window(int windowSize, int minimumCalls) {
+            if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+                throw new IllegalArgumentException("Expected 1 <= minimumCalls <= windowSize");
+            }
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of failed calls at which the circuit opens. Calls fail when the request could not be sent
+         * or the server responded with a 5xx status code.
+         *
+         * @param threshold A number between 0 (exclusive) and 1 (inclusive)
+         * @return This Builder
+         */
+        public Builder failureRateThreshold(double threshold) {
+            this.failureRateThreshold = checkRate(threshold);
+            return this;
+        }
+
+        /**
+         * Sets when calls count as slow and the fraction of slow calls at which the circuit opens
+         *
+         * @param duration The duration after which a call counts as slow
+         * @param unit The unit of {@code duration}
+         * @param threshold A number between 0 (exclusive) and 1 (inclusive)
+         * @return This Builder
+         */
+        public Builder slowCalls(long duration, TimeUnit unit, double threshold) {
+            this.slowCallNanos = unit.toNanos(duration);
+            this.slowCallRateThreshold = checkRate(threshold);
+            return this;
+        }
+
+        /**
+         * Sets how long the circuit stays open before letting trial calls through
+         *
+         * @param duration The amount of time
+         * @param unit The unit of {@code duration}
+         * @return This Builder
+         */
+        public Builder openDuration(long duration, TimeUnit unit) {
+            this.openNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the amount of trial calls let through while the circuit is half-open. If they fail too often, the circuit
+         * opens again, otherwise it closes.
+         *
+         * @param halfOpenCalls The amount of trial calls. Must be at least 1, and not greater than the window size.
+         * @return This Builder
+         */
+        public Builder halfOpenCalls(int halfOpenCalls) {
+            if (halfOpenCalls < 1) {
+                throw new IllegalArgumentException("halfOpenCalls must be at least 1");
+            }
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        /**
+         * Sets the time source. Meant for testing.
+         *
+         * @param ticker The new Ticker
+         * @return This Builder
+         */
+        public Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Creates a new CircuitBreakerConfig
+         *
+         * @return A new CircuitBreakerConfig
+         * @throws IllegalStateException If there are more half-open calls than the window can hold
+         */
+        public CircuitBreakerConfig build() {
+            if (halfOpenCalls > windowSize) {
+                // The trial calls could never all be recorded, so the circuit would stay half-open forever
+                throw new IllegalStateException("halfOpenCalls (" + halfOpenCalls + ") cannot be greater than " +
+                        "windowSize (" + windowSize + ")");
+            }
+            return new CircuitBreakerConfig(this);
+        }
+
+        private static double checkRate(double rate) {
+            if (rate <= 0 || rate > 1) {
+                throw new IllegalArgumentException("Rate thresholds must be greater than 0 and at most 1");
+            }
+            return rate;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package net.dean.jraw.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This Exception is thrown instead of sending a request when the circuit breaker of the request's host is open, which
+ * means that the host has recently been failing or responding too slowly.
+ *
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerOpenException extends NetworkException {
+    private final String host;
+    private final long remainingOpenNanos;
+
+    /**
+     * Instantiates a new CircuitBreakerOpenException
+     *
+     * @param host The host whose circuit is open
+     * @param remainingOpenNanos How long it will be until the circuit lets trial calls through, in nanoseconds
+     */
+    public CircuitBreakerOpenException(String host, long remainingOpenNanos) {
+        super(String.format("The circuit breaker for %s is open, failing fast (%s ms remaining)", host,
+                TimeUnit.NANOSECONDS.toMillis(remainingOpenNanos)));
+        this.host = host;
+        this.remainingOpenNanos = remainingOpenNanos;
+    }
+
+    /**
+     * Gets the host whose circuit is open
+     * @return The host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Gets how long it will be until the circuit lets trial calls through
+     * @param unit The unit of the returned value
+     * @return The remaining time, or 0 if the circuit is half-open and all trial calls are in use
+     */
+    public long getRemainingOpenTime(TimeUnit unit) {
+        return unit.convert(remainingOpenNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,79 @@
+package net.dean.jraw.http;
+
+/**
+ * A snapshot of how well an {@link HttpTransport} is reusing its connections
+ *
+ * @see RestClient#getConnectionStats()
+ */
+public final class ConnectionStats {
+    private final long requestCount;
+    private final long connectionCount;
+    private final int pooledConnections;
+    private final int pooledHttp2Connections;
+
+    ConnectionStats(long requestCount, long connectionCount, int pooledConnections, int pooledHttp2Connections) {
+        this.requestCount = requestCount;
+        this.connectionCount = connectionCount;
+        this.pooledConnections = pooledConnections;
+        this.pooledHttp2Connections = pooledHttp2Connections;
+    }
+
+    /**
+     * Gets the amount of requests the transport has sent
+     * @return The total amount of requests
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Gets the amount of connections the transport has opened
+     * @return The total amount of connections
+     */
+    public long getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * Gets the amount of requests that were sent over a connection opened for an earlier request
+     * @return The amount of requests that did not have to open a new connection
+     */
+    public long getReusedCount() {
+        return Math.max(0, requestCount - connectionCount);
+    }
+
+    /**
+     * Gets the fraction of requests that were sent over an existing connection
+     * @return A number between 0 and 1, or 0 if no requests have been sent
+     */
+    public double getReuseRatio() {
+        return requestCount == 0 ? 0 : getReusedCount() / (double) requestCount;
+    }
+
+    /**
+     * Gets the amount of connections currently in the pool, whether idle or in use
+     * @return The amount of pooled connections
+     */
+    public int getPooledConnections() {
+        return pooledConnections;
+    }
+
+    /**
+     * Gets the amount of pooled connections that multiplex requests (HTTP/2 or SPDY)
+     * @return The amount of multiplexed pooled connections
+     */
+    public int getPooledHttp2Connections() {
+        return pooledHttp2Connections;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStats {" +
+                "requestCount=" + requestCount +
+                ", connectionCount=" + connectionCount +
+                ", reuseRatio=" + getReuseRatio() +
+                ", pooledConnections=" + pooledConnections +
+                ", pooledHttp2Connections=" + pooledHttp2Connections +
+                '}';
+    }
+}
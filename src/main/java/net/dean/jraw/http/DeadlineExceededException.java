@@ -0,0 +1,37 @@
+package net.dean.jraw.http;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This Exception is thrown when a request could not be completed before its deadline. The request may have been
+ * waiting for the rate limit, connecting, or reading the response when the deadline passed.
+ *
+ * @see RestRequest.Builder#deadline(long, TimeUnit)
+ * @see RestClient#setDefaultDeadline(long, TimeUnit)
+ */
+public class DeadlineExceededException extends NetworkException {
+    private final long deadlineNanos;
+
+    /**
+     * Instantiates a new DeadlineExceededException
+     *
+     * @param deadlineNanos The deadline that was exceeded, in nanoseconds
+     * @param cause The failure caused by the request being aborted, or null if it was never sent
+     * @param attempts Every attempt made to send the request
+     */
+    public DeadlineExceededException(long deadlineNanos, Throwable cause, List<RequestAttempt> attempts) {
+        super(String.format("Deadline of %s ms exceeded", TimeUnit.NANOSECONDS.toMillis(deadlineNanos)), cause,
+                attempts);
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Gets the deadline that was exceeded
+     * @param unit The unit of the returned value
+     * @return The request's deadline
+     */
+    public long getDeadline(TimeUnit unit) {
+        return unit.convert(deadlineNanos, TimeUnit.NANOSECONDS);
+    }
+}
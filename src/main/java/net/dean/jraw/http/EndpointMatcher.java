@@ -0,0 +1,132 @@
+package net.dean.jraw.http;
+
+import net.dean.jraw.Endpoint;
+import net.dean.jraw.Endpoints;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the {@link Endpoints} a request was sent to, so that metrics for "/r/pics/about.json" and
+ * "/r/funny/about.json" are grouped together under "GET /r/{subreddit}/about.json"
+ */
+final class EndpointMatcher {
+    private static final String SUBREDDIT_PREFIX = "/r/{subreddit}";
+    /** Templates by HTTP method and amount of path segments */
+    private static final Map<String, List<Template>> TEMPLATES = new HashMap<>();
+
+    static {
+        for (Endpoints endpoints : Endpoints.values()) {
+            Endpoint e = endpoints.getEndpoint();
+            Template template = new Template(e.getRequestDescriptor(), segments(e.getUri()));
+            TEMPLATES.computeIfAbsent(key(e.getVerb(), template.segments.length), k -> new ArrayList<>())
+                    .add(template);
+        }
+    }
+
+    private EndpointMatcher() {
+        // no instances
+    }
+
+    /**
+     * Gets the name metrics for a request should be grouped under
+     *
+     * @param request The request
+     * @return The descriptor of the request's endpoint, for example "GET /r/{subreddit}/about.json". If the request was
+     *         built with a path that does not match any known endpoint, the method and path are returned instead.
+     */
+    static String match(RestRequest request) {
+        if (request.getEndpoint() != null) {
+            return request.getEndpoint().getEndpoint().getRequestDescriptor();
+        }
+
+        String path = request.getPath();
+        String[] segments = segments(path);
+        Template template = find(request.getMethod(), segments, 0);
+        if (template != null) {
+            return template.descriptor;
+        }
+
+        // Most listings can be scoped to a subreddit, for example "/r/pics/hot" for "GET /hot"
+        if (segments.length > 2 && segments[0].equals("r")) {
+            template = find(request.getMethod(), segments, 2);
+            if (template != null) {
+                int space = template.descriptor.indexOf(' ');
+                return template.descriptor.substring(0, space + 1) + SUBREDDIT_PREFIX +
+                        template.descriptor.substring(space + 1);
+            }
+        }
+        return request.getMethod() + " " + path;
+    }
+
+    /**
+     * Finds the template that matches the most literal segments
+     */
+    private static Template find(String method, String[] segments, int offset) {
+        List<Template> candidates = TEMPLATES.get(key(method, segments.length - offset));
+        if (candidates == null) {
+            return null;
+        }
+
+        Template best = null;
+        int bestLiterals = -1;
+        for (Template template : candidates) {
+            int literals = template.match(segments, offset);
+            if (literals > bestLiterals) {
+                best = template;
+                bestLiterals = literals;
+            }
+        }
+        return best;
+    }
+
+    private static String key(String method, int segments) {
+        return method + segments;
+    }
+
+    /**
+     * Splits a path into its segments, ignoring the ".json" extension and empty segments
+     */
+    private static String[] segments(String path) {
+        if (path.endsWith(".json")) {
+            path = path.substring(0, path.length() - ".json".length());
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[segments.size()]);
+    }
+
+    private static final class Template {
+        private final String descriptor;
+        private final String[] segments;
+
+        private Template(String descriptor, String[] segments) {
+            this.descriptor = descriptor;
+            this.segments = segments;
+        }
+
+        /**
+         * Returns the amount of literal segments matched, or -1 if the path does not match
+         */
+        private int match(String[] path, int offset) {
+            int literals = 0;
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    continue;
+                }
+                if (!segment.equals(path[offset + i])) {
+                    return -1;
+                }
+                literals++;
+            }
+            return literals;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package net.dean.jraw.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class runs a blocking task once for every element of a collection, with a limit on how many run at the same
+ * time. It is meant to be used with an Executor that creates virtual threads, so that thousands of blocking calls
+ * (such as paginating thousands of subreddits) can wait on the rate limit without tying up a thread each.
+ *
+ * <pre>
+ * FanOut fanOut = reddit.fanOut(100);
+ * List&lt;Listing&lt;Submission&gt;&gt; pages = fanOut.map(subreddits, name -&gt;
+ *         new SubredditPaginator(reddit, name).next());
+ * </pre>
+ *
+ * @see RestClient#fanOut(int)
+ * @see VirtualThreads
+ */
+public final class FanOut {
+    private final Executor executor;
+    private final int maxConcurrency;
+
+    /**
+     * Instantiates a new FanOut
+     *
+     * @param executor The Executor that will run the tasks. It should not limit the amount of tasks it runs at the same
+     *                 time to less than {@code maxConcurrency}.
+     * @param maxConcurrency The maximum amount of tasks that can be running at the same time
+     */
+    public FanOut(Executor executor, int maxConcurrency) {
+        if (executor == null) {
+            throw new NullPointerException("executor cannot be null");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Runs a task for every input and waits for all of them to finish. Once a task fails, no more tasks are started.
+     *
+     * @param inputs The inputs to run the task for
+     * @param task The task to run
+     * @param <I> The type of the inputs
+     * @param <O> The type of the results
+     * @return The results, in the same order as the inputs
+     * @throws ExecutionException If a task threw an exception, which will be the cause. Exceptions thrown by other tasks
+     *                            that were already running are added as suppressed exceptions.
+     * @throws InterruptedException If the calling thread was interrupted. Tasks that are already running are not
+     *                              interrupted.
+     */
+    public <I, O> List<O> map(Collection<? extends I> inputs, Task<? super I, ? extends O> task)
+            throws ExecutionException, InterruptedException {
+        Object[] results = new Object[inputs.size()];
+        CountDownLatch done = new CountDownLatch(inputs.size());
+        Semaphore permits = new Semaphore(maxConcurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        int index = 0;
+        for (I input : inputs) {
+            permits.acquire();
+            if (failure.get() != null) {
+                permits.release();
+                break;
+            }
+
+            int i = index++;
+            try {
+                executor.execute(() -> {
+                    try {
+                        results[i] = task.call(input);
+                    } catch (Throwable t) {
+                        if (!failure.compareAndSet(null, t) && failure.get() != t) {
+                            failure.get().addSuppressed(t);
+                        }
+                    } finally {
+                        permits.release();
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failure.compareAndSet(null, e);
+                permits.release();
+                done.countDown();
+                break;
+            }
+        }
+
+        // Count down for the tasks that were never started
+        for (int i = index; i < results.length; i++) {
+            done.countDown();
+        }
+        done.await();
+
+        if (failure.get() != null) {
+            throw new ExecutionException(failure.get());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<O> list = (List<O>) new ArrayList<>(Arrays.asList(results));
+        return list;
+    }
+
+    /**
+     * A blocking call to make for every input
+     *
+     * @param <I> The type of the input
+     * @param <O> The type of the result
+     */
+    @FunctionalInterface
+    public interface Task<I, O> {
+        /**
+         * Makes the call
+         *
+         * @param input The input to make the call for
+         * @return The result
+         * @throws Exception If the call failed
+         */
+        O call(I input) throws Exception;
+    }
+}
@@ -0,0 +1,215 @@
+package net.dean.jraw.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class represents an immutable, ordered list of HTTP headers. Header names are case-insensitive and may appear
+ * more than once.
+ */
+public final class Headers {
+    /** Alternating names and values */
+    private final String[] namesAndValues;
+
+    private Headers(String[] namesAndValues) {
+        this.namesAndValues = namesAndValues;
+    }
+
+    /**
+     * Creates a new Headers object
+     *
+     * @param namesAndValues Alternating header names and values, such as {@code "Content-Type", "text/html"}
+     * @return A new Headers object
+     */
+    public static Headers of(String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Expected alternating header names and values");
+        }
+        String[] copy = namesAndValues.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] == null) {
+                throw new IllegalArgumentException("Header names and values cannot be null");
+            }
+            copy[i] = copy[i].trim();
+        }
+        return new Headers(copy);
+    }
+
+    /**
+     * Creates a new Headers object
+     *
+     * @param headers A map of header names to their values
+     * @return A new Headers object
+     */
+    public static Headers of(Map<String, String> headers) {
+        Builder b = new Builder();
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            b.add(entry.getKey(), entry.getValue());
+        }
+        return b.build();
+    }
+
+    /**
+     * Gets the last value of a header
+     *
+     * @param name The header's name, which is not case-sensitive
+     * @return The header's value, or null if it was not present
+     */
+    public String get(String name) {
+        for (int i = namesAndValues.length - 2; i >= 0; i -= 2) {
+            if (name.equalsIgnoreCase(namesAndValues[i])) {
+                return namesAndValues[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets every value of a header
+     *
+     * @param name The header's name, which is not case-sensitive
+     * @return The header's values in the order they were received
+     */
+    public List<String> values(String name) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < size(); i++) {
+            if (name.equalsIgnoreCase(name(i))) {
+                values.add(value(i));
+            }
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Gets the names of every header, ignoring case
+     * @return The header names
+     */
+    public Set<String> names() {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < size(); i++) {
+            names.add(name(i));
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Gets the amount of name/value pairs
+     * @return The amount of headers
+     */
+    public int size() {
+        return namesAndValues.length / 2;
+    }
+
+    public String name(int index) {
+        return namesAndValues[index * 2];
+    }
+
+    public String value(int index) {
+        return namesAndValues[index * 2 + 1];
+    }
+
+    /**
+     * Creates a Builder that contains all of these headers
+     * @return A new Builder
+     */
+    public Builder newBuilder() {
+        Builder b = new Builder();
+        b.namesAndValues.addAll(Arrays.asList(namesAndValues));
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Headers && Arrays.equals(((Headers) o).namesAndValues, namesAndValues);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(namesAndValues);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            sb.append(name(i)).append(": ").append(value(i)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * This class is used to create a new Headers object
+     */
+    public static final class Builder {
+        private final List<String> namesAndValues = new ArrayList<>();
+
+        /**
+         * Adds a header, keeping any others of the same name
+         *
+         * @param name The header's name
+         * @param value The header's value
+         * @return This Builder
+         */
+        public Builder add(String name, String value) {
+            if (name == null || value == null) {
+                throw new IllegalArgumentException("Header names and values cannot be null");
+            }
+            namesAndValues.add(name.trim());
+            namesAndValues.add(value.trim());
+            return this;
+        }
+
+        /**
+         * Replaces every header of the same name with a new one
+         *
+         * @param name The header's name
+         * @param value The header's value
+         * @return This Builder
+         */
+        public Builder set(String name, String value) {
+            removeAll(name);
+            return add(name, value);
+        }
+
+        /**
+         * Removes every header of the given name
+         *
+         * @param name The header's name, which is not case-sensitive
+         * @return This Builder
+         */
+        public Builder removeAll(String name) {
+            for (int i = 0; i < namesAndValues.size(); i += 2) {
+                if (name.equalsIgnoreCase(namesAndValues.get(i))) {
+                    namesAndValues.remove(i);
+                    namesAndValues.remove(i);
+                    i -= 2;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Gets the last value of a header added so far
+         *
+         * @param name The header's name, which is not case-sensitive
+         * @return The header's value, or null if it has not been added
+         */
+        public String get(String name) {
+            for (int i = namesAndValues.size() - 2; i >= 0; i -= 2) {
+                if (name.equalsIgnoreCase(namesAndValues.get(i))) {
+                    return namesAndValues.get(i + 1);
+                }
+            }
+            return null;
+        }
+
+        public Headers build() {
+            return new Headers(namesAndValues.toArray(new String[namesAndValues.size()]));
+        }
+    }
+}
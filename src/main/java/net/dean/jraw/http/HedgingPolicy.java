@@ -0,0 +1,265 @@
+package net.dean.jraw.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class decides when a slow GET request should be "hedged": sent a second time while the first one is still in
+ * flight, so that whichever response arrives first can be used and the other call cancelled. A request is hedged once
+ * it has been waiting for longer than a given percentile of the latencies previously seen for the same endpoint, so
+ * only the slowest requests are ever sent twice.
+ *
+ * <p>Hedges are sent like any other request, so each one takes a permit from the rate limit. On top of that, they are
+ * limited by a budget: each request adds a fraction of a hedge to it and each hedge takes a whole one out, so that
+ * hedges never make up more than that fraction of all requests.
+ *
+ * @see RestClient#setHedgingPolicy(HedgingPolicy)
+ */
+public class HedgingPolicy {
+    private static final int MAX_ENDPOINTS = 256;
+    private static final String OTHER = "other";
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final double budgetRatio;
+    private final double maxBudget;
+    private final Map<String, Histogram> latencies;
+    private final AtomicLong requestCount;
+    private final AtomicLong hedgeCount;
+    private final AtomicLong winCount;
+    /** The amount of hedges that can currently be sent. Guarded by this. */
+    private double budget;
+
+    private HedgingPolicy(Builder b) {
+        this.percentile = b.percentile;
+        this.minDelayNanos = b.minDelayNanos;
+        this.minSamples = b.minSamples;
+        this.budgetRatio = b.budgetRatio;
+        this.maxBudget = b.maxBudget;
+        this.latencies = new ConcurrentHashMap<>();
+        this.requestCount = new AtomicLong();
+        this.hedgeCount = new AtomicLong();
+        this.winCount = new AtomicLong();
+        this.budget = b.maxBudget;
+    }
+
+    /**
+     * Checks if a request may be hedged. Only GET requests are, since they can be sent twice without changing anything
+     * on the server.
+     *
+     * @param request The request to check
+     * @return If the request may be hedged
+     */
+    public boolean isHedgeable(RestRequest request) {
+        return request.getMethod().equals("GET");
+    }
+
+    /**
+     * Notifies this policy that a hedgeable request is about to be sent, which adds to the hedge budget
+     */
+    public synchronized void onRequest() {
+        requestCount.incrementAndGet();
+        budget = Math.min(maxBudget, budget + budgetRatio);
+    }
+
+    /**
+     * Gets how long to wait for a response before hedging a request
+     *
+     * @param request The request about to be sent
+     * @return The delay in nanoseconds, or -1 if not enough responses have been seen from the request's endpoint yet
+     */
+    public long getHedgeDelay(RestRequest request) {
+        Histogram histogram = latencies.get(key(request));
+        if (histogram == null || histogram.getCount() < minSamples) {
+            return -1;
+        }
+        return Math.max(minDelayNanos, histogram.getValueAtPercentile(percentile));
+    }
+
+    /**
+     * Takes a hedge out of the budget
+     * @return True if a hedge may be sent, false if the budget has been spent
+     */
+    public synchronized boolean tryHedge() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        hedgeCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Records how long it took for a request to get a response
+     *
+     * @param request The request
+     * @param latencyNanos The time between sending the request (not its hedge) and the first response, in nanoseconds
+     * @param hedgeWon If the response came from the hedge
+     */
+    public void onResponse(RestRequest request, long latencyNanos, boolean hedgeWon) {
+        String key = key(request);
+        Histogram histogram = latencies.get(key);
+        if (histogram == null) {
+            if (latencies.size() >= MAX_ENDPOINTS) {
+                key = OTHER;
+            }
+            histogram = latencies.computeIfAbsent(key, k -> new Histogram());
+        }
+        histogram.record(latencyNanos);
+        if (hedgeWon) {
+            winCount.incrementAndGet();
+        }
+    }
+
+    private String key(RestRequest request) {
+        String key = EndpointMatcher.match(request);
+        return latencies.containsKey(key) || latencies.size() < MAX_ENDPOINTS ? key : OTHER;
+    }
+
+    /**
+     * Gets the amount of hedgeable requests that have been sent, not counting hedges
+     * @return The amount of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the amount of hedges that have been sent
+     * @return The amount of hedges
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * Gets the amount of hedges whose response arrived before the one of the original request
+     * @return The amount of hedges that won
+     */
+    public long getWinCount() {
+        return winCount.get();
+    }
+
+    /**
+     * Gets the fraction of requests that were hedged
+     * @return A number between 0 and 1
+     */
+    public double getHedgeRate() {
+        long requests = requestCount.get();
+        return requests == 0 ? 0 : hedgeCount.get() / (double) requests;
+    }
+
+    /**
+     * Gets the fraction of hedges that beat the original request. A low win rate means the hedge delay is too short.
+     * @return A number between 0 and 1
+     */
+    public double getWinRate() {
+        long hedges = hedgeCount.get();
+        return hedges == 0 ? 0 : winCount.get() / (double) hedges;
+    }
+
+    public synchronized double getBudget() {
+        return budget;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy {" +
+                "percentile=" + percentile +
+                ", requestCount=" + getRequestCount() +
+                ", hedgeRate=" + getHedgeRate() +
+                ", winRate=" + getWinRate() +
+                '}';
+    }
+
+    /**
+     * This class is used to configure a new HedgingPolicy
+     */
+    public static class Builder {
+        private double percentile;
+        private long minDelayNanos;
+        private int minSamples;
+        private double budgetRatio;
+        private double maxBudget;
+
+        /**
+         * Instantiates a new Builder. By default, a request is hedged once it has taken longer than 95% of the requests
+         * to the same endpoint (but at least 50 milliseconds), once 20 responses have been seen from that endpoint.
+         * Hedges may make up about 5% of all requests, with a reserve of five.
+         */
+        public Builder() {
+            this.percentile = 95;
+            this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(50);
+            this.minSamples = 20;
+            this.budgetRatio = 0.05;
+            this.maxBudget = 5;
+        }
+
+        /**
+         * Sets the percentile of an endpoint's latencies after which its requests are hedged
+         *
+         * @param percentile A number between 0 (exclusive) and 100
+         * @return This Builder
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be greater than 0 and at most 100");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the shortest time a request will wait before being hedged, however fast its endpoint usually is
+         *
+         * @param delay The minimum delay
+         * @param unit The unit of {@code delay}
+         * @return This Builder
+         */
+        public Builder minDelay(long delay, TimeUnit unit) {
+            if (delay < 0) {
+                throw new IllegalArgumentException("delay cannot be negative");
+            }
+            this.minDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Sets the amount of responses that have to be seen from an endpoint before its requests can be hedged
+         *
+         * @param minSamples The amount of responses
+         * @return This Builder
+         */
+        public Builder minSamples(int minSamples) {
+            if (minSamples < 1) {
+                throw new IllegalArgumentException("minSamples must be at least 1");
+            }
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * Sets the hedge budget
+         *
+         * @param ratio The fraction of a hedge that each request adds to the budget. A ratio of 0.05 means that no
+         *              more than about 5% of requests will be hedged.
+         * @param maxBudget The amount of hedges that can be saved up, which is also the initial budget
+         * @return This Builder
+         */
+        public Builder budget(double ratio, double maxBudget) {
+            if (ratio < 0 || maxBudget < 0) {
+                throw new IllegalArgumentException("ratio and maxBudget must not be negative");
+            }
+            this.budgetRatio = ratio;
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package net.dean.jraw.http;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records the distribution of non-negative values, such as latencies in nanoseconds, without storing every
+ * value. Like an HDR histogram, values are counted in buckets whose width grows with their magnitude: every power of
+ * two is split into 32 buckets, so a percentile is never off by more than about 3% no matter how large the value is,
+ * and recording a value is a single atomic increment.
+ *
+ * <p>This class is thread-safe. Values recorded while a percentile is being computed may or may not be included.
+ */
+public final class Histogram {
+    /** The amount of bits of each value that are kept exactly */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_BITS;
+    /** Values below this are counted in a bucket of their own */
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    /**
+     * Instantiates a new, empty Histogram
+     */
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param value The value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Another thread updated the maximum, try again
+        }
+    }
+
+    /**
+     * Gets the amount of values recorded
+     * @return The amount of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the largest value recorded
+     * @return The exact maximum, or 0 if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the average of the values recorded
+     * @return The exact mean, or 0 if no values have been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : sum.get() / (double) n;
+    }
+
+    /**
+     * Gets the sum of the values recorded
+     * @return The exact sum
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Gets the value below which a percentage of the recorded values fall
+     *
+     * @param percentile A number between 0 and 100, for example 99.9
+     * @return The largest value that is equivalent to the one at the given percentile, or 0 if no values have been
+     *         recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        // Values were recorded after the count was read
+        return max.get();
+    }
+
+    /**
+     * Gets a percentile of a Histogram of nanoseconds in another unit
+     *
+     * @param percentile A number between 0 and 100
+     * @param unit The unit of the returned value
+     * @return The value at the given percentile
+     * @see #getValueAtPercentile(double)
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        return unit.convert(getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes every value recorded so far
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_HALF_COUNT +
+                (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int exponent = offset / SUB_BUCKET_HALF_COUNT + SUB_BUCKET_BITS + 1;
+        long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (subBucket << shift) + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram {" +
+                "count=" + getCount() +
+                ", p50=" + getValueAtPercentile(50) +
+                ", p99=" + getValueAtPercentile(99) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
@@ -0,0 +1,535 @@
+package net.dean.jraw.http;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import net.dean.jraw.JrawUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class provides an on-disk, size-bounded HTTP cache for GET requests. Responses are stored according to their
+ * {@code Cache-Control}, {@code Expires}, {@code ETag}, and {@code Last-Modified} headers. A response that is still
+ * fresh is served without touching the network at all, and a stale response that has a validator is revalidated with
+ * {@code If-None-Match} or {@code If-Modified-Since}, so that a {@code 304 Not Modified} is all that needs to be
+ * downloaded. When the cache grows over its maximum size, the least recently used entries are evicted.
+ *
+ * <p>Hits, misses, and revalidations are counted for every endpoint. See {@link #getStats()}.
+ *
+ * @see RestClient#setHttpCache(HttpCache)
+ */
+public class HttpCache {
+    private static final int ENTRY_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    private final File directory;
+    private final long maxSize;
+    /**
+     * Maps keys to the size of their file. Ordered from least to most recently used. Guarded by {@link #lock}, which is
+     * a ReentrantLock rather than a monitor so that virtual threads deleting files while holding it are not pinned.
+     */
+    private final LinkedHashMap<String, Long> index;
+    private final ReentrantLock lock;
+    private long size;
+    private final Map<String, Counters> stats;
+
+    /**
+     * Instantiates a new HttpCache. Entries already in the directory are kept.
+     *
+     * @param directory The directory to store responses in. Will be created if it does not exist.
+     * @param maxSize The maximum amount of bytes the cache can use on disk
+     * @throws IOException If the directory could not be created
+     */
+    public HttpCache(File directory, long maxSize) throws IOException {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create the cache directory " + directory);
+        }
+
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+        this.lock = new ReentrantLock();
+        this.stats = new ConcurrentHashMap<>();
+        loadIndex();
+    }
+
+    private void loadIndex() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(ENTRY_SUFFIX));
+        if (files == null) {
+            return;
+        }
+
+        // Oldest first, so that the least recently used entries are evicted first
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        lock.lock();
+        try {
+            for (File f : files) {
+                String key = f.getName().substring(0, f.getName().length() - ENTRY_SUFFIX.length());
+                index.put(key, f.length());
+                size += f.length();
+            }
+            trimToSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Looks up the stored response for a request
+     *
+     * @param request The request to look up
+     * @return The stored response, or null if the request is not a GET request or has never been stored
+     */
+    public Entry get(RestRequest request) {
+        if (!isCacheable(request)) {
+            return null;
+        }
+
+        String key = key(request);
+        lock.lock();
+        try {
+            // get() rather than containsKey() so that the entry becomes the most recently used one
+            if (index.get(key) == null) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        File f = file(key);
+        try {
+            Entry entry = Entry.read(f);
+            if (!entry.url.equals(request.getUrl())) {
+                // Hash collision
+                return null;
+            }
+            // Let the next instance know this entry was used recently
+            if (!f.setLastModified(System.currentTimeMillis())) {
+                JrawUtils.logger().debug("Could not update the modification time of {}", f);
+            }
+            return entry;
+        } catch (IOException e) {
+            JrawUtils.logger().warn("Could not read cache entry {}, removing it", f, e);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Adds the validators of a stale entry to a request, so that the server only sends the body back if it changed
+     *
+     * @param r The request to send
+     * @param entry The stale entry
+     * @return A new conditional request, or {@code r} if the entry has no validators
+     */
+    public RestRequest conditional(RestRequest r, Entry entry) {
+        String etag = entry.headers.get("ETag");
+        String lastModified = entry.headers.get("Last-Modified");
+        if (etag == null && lastModified == null) {
+            return r;
+        }
+
+        if (etag != null) {
+            r = r.withHeader("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            r = r.withHeader("If-Modified-Since", lastModified);
+        }
+        return r;
+    }
+
+    /**
+     * Stores a successful response if its headers allow it. Storing a response requires its body to be read, so a new
+     * HttpResponse containing the same data is returned in its place.
+     *
+     * @param request The request that was sent
+     * @param response The response the server sent back
+     * @return The response to use from now on. Will be {@code response} itself if it was not stored.
+     * @throws IOException If the body could not be read
+     */
+    public HttpResponse put(RestRequest request, HttpResponse response) throws IOException {
+        if (!isCacheable(request) || response.getCode() != 200) {
+            return response;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiresAt = expiresAt(response.getHeaders(), now);
+        boolean hasValidator = response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null;
+        if (expiresAt < 0 || (expiresAt <= now && !hasValidator)) {
+            // Either no-store, or there is no way to ever reuse the response
+            return response;
+        }
+
+        byte[] body = response.readBytes();
+        Entry entry = new Entry(request.getUrl(), response.getCode(), response.getMessage(), response.getHeaders(), body,
+                expiresAt);
+        try {
+            write(key(request), entry);
+        } catch (IOException e) {
+            JrawUtils.logger().warn("Could not store the response for {}", request.getUrl(), e);
+        }
+        return entry.toResponse(response.getRequest());
+    }
+
+    /**
+     * Updates a stored response after the server replied to a conditional request with {@code 304 Not Modified}
+     *
+     * @param request The request that was sent
+     * @param entry The entry the conditional request was based on
+     * @param notModified The 304 response
+     * @return A response built from the stored body and the updated headers
+     */
+    public HttpResponse revalidated(RestRequest request, Entry entry, HttpResponse notModified) {
+        countRevalidation(request);
+
+        Headers.Builder merged = entry.headers.newBuilder();
+        Headers fresh = notModified.getHeaders();
+        for (int i = 0; i < fresh.size(); i++) {
+            String name = fresh.name(i);
+            // Content-Length and friends describe the empty 304 body, not the stored one
+            if (!name.equalsIgnoreCase("Content-Length") && !name.equalsIgnoreCase("Content-Encoding") &&
+                    !name.equalsIgnoreCase("Transfer-Encoding")) {
+                merged.set(name, fresh.value(i));
+            }
+        }
+
+        Headers headers = merged.build();
+        Entry updated = new Entry(entry.url, entry.code, entry.message, headers, entry.body,
+                Math.max(expiresAt(headers, System.currentTimeMillis()), 0));
+        try {
+            write(key(request), updated);
+        } catch (IOException e) {
+            JrawUtils.logger().warn("Could not update cache entry for {}", request.getUrl(), e);
+        }
+        return updated.toResponse(notModified.getRequest());
+    }
+
+    /**
+     * Records a request that was answered straight from the cache
+     * @param request The request
+     */
+    void countHit(RestRequest request) {
+        counters(request).hits.incrementAndGet();
+    }
+
+    /**
+     * Records a request that had to be sent over the network without a stored response to fall back on
+     * @param request The request
+     */
+    void countMiss(RestRequest request) {
+        if (isCacheable(request)) {
+            counters(request).misses.incrementAndGet();
+        }
+    }
+
+    private void countRevalidation(RestRequest request) {
+        counters(request).revalidations.incrementAndGet();
+    }
+
+    private Counters counters(RestRequest request) {
+        return stats.computeIfAbsent(describe(request), k -> new Counters());
+    }
+
+    /**
+     * Gets the amount of hits, misses, and revalidations for every endpoint that has been requested through this cache.
+     * Requests that were built with {@link RestRequest.Builder#endpoint(net.dean.jraw.Endpoints, String...)} are keyed
+     * by their endpoint's descriptor (for example, "GET /r/{subreddit}/about.json"), others by their method and path.
+     *
+     * @return A snapshot of the statistics for every endpoint
+     */
+    public Map<String, HttpCacheStats> getStats() {
+        ImmutableMap.Builder<String, HttpCacheStats> builder = ImmutableMap.builder();
+        for (Map.Entry<String, Counters> entry : stats.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the sum of the statistics of every endpoint
+     * @return The total amount of hits, misses, and revalidations
+     */
+    public HttpCacheStats getTotalStats() {
+        long hits = 0, misses = 0, revalidations = 0;
+        for (Counters c : stats.values()) {
+            hits += c.hits.get();
+            misses += c.misses.get();
+            revalidations += c.revalidations.get();
+        }
+        return new HttpCacheStats(hits, misses, revalidations);
+    }
+
+    /**
+     * Gets the amount of bytes currently used on disk
+     * @return The size of the cache
+     */
+    public long getSize() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the directory the responses are stored in
+     * @return The cache's directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the maximum amount of bytes this cache will use on disk
+     * @return The maximum size of the cache
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes every entry from the cache. Statistics are kept.
+     */
+    public void evictAll() {
+        lock.lock();
+        try {
+            for (String key : index.keySet()) {
+                deleteFile(key);
+            }
+            index.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(String key, Entry entry) throws IOException {
+        File f = file(key);
+        File tmp = new File(directory, key + ".tmp" + Thread.currentThread().getId());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            entry.write(out);
+        }
+        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        lock.lock();
+        try {
+            Long previous = index.put(key, f.length());
+            size += f.length() - (previous != null ? previous : 0);
+            trimToSize();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String key) {
+        lock.lock();
+        try {
+            Long previous = index.remove(key);
+            if (previous != null) {
+                size -= previous;
+            }
+            deleteFile(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Evicts the least recently used entries until the cache fits. Must be called while holding the lock. */
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            size -= eldest.getValue();
+            deleteFile(eldest.getKey());
+            it.remove();
+        }
+    }
+
+    private void deleteFile(String key) {
+        File f = file(key);
+        if (f.exists() && !f.delete()) {
+            JrawUtils.logger().warn("Could not delete cache entry {}", f);
+        }
+    }
+
+    private File file(String key) {
+        return new File(directory, key + ENTRY_SUFFIX);
+    }
+
+    private static boolean isCacheable(RestRequest request) {
+        return request.getMethod().equals("GET");
+    }
+
+    /**
+     * Generates the key of a request. Requests sent on behalf of different users never share a key.
+     */
+    private static String key(RestRequest request) {
+        return Hashing.sha1().hashString(request.getIdentity(), StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Gets the name of the endpoint that a request's statistics will be recorded under
+     */
+    private static String describe(RestRequest request) {
+        if (request.getEndpoint() != null) {
+            return request.getEndpoint().getEndpoint().getRequestDescriptor();
+        }
+        return request.getMethod() + " " + request.getPath();
+    }
+
+    /**
+     * Calculates until when a response may be used without revalidating it
+     *
+     * @param headers The response's headers
+     * @param now The time at which the response was received, in milliseconds
+     * @return The expiration time in milliseconds, {@code now} if the response must always be revalidated, or -1 if it
+     *         must not be stored at all
+     */
+    private static long expiresAt(Headers headers, long now) {
+        String cacheControl = headers.get("Cache-Control");
+        if (cacheControl != null) {
+            long maxAge = -1;
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim().toLowerCase(Locale.US);
+                if (directive.equals("no-store")) {
+                    return -1;
+                } else if (directive.equals("no-cache")) {
+                    return now;
+                } else if (directive.startsWith("max-age=")) {
+                    try {
+                        maxAge = Long.parseLong(directive.substring("max-age=".length()).replace("\"", ""));
+                    } catch (NumberFormatException e) {
+                        // Treat as stale
+                        maxAge = 0;
+                    }
+                }
+            }
+            if (maxAge >= 0) {
+                return now + maxAge * 1000;
+            }
+        }
+
+        String expires = headers.get("Expires");
+        if (expires != null) {
+            try {
+                long expiresMillis = ZonedDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return Math.max(expiresMillis, now);
+            } catch (DateTimeParseException e) {
+                // An invalid date means the response is already expired
+                return now;
+            }
+        }
+
+        return now;
+    }
+
+    /**
+     * A response stored in the cache
+     */
+    public static final class Entry {
+        private final String url;
+        private final int code;
+        private final String message;
+        private final Headers headers;
+        private final byte[] body;
+        private final long expiresAt;
+
+        private Entry(String url, int code, String message, Headers headers, byte[] body, long expiresAt) {
+            this.url = url;
+            this.code = code;
+            this.message = message != null ? message : "";
+            this.headers = headers;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Checks if this entry can be used without asking the server first
+         * @return If this entry has not expired yet
+         */
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        /**
+         * Creates a new HttpResponse out of this entry
+         * @param request The request the response will be attached to
+         * @return A new HttpResponse
+         */
+        public HttpResponse toResponse(RestRequest request) {
+            return new HttpResponse(request, code, message, headers, body);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(ENTRY_VERSION);
+            out.writeUTF(url);
+            out.writeInt(code);
+            out.writeUTF(message);
+            out.writeLong(expiresAt);
+            out.writeInt(headers.size());
+            for (int i = 0; i < headers.size(); i++) {
+                out.writeUTF(headers.name(i));
+                out.writeUTF(headers.value(i));
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        }
+
+        private static Entry read(File f) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                int version = in.readInt();
+                if (version != ENTRY_VERSION) {
+                    throw new IOException("Unknown cache entry version: " + version);
+                }
+                String url = in.readUTF();
+                int code = in.readInt();
+                String message = in.readUTF();
+                long expiresAt = in.readLong();
+                Headers.Builder headers = new Headers.Builder();
+                int headerCount = in.readInt();
+                for (int i = 0; i < headerCount; i++) {
+                    headers.add(in.readUTF(), in.readUTF());
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                return new Entry(url, code, message, headers.build(), body, expiresAt);
+            }
+        }
+    }
+
+    private static final class Counters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong revalidations = new AtomicLong();
+
+        private HttpCacheStats snapshot() {
+            return new HttpCacheStats(hits.get(), misses.get(), revalidations.get());
+        }
+    }
+}
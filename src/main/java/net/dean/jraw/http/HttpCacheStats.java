@@ -0,0 +1,58 @@
+package net.dean.jraw.http;
+
+/**
+ * This class represents how often an {@link HttpCache} was able to avoid downloading a response
+ */
+public final class HttpCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long revalidations;
+
+    HttpCacheStats(long hits, long misses, long revalidations) {
+        this.hits = hits;
+        this.misses = misses;
+        this.revalidations = revalidations;
+    }
+
+    /**
+     * Gets the amount of requests that were served from the cache without using the network
+     * @return The amount of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the amount of requests whose full response had to be downloaded
+     * @return The amount of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the amount of requests where the server replied with "304 Not Modified" and the stored body was reused
+     * @return The amount of revalidations
+     */
+    public long getRevalidations() {
+        return revalidations;
+    }
+
+    /**
+     * Gets the amount of requests that were at least partially served from the cache
+     * @return The ratio of hits and revalidations to all requests, or 0 if there have been no requests
+     */
+    public double getHitRate() {
+        long total = hits + misses + revalidations;
+        return total == 0 ? 0 : (double) (hits + revalidations) / total;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpCacheStats {" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", revalidations=" + revalidations +
+                '}';
+    }
+}
@@ -0,0 +1,205 @@
+package net.dean.jraw.http;
+
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class holds a corpus of HTTP exchanges captured by a {@link RecordingTransport}, which can be saved to a single
+ * gzipped file and served again by a {@link ReplayTransport}. Exchanges are grouped by the request's method, URL, and a
+ * hash of its body. Request bodies themselves (which may contain passwords) and request headers are never stored, and
+ * neither are the response headers that carry credentials, such as Set-Cookie.
+ */
+public final class HttpRecording {
+    private static final int MAGIC = 0x4a524157; // "JRAW"
+    private static final int VERSION = 1;
+    /** Response headers that carry the user's session or credentials */
+    private static final String[] CREDENTIAL_HEADERS = {"Set-Cookie", "Set-Cookie2", "Authorization",
+            "Proxy-Authorization", "X-Modhash"};
+
+    /** Recorded exchanges in the order they happened, grouped by key. Guarded by this. */
+    private final Map<String, List<Exchange>> exchanges;
+
+    /**
+     * Instantiates a new, empty HttpRecording
+     */
+    public HttpRecording() {
+        this.exchanges = new LinkedHashMap<>();
+    }
+
+    /**
+     * Reads a recording saved by {@link #save(File)}
+     *
+     * @param file The file to read
+     * @return A new HttpRecording
+     * @throws IOException If the file could not be read or is not a recording
+     */
+    public static HttpRecording load(File file) throws IOException {
+        HttpRecording recording = new HttpRecording();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a recording, or one made by an incompatible version: " + file);
+            }
+            int keys = in.readInt();
+            for (int i = 0; i < keys; i++) {
+                String key = in.readUTF();
+                int count = in.readInt();
+                List<Exchange> list = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    list.add(Exchange.read(in));
+                }
+                recording.exchanges.put(key, list);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated recording: " + file, e);
+        }
+        return recording;
+    }
+
+    /**
+     * Writes this recording to a file. The file is replaced atomically, so a reader never sees a partially written
+     * recording.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public synchronized void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(exchanges.size());
+            for (Map.Entry<String, List<Exchange>> entry : exchanges.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (Exchange exchange : entry.getValue()) {
+                    exchange.write(out);
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    synchronized void add(RestRequest request, Exchange exchange) {
+        exchanges.computeIfAbsent(key(request), k -> new ArrayList<>()).add(exchange);
+    }
+
+    /**
+     * Gets every exchange recorded for requests identical to the given one
+     *
+     * @param request The request to look up
+     * @return The recorded exchanges in the order they happened, or an empty list if there are none
+     */
+    synchronized List<Exchange> get(RestRequest request) {
+        List<Exchange> list = exchanges.get(key(request));
+        return list != null ? new ArrayList<>(list) : Collections.<Exchange>emptyList();
+    }
+
+    /**
+     * Gets the amount of exchanges in this recording
+     * @return The amount of exchanges
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Exchange> list : exchanges.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes every exchange from this recording
+     */
+    public synchronized void clear() {
+        exchanges.clear();
+    }
+
+    private static Headers withoutCredentials(Headers headers) {
+        Headers.Builder builder = headers.newBuilder();
+        for (String name : CREDENTIAL_HEADERS) {
+            builder.removeAll(name);
+        }
+        return builder.build();
+    }
+
+    static String key(RestRequest request) {
+        String key = request.getMethod() + " " + request.getUrl();
+        byte[] body = request.getBody();
+        if (body != null && body.length > 0) {
+            key += " " + Hashing.sha1().hashBytes(body).toString();
+        }
+        return key;
+    }
+
+    /**
+     * A single recorded response, along with how long it took to arrive
+     */
+    static final class Exchange {
+        final int code;
+        final String message;
+        final Headers headers;
+        final byte[] body;
+        final long durationNanos;
+
+        /**
+         * Instantiates a new Exchange. Headers that carry credentials are left out.
+         */
+        Exchange(int code, String message, Headers headers, byte[] body, long durationNanos) {
+            this.code = code;
+            this.message = message;
+            this.headers = withoutCredentials(headers);
+            this.body = body;
+            this.durationNanos = durationNanos;
+        }
+
+        HttpResponse toResponse(RestRequest request) {
+            return new HttpResponse(request, code, message, headers, body);
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeShort(code);
+            out.writeUTF(message);
+            out.writeLong(durationNanos);
+            out.writeInt(headers.size());
+            for (int i = 0; i < headers.size(); i++) {
+                out.writeUTF(headers.name(i));
+                out.writeUTF(headers.value(i));
+            }
+            out.writeInt(body.length);
+            out.write(body);
+        }
+
+        private static Exchange read(DataInputStream in) throws IOException {
+            int code = in.readShort();
+            String message = in.readUTF();
+            long durationNanos = in.readLong();
+            int headerCount = in.readInt();
+            Headers.Builder headers = new Headers.Builder();
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(in.readUTF(), in.readUTF());
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Exchange(code, message, headers.build(), body, durationNanos);
+        }
+    }
+}
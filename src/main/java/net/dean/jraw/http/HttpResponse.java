@@ -0,0 +1,140 @@
+package net.dean.jraw.http;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class represents the raw response an {@link HttpTransport} received for a request. Its body is a stream that
+ * has not been read yet, which must be closed once it is no longer needed.
+ */
+public final class HttpResponse implements Closeable {
+    private final RestRequest request;
+    private final int code;
+    private final String message;
+    private final Headers headers;
+    private final InputStream body;
+
+    /**
+     * Instantiates a new HttpResponse
+     *
+     * @param request The request this response belongs to
+     * @param code The HTTP status code
+     * @param message The HTTP status message, such as "OK"
+     * @param headers The response's headers
+     * @param body The response's body. Will be closed by {@link #close()}.
+     */
+    public HttpResponse(RestRequest request, int code, String message, Headers headers, InputStream body) {
+        this.request = request;
+        this.code = code;
+        this.message = message != null ? message : "";
+        this.headers = headers;
+        this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+    }
+
+    /**
+     * Instantiates a new HttpResponse whose body is already in memory
+     *
+     * @param request The request this response belongs to
+     * @param code The HTTP status code
+     * @param message The HTTP status message, such as "OK"
+     * @param headers The response's headers
+     * @param body The response's body
+     */
+    public HttpResponse(RestRequest request, int code, String message, Headers headers, byte[] body) {
+        this(request, code, message, headers, new ByteArrayInputStream(body));
+    }
+
+    public RestRequest getRequest() {
+        return request;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the last value of a header
+     *
+     * @param name The header's name, which is not case-sensitive
+     * @return The header's value, or null if it was not present
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Gets the type of the response's body
+     * @return The parsed Content-Type header, or null if there was none
+     */
+    public MediaType getType() {
+        return MediaType.parse(headers.get("Content-Type"));
+    }
+
+    /**
+     * Checks if the status code is in the range [200, 300)
+     * @return If the request was successful
+     */
+    public boolean isSuccessful() {
+        return code >= 200 && code < 300;
+    }
+
+    /**
+     * Gets the body of the response. It can only be read once.
+     * @return The body's stream
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Reads the rest of the body and closes it
+     *
+     * @return The body's bytes
+     * @throws IOException If the body could not be read
+     */
+    public byte[] readBytes() throws IOException {
+        try {
+            return ByteStreams.toByteArray(body);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Reads the rest of the body as a String and closes it
+     *
+     * @return The body, decoded using the charset of its Content-Type, or UTF-8 if it has none
+     * @throws IOException If the body could not be read
+     */
+    public String readString() throws IOException {
+        MediaType type = getType();
+        return new String(readBytes(), type != null ? type.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResponse {" +
+                "code=" + code +
+                ", message='" + message + '\'' +
+                ", url=" + request.getUrl() +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package net.dean.jraw.http;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This interface is what a {@link RestClient} uses to actually send its requests over the network. Implementations
+ * only need to send a request exactly as given and hand back the raw response; rate limiting, caching, retries, and
+ * cookies are handled by the RestClient. Implementations must be thread-safe.
+ *
+ * @see OkHttpTransport
+ * @see UrlConnectionTransport
+ * @see RestClient#setTransport(HttpTransport)
+ */
+public interface HttpTransport {
+
+    /**
+     * Sends a request and waits for the response's headers. The body is left unread.
+     *
+     * @param request The request to send
+     * @return The server's response, whatever its status code
+     * @throws IOException If the request could not be sent or no response was received
+     */
+    HttpResponse execute(RestRequest request) throws IOException;
+
+    /**
+     * Sends a request without blocking the calling thread
+     *
+     * @param request The request to send
+     * @return A future that will be completed with the server's response, whatever its status code, or completed
+     *         exceptionally with an IOException if the request could not be sent
+     */
+    CompletableFuture<HttpResponse> executeAsync(RestRequest request);
+
+    /**
+     * Sets how long to wait for a connection to be established
+     * @param milliseconds The connect timeout in milliseconds, or 0 for no timeout
+     */
+    void setConnectTimeout(long milliseconds);
+
+    /**
+     * Gets how long to wait for a connection to be established
+     * @return The connect timeout in milliseconds, or 0 for no timeout
+     */
+    long getConnectTimeout();
+
+    /**
+     * Gets how well this transport is reusing its connections
+     * @return A snapshot of the connection statistics, or null if this transport does not keep track of them
+     */
+    default ConnectionStats getConnectionStats() {
+        return null;
+    }
+}
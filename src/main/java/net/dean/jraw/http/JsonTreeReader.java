@@ -0,0 +1,226 @@
+package net.dean.jraw.http;
+
+import net.dean.jraw.models.Projection;
+import net.dean.jraw.models.ThingFilter;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.JsonNodeFactory;
+import org.codehaus.jackson.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a JSON tree token by token straight from a response's body. Unlike {@link
+ * org.codehaus.jackson.map.ObjectMapper#readTree(InputStream)}, short strings that appear more than once in the same
+ * document are only stored once. Listings and comment threads repeat the same subreddit names, authors, link IDs and
+ * kinds on every child, and the models keep their part of the tree for as long as they live. For the same reason, the
+ * attributes a {@link Projection} leaves out are skipped without being read into the tree, and when the document is a
+ * listing, each of its children is tested against the request's {@link ThingFilter}s as soon as it has been read, so
+ * that the children they reject are dropped before the next one is read instead of staying in the tree.
+ */
+final class JsonTreeReader {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    /** Longer strings, such as the bodies of comments, are rarely repeated */
+    private static final int MAX_SHARED_LENGTH = 64;
+    /** Bounds the table for documents with many distinct strings */
+    private static final int MAX_SHARED_COUNT = 4096;
+
+    private final Map<String, JsonNode> strings;
+    private final Projection projection;
+    private final List<ThingFilter> filters;
+
+    private JsonTreeReader(Projection projection, List<ThingFilter> filters) {
+        this.strings = new HashMap<>();
+        this.projection = projection;
+        this.filters = filters;
+    }
+
+    /**
+     * Reads a JSON document
+     *
+     * @param in The stream to read from
+     * @param projection The attributes of things to keep, or null to keep everything
+     * @param filters The filters that the children of a listing have to pass to be kept
+     * @return The root of the tree, or null if the stream was empty
+     * @throws IOException If the stream could not be read or did not contain valid JSON
+     */
+    static JsonNode read(InputStream in, Projection projection, List<ThingFilter> filters) throws IOException {
+        try (JsonParser parser = FACTORY.createJsonParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return null;
+            }
+            JsonTreeReader reader = new JsonTreeReader(projection, filters);
+            if (token == JsonToken.START_OBJECT && !filters.isEmpty()) {
+                return reader.readObject(parser, NODES.objectNode(), null, true, true);
+            }
+            return reader.readValue(parser);
+        }
+    }
+
+    /** Reads the value starting at the parser's current token, leaving the parser on its last token */
+    private JsonNode readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser, NODES.objectNode(), null, false, true);
+            case START_ARRAY:
+                ArrayNode array = NODES.arrayNode();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return text(parser.getText());
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return NODES.numberNode(parser.getIntValue());
+                    case LONG:
+                        return NODES.numberNode(parser.getLongValue());
+                    default:
+                        return NODES.numberNode(parser.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                return NODES.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return NODES.booleanNode(true);
+            case VALUE_FALSE:
+                return NODES.booleanNode(false);
+            case VALUE_NULL:
+                return NODES.nullNode();
+            default:
+                throw new JsonParseException("Unexpected token: " + token, parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Reads the fields of an object into a node
+     *
+     * @param parser A parser whose current token is the start of the object
+     * @param object The node to add the fields to
+     * @param kept The names of the fields to add, or null to add every field
+     * @param root Whether the object is the document itself, whose children are filtered if it is a listing
+     * @param project Whether the object's "data" is projected if it is a thing
+     * @return The node
+     */
+    private JsonNode readObject(JsonParser parser, ObjectNode object, Set<String> kept, boolean root,
+                                boolean project) throws IOException {
+        // A thing is an object with a "kind" and its "data", which Reddit always sends in that order
+        String kind = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            // Field names are already canonicalized by the parser
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (kept != null && !kept.contains(name)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            ObjectNode projected = null;
+            if (project && projection != null && kind != null && token == JsonToken.START_OBJECT &&
+                    name.equals("data")) {
+                projected = projection.newDataNode(kind);
+            }
+            JsonNode value;
+            if (projected != null) {
+                value = readObject(parser, projected, projection.getFields(kind), false, true);
+            } else if (root && "Listing".equals(kind) && token == JsonToken.START_OBJECT && name.equals("data")) {
+                value = readListingData(parser);
+            } else {
+                value = readValue(parser);
+            }
+            if (name.equals("kind") && value.isTextual()) {
+                kind = value.getTextValue();
+            }
+            object.put(name, value);
+        }
+        return object;
+    }
+
+    /** Reads the "data" of a listing, leaving out the children that the filters reject */
+    private JsonNode readListingData(JsonParser parser) throws IOException {
+        ObjectNode data = NODES.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            if (parser.nextToken() != JsonToken.START_ARRAY || !name.equals("children")) {
+                data.put(name, readValue(parser));
+                continue;
+            }
+
+            ArrayNode children = NODES.arrayNode();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                // The filters may test attributes the projection leaves out, so the child is only projected once they
+                // have accepted it
+                JsonNode child = parser.getCurrentToken() == JsonToken.START_OBJECT ?
+                        readObject(parser, NODES.objectNode(), null, false, false) :
+                        readValue(parser);
+                if (accept(child)) {
+                    children.add(project(child));
+                }
+            }
+            data.put(name, children);
+        }
+        return data;
+    }
+
+    /** Tests a child of a listing against every filter, in order. "more" children are always kept. */
+    private boolean accept(JsonNode child) {
+        JsonNode kind = child.get("kind");
+        JsonNode data = child.get("data");
+        if (kind == null || data == null || kind.asText().equalsIgnoreCase("more")) {
+            return true;
+        }
+        for (ThingFilter filter : filters) {
+            if (!filter.accept(data)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Replaces the data of a child of a listing with the attributes the projection keeps */
+    private JsonNode project(JsonNode child) {
+        JsonNode kind = child.get("kind");
+        JsonNode data = child.get("data");
+        if (projection == null || kind == null || data == null || !data.isObject()) {
+            return child;
+        }
+        ObjectNode projected = projection.newDataNode(kind.asText());
+        if (projected == null) {
+            return child;
+        }
+        for (String field : projection.getFields(kind.asText())) {
+            JsonNode value = data.get(field);
+            if (value != null) {
+                projected.put(field, value);
+            }
+        }
+        ((ObjectNode) child).put("data", projected);
+        return child;
+    }
+
+    private JsonNode text(String value) {
+        if (value.length() > MAX_SHARED_LENGTH) {
+            return NODES.textNode(value);
+        }
+        JsonNode node = strings.get(value);
+        if (node == null) {
+            node = NODES.textNode(value);
+            if (strings.size() < MAX_SHARED_COUNT) {
+                strings.put(value, node);
+            }
+        }
+        return node;
+    }
+}
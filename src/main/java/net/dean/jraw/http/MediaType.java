@@ -0,0 +1,101 @@
+package net.dean.jraw.http;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class represents the value of a Content-Type header, such as "application/json; charset=UTF-8"
+ */
+public final class MediaType {
+    private static final Pattern TYPE_SUBTYPE = Pattern.compile("\\s*([^/;\\s]+)/([^/;\\s]+)\\s*");
+    private static final Pattern CHARSET = Pattern.compile(";\\s*charset\\s*=\\s*\"?([^\";\\s]+)\"?",
+            Pattern.CASE_INSENSITIVE);
+
+    private final String mediaType;
+    private final String type;
+    private final String subtype;
+    private final String charset;
+
+    private MediaType(String mediaType, String type, String subtype, String charset) {
+        this.mediaType = mediaType;
+        this.type = type;
+        this.subtype = subtype;
+        this.charset = charset;
+    }
+
+    /**
+     * Parses a media type
+     *
+     * @param string A media type, such as "text/html; charset=UTF-8"
+     * @return A new MediaType, or null if the string was null or not a well-formed media type
+     */
+    public static MediaType parse(String string) {
+        if (string == null) {
+            return null;
+        }
+        Matcher m = TYPE_SUBTYPE.matcher(string);
+        if (!m.lookingAt()) {
+            return null;
+        }
+        String type = m.group(1).toLowerCase(Locale.US);
+        String subtype = m.group(2).toLowerCase(Locale.US);
+
+        Matcher charsetMatcher = CHARSET.matcher(string);
+        String charset = charsetMatcher.find(m.end()) ? charsetMatcher.group(1) : null;
+        return new MediaType(string, type, subtype, charset);
+    }
+
+    /**
+     * Gets the top-level type, such as "application"
+     * @return The type
+     */
+    public String type() {
+        return type;
+    }
+
+    /**
+     * Gets the subtype, such as "json"
+     * @return The subtype
+     */
+    public String subtype() {
+        return subtype;
+    }
+
+    /**
+     * Gets the charset of this media type
+     * @return The charset, or null if none was given
+     */
+    public Charset charset() {
+        return charset != null ? Charset.forName(charset) : null;
+    }
+
+    /**
+     * Gets the charset of this media type
+     * @param defaultValue The charset to return if none was given or it is not supported
+     * @return The charset
+     */
+    public Charset charset(Charset defaultValue) {
+        try {
+            return charset != null ? Charset.forName(charset) : defaultValue;
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MediaType && ((MediaType) o).mediaType.equals(mediaType);
+    }
+
+    @Override
+    public int hashCode() {
+        return mediaType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return mediaType;
+    }
+}
@@ -1,6 +1,5 @@
 package net.dean.jraw.http;
 
-import com.squareup.okhttp.MediaType;
 
 /**
  * A list of common MediaType objects used in JRAW
@@ -0,0 +1,19 @@
+package net.dean.jraw.http;
+
+/**
+ * This interface is notified by a {@link RestClient} every time it finishes executing a request, successfully or not.
+ * It is called on the thread that finished the request, before the caller receives the response, so implementations
+ * should be fast and thread-safe. Exceptions thrown by a listener are logged and then ignored.
+ *
+ * @see MetricsRecorder
+ * @see RestClient#setMetricsListener(MetricsListener)
+ */
+@FunctionalInterface
+public interface MetricsListener {
+    /**
+     * Called once per executed request, no matter how many attempts it took
+     *
+     * @param metrics What happened while the request was executed
+     */
+    public void onRequest(RequestMetrics metrics);
+}
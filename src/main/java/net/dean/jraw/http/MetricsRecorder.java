@@ -0,0 +1,316 @@
+package net.dean.jraw.http;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class is the default {@link MetricsListener}. It keeps counters and {@link Histogram histograms} for every
+ * endpoint, which can be read directly or {@link #scrape() scraped} in the Prometheus text format.
+ *
+ * <pre>
+ * MetricsRecorder metrics = new MetricsRecorder();
+ * reddit.setMetricsListener(metrics);
+ * // ...
+ * MetricsRecorder.EndpointStats about = metrics.get("GET /r/{subreddit}/about.json");
+ * long p99 = about.getLatency().getValueAtPercentile(99, TimeUnit.MILLISECONDS);
+ * </pre>
+ */
+public final class MetricsRecorder implements MetricsListener {
+    /** The endpoint that requests are grouped under once there are too many endpoints */
+    public static final String OTHER = "other";
+    private static final int DEFAULT_MAX_ENDPOINTS = 256;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final int maxEndpoints;
+    private final Map<String, EndpointStats> endpoints;
+
+    /**
+     * Instantiates a new MetricsRecorder that keeps track of up to 256 endpoints
+     */
+    public MetricsRecorder() {
+        this(DEFAULT_MAX_ENDPOINTS);
+    }
+
+    /**
+     * Instantiates a new MetricsRecorder
+     *
+     * @param maxEndpoints The amount of endpoints to keep separate statistics for. Requests to any other endpoint are
+     *                     recorded under {@link #OTHER}, so that paths that do not match a known endpoint cannot use an
+     *                     unbounded amount of memory.
+     */
+    public MetricsRecorder(int maxEndpoints) {
+        if (maxEndpoints < 1) {
+            throw new IllegalArgumentException("maxEndpoints must be at least 1");
+        }
+        this.maxEndpoints = maxEndpoints;
+        this.endpoints = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        statsFor(metrics.getEndpoint()).record(metrics);
+    }
+
+    private EndpointStats statsFor(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats != null) {
+            return stats;
+        }
+        if (endpoints.size() >= maxEndpoints) {
+            endpoint = OTHER;
+        }
+        return endpoints.computeIfAbsent(endpoint, EndpointStats::new);
+    }
+
+    /**
+     * Gets the statistics of one endpoint
+     *
+     * @param endpoint The endpoint, as returned by {@link RequestMetrics#getEndpoint()}
+     * @return The endpoint's statistics, or null if no requests have been sent to it
+     */
+    public EndpointStats get(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * Gets the statistics of every endpoint requests have been sent to
+     * @return An unmodifiable map of endpoints to their statistics, sorted by endpoint
+     */
+    public Map<String, EndpointStats> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * Forgets everything recorded so far
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Formats every counter and histogram in the
+     * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text format</a>. Durations are
+     * in seconds and histograms are exposed as summaries.
+     *
+     * @return The current value of every metric
+     */
+    public String scrape() {
+        Map<String, EndpointStats> sorted = getEndpoints();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# TYPE jraw_requests_total counter\n");
+        for (EndpointStats stats : sorted.values()) {
+            for (Map.Entry<Integer, Long> entry : stats.getCodeCounts().entrySet()) {
+                sb.append("jraw_requests_total{endpoint=\"").append(escape(stats.endpoint))
+                        .append("\",code=\"").append(entry.getKey()).append("\"} ").append(entry.getValue()).append('\n');
+            }
+        }
+        counter(sb, "jraw_request_errors_total", sorted, EndpointStats::getErrorCount);
+        counter(sb, "jraw_request_retries_total", sorted, EndpointStats::getRetryCount);
+        counter(sb, "jraw_cache_hits_total", sorted, EndpointStats::getCachedCount);
+        counter(sb, "jraw_response_bytes_total", sorted, EndpointStats::getResponseBytes);
+
+        summary(sb, "jraw_request_latency_seconds", sorted, EndpointStats::getLatency);
+        summary(sb, "jraw_ratelimit_wait_seconds", sorted, EndpointStats::getRatelimitWait);
+        summary(sb, "jraw_time_to_first_byte_seconds", sorted, EndpointStats::getTimeToFirstByte);
+        summary(sb, "jraw_body_read_seconds", sorted, EndpointStats::getBodyReadTime);
+        summary(sb, "jraw_parse_seconds", sorted, EndpointStats::getParseTime);
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, Map<String, EndpointStats> endpoints,
+                                ToLongFunction<EndpointStats> value) {
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        for (EndpointStats stats : endpoints.values()) {
+            sb.append(name).append("{endpoint=\"").append(escape(stats.endpoint)).append("\"} ")
+                    .append(value.applyAsLong(stats)).append('\n');
+        }
+    }
+
+    private static void summary(StringBuilder sb, String name, Map<String, EndpointStats> endpoints,
+                                Function<EndpointStats, Histogram> histogram) {
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        for (EndpointStats stats : endpoints.values()) {
+            Histogram h = histogram.apply(stats);
+            String label = "endpoint=\"" + escape(stats.endpoint) + "\"";
+            for (double q : QUANTILES) {
+                sb.append(name).append('{').append(label).append(",quantile=\"").append(q).append("\"} ")
+                        .append(seconds(h.getValueAtPercentile(q * 100))).append('\n');
+            }
+            sb.append(name).append("_sum{").append(label).append("} ").append(seconds(h.getSum())).append('\n');
+            sb.append(name).append("_count{").append(label).append("} ").append(h.getCount()).append('\n');
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsRecorder {" +
+                "endpoints=" + getEndpoints().values() +
+                '}';
+    }
+
+    /**
+     * The statistics of every request sent to one endpoint. Durations are recorded in nanoseconds.
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        private final Map<Integer, AtomicLong> codes;
+        private final AtomicLong errors;
+        private final AtomicLong retries;
+        private final AtomicLong cached;
+        private final AtomicLong responseBytes;
+        private final Histogram latency;
+        private final Histogram ratelimitWait;
+        private final Histogram timeToFirstByte;
+        private final Histogram bodyReadTime;
+        private final Histogram parseTime;
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+            this.codes = new ConcurrentHashMap<>();
+            this.errors = new AtomicLong();
+            this.retries = new AtomicLong();
+            this.cached = new AtomicLong();
+            this.responseBytes = new AtomicLong();
+            this.latency = new Histogram();
+            this.ratelimitWait = new Histogram();
+            this.timeToFirstByte = new Histogram();
+            this.bodyReadTime = new Histogram();
+            this.parseTime = new Histogram();
+        }
+
+        private void record(RequestMetrics m) {
+            codes.computeIfAbsent(m.getCode(), code -> new AtomicLong()).incrementAndGet();
+            if (!m.isSuccessful()) {
+                errors.incrementAndGet();
+            }
+            if (m.getAttempts() > 1) {
+                retries.addAndGet(m.getAttempts() - 1);
+            }
+            if (m.isCached()) {
+                cached.incrementAndGet();
+            }
+            responseBytes.addAndGet(m.getResponseBytes());
+
+            latency.record(m.getLatency(TimeUnit.NANOSECONDS));
+            ratelimitWait.record(m.getRatelimitWait(TimeUnit.NANOSECONDS));
+            if (m.getAttempts() > 0) {
+                timeToFirstByte.record(m.getTimeToFirstByte(TimeUnit.NANOSECONDS));
+                bodyReadTime.record(m.getBodyReadTime(TimeUnit.NANOSECONDS));
+            }
+            if (m.isSuccessful()) {
+                parseTime.record(m.getParseTime(TimeUnit.NANOSECONDS));
+            }
+        }
+
+        /**
+         * Gets the endpoint these statistics belong to
+         * @return The endpoint, for example "GET /r/{subreddit}/about.json", or {@link #OTHER}
+         */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Gets the amount of requests sent to this endpoint
+         * @return The amount of requests, not counting retries
+         */
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * Gets the amount of requests by the status code of their last response
+         * @return A map of status codes to counts, where -1 counts requests that never got a response
+         */
+        public Map<Integer, Long> getCodeCounts() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            for (Map.Entry<Integer, AtomicLong> entry : codes.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().get());
+            }
+            return counts;
+        }
+
+        /**
+         * Gets the amount of requests that failed
+         * @return The amount of failed requests
+         */
+        public long getErrorCount() {
+            return errors.get();
+        }
+
+        /**
+         * Gets the amount of times a request was sent again after failing
+         * @return The amount of retries
+         */
+        public long getRetryCount() {
+            return retries.get();
+        }
+
+        /**
+         * Gets the amount of requests that were served from the cache without using the network
+         * @return The amount of cache hits
+         */
+        public long getCachedCount() {
+            return cached.get();
+        }
+
+        /**
+         * Gets the total size of the response bodies received from this endpoint
+         * @return The amount of bytes
+         */
+        public long getResponseBytes() {
+            return responseBytes.get();
+        }
+
+        /** @see RequestMetrics#getLatency(TimeUnit) */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /** @see RequestMetrics#getRatelimitWait(TimeUnit) */
+        public Histogram getRatelimitWait() {
+            return ratelimitWait;
+        }
+
+        /** @see RequestMetrics#getTimeToFirstByte(TimeUnit) */
+        public Histogram getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /** @see RequestMetrics#getBodyReadTime(TimeUnit) */
+        public Histogram getBodyReadTime() {
+            return bodyReadTime;
+        }
+
+        /** @see RequestMetrics#getParseTime(TimeUnit) */
+        public Histogram getParseTime() {
+            return parseTime;
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointStats {" +
+                    "endpoint='" + endpoint + '\'' +
+                    ", count=" + getCount() +
+                    ", errors=" + getErrorCount() +
+                    ", p50=" + latency.getValueAtPercentile(50, TimeUnit.MILLISECONDS) + "ms" +
+                    ", p99=" + latency.getValueAtPercentile(99, TimeUnit.MILLISECONDS) + "ms" +
+                    '}';
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package net.dean.jraw.http;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * This interface provides a way to distinguish classes that can make HTTP requests
  * @param <U> The type of response returned by the RestClient
@@ -31,4 +34,29 @@ public interface NetworkAccessible<U extends RestResponse, T extends RestClient<
     public default U execute(RestRequest r) throws NetworkException {
         return getCreator().execute(r);
     }
+
+    /**
+     * Executes a RESTful HTTP request without blocking the calling thread
+     *
+     * @param r The request to execute
+     * @return A CompletableFuture that will be completed with the response, or completed exceptionally with a
+     *         NetworkException if the request was not successful
+     * @see RestClient#executeAsync(RestRequest, Executor)
+     */
+    public default CompletableFuture<U> executeAsync(RestRequest r) {
+        return getCreator().executeAsync(r);
+    }
+
+    /**
+     * Executes a RESTful HTTP request without blocking the calling thread
+     *
+     * @param r The request to execute
+     * @param executor The Executor that the response will be decoded on
+     * @return A CompletableFuture that will be completed with the response, or completed exceptionally with a
+     *         NetworkException if the request was not successful
+     * @see RestClient#executeAsync(RestRequest, Executor)
+     */
+    public default CompletableFuture<U> executeAsync(RestRequest r, Executor executor) {
+        return getCreator().executeAsync(r, executor);
+    }
 }
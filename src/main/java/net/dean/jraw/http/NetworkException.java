@@ -1,12 +1,17 @@
 package net.dean.jraw.http;
 
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
 /**
  * This Exception is thrown when an HTTP response is not successful
  *
- * @see com.squareup.okhttp.Response#isSuccessful()
+ * @see HttpResponse#isSuccessful()
  */
 public class NetworkException extends Exception {
     private final int code;
+    private final List<RequestAttempt> attempts;
 
     /**
      * Instantiates a new NetworkException
@@ -16,6 +21,7 @@ public class NetworkException extends Exception {
     public NetworkException(String message) {
         super(message);
         this.code = -1;
+        this.attempts = ImmutableList.of();
     }
 
     /**
@@ -25,8 +31,20 @@ public class NetworkException extends Exception {
      * @param cause   The cause of this Exception
      */
     public NetworkException(String message, Throwable cause) {
-        super(message, cause);
+        this(message, cause, ImmutableList.of());
+    }
+
+    /**
+     * Instantiates a new NetworkException
+     *
+     * @param message  The detail message of this Exception
+     * @param cause    The cause of this Exception
+     * @param attempts Every attempt made to send the request
+     */
+    public NetworkException(String message, Throwable cause, List<RequestAttempt> attempts) {
+        super(withAttempts(message, attempts), cause);
         this.code = -1;
+        this.attempts = ImmutableList.copyOf(attempts);
     }
 
     /**
@@ -35,15 +53,43 @@ public class NetworkException extends Exception {
      * @param httpCode The code that was returned from the request
      */
     public NetworkException(int httpCode) {
-        super(String.format("Request returned bad code (%s)", httpCode));
+        this(httpCode, ImmutableList.of());
+    }
+
+    /**
+     * Instantiates a NetworkException
+     *
+     * @param httpCode The code that was returned from the last attempt
+     * @param attempts Every attempt made to send the request
+     */
+    public NetworkException(int httpCode, List<RequestAttempt> attempts) {
+        super(withAttempts(String.format("Request returned bad code (%s)", httpCode), attempts));
         this.code = httpCode;
+        this.attempts = ImmutableList.copyOf(attempts);
+    }
+
+    private static String withAttempts(String message, List<RequestAttempt> attempts) {
+        if (attempts.size() <= 1) {
+            return message;
+        }
+        return message + " after " + attempts.size() + " attempts";
     }
+
     /**
      * Gets the status code returned by the HTTP request. Will be -1 if a constructor other than
-     * {@link #NetworkException(int)} was used.
+     * {@link #NetworkException(int)} or {@link #NetworkException(int, List)} was used.
      * @return The status code
      */
     public int getCode() {
         return code;
     }
+
+    /**
+     * Gets every attempt that was made to send the request, in order. Will be empty if the request was not sent by a
+     * RestClient.
+     * @return The attempts made to send the request
+     */
+    public List<RequestAttempt> getAttempts() {
+        return attempts;
+    }
 }
@@ -0,0 +1,230 @@
+package net.dean.jraw.http;
+
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class sends requests using OkHttp. This is the default transport.
+ *
+ * <p>OkHttp pools connections and, unless the request already says otherwise, asks for gzipped responses and
+ * decompresses them as they are read.
+ */
+public class OkHttpTransport implements HttpTransport {
+    private final OkHttpClient http;
+    private final long callTimeoutMillis;
+    private final boolean gzip;
+    private final AtomicLong requestCount;
+    private final AtomicLong connectionCount;
+
+    /**
+     * Instantiates a new OkHttpTransport with a new OkHttpClient
+     */
+    public OkHttpTransport() {
+        this(new OkHttpClient());
+    }
+
+    /**
+     * Instantiates a new OkHttpTransport with a new OkHttpClient configured by the given TransportConfig
+     * @param config The connection settings
+     */
+    public OkHttpTransport(TransportConfig config) {
+        this(configure(new OkHttpClient(), config), config.getCallTimeoutMillis(), config.isGzipEnabled());
+    }
+
+    /**
+     * Instantiates a new OkHttpTransport
+     *
+     * @param http The OkHttpClient to send requests with. Its cookie handler should not be set, since cookies are
+     *             managed by the RestClient.
+     */
+    public OkHttpTransport(OkHttpClient http) {
+        this(http, 0, true);
+    }
+
+    private OkHttpTransport(OkHttpClient http, long callTimeoutMillis, boolean gzip) {
+        this.http = http;
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.gzip = gzip;
+        this.requestCount = new AtomicLong();
+        this.connectionCount = new AtomicLong();
+        if (http.getConnectionPool() == null) {
+            // Give the client a pool of its own so that getConnectionStats() describes only this transport
+            http.setConnectionPool(new ConnectionPool(5, TimeUnit.MINUTES.toMillis(5)));
+        }
+        SocketFactory sockets = http.getSocketFactory();
+        http.setSocketFactory(new CountingSocketFactory(sockets != null ? sockets : SocketFactory.getDefault(),
+                connectionCount));
+    }
+
+    private static OkHttpClient configure(OkHttpClient http, TransportConfig config) {
+        http.setConnectionPool(new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveMillis()));
+        http.setConnectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS);
+        http.setReadTimeout(config.getReadTimeoutMillis(), TimeUnit.MILLISECONDS);
+        http.setWriteTimeout(config.getWriteTimeoutMillis(), TimeUnit.MILLISECONDS);
+        if (config.isPreferringHttp2()) {
+            http.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.SPDY_3, Protocol.HTTP_1_1));
+        }
+        return http;
+    }
+
+    @Override
+    public HttpResponse execute(RestRequest request) throws IOException {
+        Call call = newCall(request);
+        Future<?> timeout = CallTimer.start(call::cancel, request, callTimeoutMillis);
+        try {
+            return convert(request, call.execute(), timeout);
+        } catch (IOException | RuntimeException e) {
+            CallTimer.cancel(timeout);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        Call call = newCall(request);
+        Future<?> timeout = CallTimer.start(call::cancel, request, callTimeoutMillis);
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                CallTimer.cancel(timeout);
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Request failed, IOException e) {
+                CallTimer.cancel(timeout);
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Response response) throws IOException {
+                HttpResponse converted = convert(request, response, timeout);
+                if (!future.complete(converted)) {
+                    // Cancelled while the response was on its way
+                    converted.close();
+                }
+            }
+        });
+        return future;
+    }
+
+    private Call newCall(RestRequest request) {
+        requestCount.incrementAndGet();
+        Request.Builder builder = new Request.Builder().url(request.getUrl());
+        Headers headers = request.getHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            builder.addHeader(headers.name(i), headers.value(i));
+        }
+        if (!gzip && headers.get("Accept-Encoding") == null) {
+            // OkHttp only asks for gzip when the request doesn't specify an encoding itself
+            builder.addHeader("Accept-Encoding", "identity");
+        }
+
+        byte[] body = request.getBody();
+        RequestBody requestBody = null;
+        if (body != null) {
+            MediaType type = request.getBodyType();
+            requestBody = RequestBody.create(
+                    type != null ? com.squareup.okhttp.MediaType.parse(type.toString()) : null, body);
+        }
+        builder.method(request.getMethod(), requestBody);
+
+        return http.newCall(builder.build());
+    }
+
+    private HttpResponse convert(RestRequest request, Response response, Future<?> timeout) {
+        com.squareup.okhttp.Headers okHeaders = response.headers();
+        Headers.Builder headers = new Headers.Builder();
+        for (int i = 0; i < okHeaders.size(); i++) {
+            headers.add(okHeaders.name(i), okHeaders.value(i));
+        }
+        return new HttpResponse(request, response.code(), response.message(), headers.build(),
+                CallTimer.cancelOnClose(response.body().byteStream(), timeout));
+    }
+
+    @Override
+    public void setConnectTimeout(long milliseconds) {
+        http.setConnectTimeout(milliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long getConnectTimeout() {
+        return http.getConnectTimeout();
+    }
+
+    @Override
+    public ConnectionStats getConnectionStats() {
+        ConnectionPool pool = http.getConnectionPool();
+        return new ConnectionStats(requestCount.get(), connectionCount.get(), pool.getConnectionCount(),
+                pool.getSpdyConnectionCount());
+    }
+
+    /**
+     * Gets the OkHttpClient used to send requests, which can be used to fine-tune it
+     * @return The OkHttpClient
+     */
+    public OkHttpClient getClient() {
+        return http;
+    }
+
+    /**
+     * Counts the sockets OkHttp opens. It opens exactly one for every new connection, and none for reused ones.
+     */
+    private static final class CountingSocketFactory extends SocketFactory {
+        private final SocketFactory delegate;
+        private final AtomicLong count;
+
+        private CountingSocketFactory(SocketFactory delegate, AtomicLong count) {
+            this.delegate = delegate;
+            this.count = count;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+                throws IOException {
+            count.incrementAndGet();
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+}
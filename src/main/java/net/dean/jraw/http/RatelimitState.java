@@ -0,0 +1,85 @@
+package net.dean.jraw.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of a {@link Ratelimiter}'s budget, mainly used for monitoring
+ */
+public final class RatelimitState {
+    private final boolean headerDriven;
+    private final double used;
+    private final double remaining;
+    private final long resetNanos;
+    private final long intervalNanos;
+
+    /**
+     * Instantiates a new RatelimitState
+     *
+     * @param headerDriven Whether the budget is known from the server's X-Ratelimit headers
+     * @param used The amount of requests used in the current period, or -1 if unknown
+     * @param remaining The amount of requests remaining in the current period, or -1 if unknown
+     * @param resetNanos The amount of nanoseconds until the current period ends, or -1 if unknown
+     * @param intervalNanos The amount of nanoseconds currently being put between two requests
+     */
+    public RatelimitState(boolean headerDriven, double used, double remaining, long resetNanos, long intervalNanos) {
+        this.headerDriven = headerDriven;
+        this.used = used;
+        this.remaining = remaining;
+        this.resetNanos = resetNanos;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * Checks if the budget was reported by the server. If false, a static rate is being used instead.
+     * @return If the budget was reported by the server
+     */
+    public boolean isHeaderDriven() {
+        return headerDriven;
+    }
+
+    /**
+     * Gets the amount of requests used in the current period
+     * @return The amount of requests used, or -1 if unknown
+     */
+    public double getUsed() {
+        return used;
+    }
+
+    /**
+     * Gets the amount of requests that can still be sent before the current period ends. Includes requests that have
+     * been reserved but not answered yet.
+     * @return The amount of requests remaining, or -1 if unknown
+     */
+    public double getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Gets the time until the current period ends and the budget is refilled
+     * @param unit The unit of the return value
+     * @return The time until the budget is refilled, or -1 if unknown
+     */
+    public long getTimeUntilReset(TimeUnit unit) {
+        return resetNanos < 0 ? -1 : unit.convert(resetNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the amount of time currently being put between two requests
+     * @param unit The unit of the return value
+     * @return The current interval between requests
+     */
+    public long getInterval(TimeUnit unit) {
+        return unit.convert(intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "RatelimitState {" +
+                "headerDriven=" + headerDriven +
+                ", used=" + used +
+                ", remaining=" + remaining +
+                ", resetNanos=" + resetNanos +
+                ", intervalNanos=" + intervalNanos +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package net.dean.jraw.http;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This interface provides a way for a {@link RestClient} to space out its requests so that the server's rate limit is
+ * not exceeded. Permits are handed out by reservation: {@link #reserve()} claims the next available permit immediately
+ * and tells the caller how long it must wait before using it, so that waiting can be done without holding a lock or,
+ * for asynchronous requests, a thread.
+ *
+ * @see StaticRatelimiter
+ * @see AdaptiveRatelimiter
+ */
+public interface Ratelimiter {
+    /**
+     * Reserves the next permit
+     *
+     * @return The amount of nanoseconds the caller must wait before sending its request. Will be 0 if the request can
+     *         be sent right away.
+     */
+    public long reserve();
+
+    /**
+     * Reserves a permit only if it can be used right away
+     *
+     * @return True if a permit was acquired, false if else
+     */
+    public boolean tryAcquire();
+
+    /**
+     * Gives back a permit that was reserved but will never be used, for example because the request was cancelled or
+     * would have missed its deadline while waiting. The permit is made available to the next caller. Does nothing by
+     * default.
+     */
+    public default void release() {
+        // Permits are not returned unless the implementation supports it
+    }
+
+    /**
+     * Notifies this Ratelimiter of the headers the server sent back with a response, whether or not it was successful
+     *
+     * @param headers The response's headers
+     */
+    public void update(Headers headers);
+
+    /**
+     * Gets a snapshot of this Ratelimiter's current budget
+     *
+     * @return The current state of this Ratelimiter
+     */
+    public RatelimitState getState();
+
+    /**
+     * Reserves a permit and sleeps until it can be used
+     *
+     * @return The amount of seconds spent sleeping
+     */
+    public default double acquire() {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+        }
+        return waitNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
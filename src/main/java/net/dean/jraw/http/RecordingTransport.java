@@ -0,0 +1,85 @@
+package net.dean.jraw.http;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class wraps another HttpTransport and records every response it receives into an {@link HttpRecording}. The
+ * whole body of each response is read into memory before it is handed to the RestClient. Headers that carry
+ * credentials, such as Set-Cookie, are handed to the RestClient but left out of the recording.
+ *
+ * <pre>{@code
+ * HttpRecording recording = new HttpRecording();
+ * reddit.setTransport(new RecordingTransport(reddit.getTransport(), recording));
+ * // Use the client as usual...
+ * recording.save(new File("frontpage.rec"));
+ * }</pre>
+ *
+ * @see ReplayTransport
+ */
+public class RecordingTransport implements HttpTransport {
+    private final HttpTransport delegate;
+    private final HttpRecording recording;
+
+    /**
+     * Instantiates a new RecordingTransport
+     *
+     * @param delegate The transport that will actually send the requests
+     * @param recording The recording to add exchanges to
+     */
+    public RecordingTransport(HttpTransport delegate, HttpRecording recording) {
+        if (delegate == null || recording == null) {
+            throw new NullPointerException("delegate and recording cannot be null");
+        }
+        this.delegate = delegate;
+        this.recording = recording;
+    }
+
+    @Override
+    public HttpResponse execute(RestRequest request) throws IOException {
+        long start = System.nanoTime();
+        return record(request, delegate.execute(request), start);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        delegate.executeAsync(request).whenComplete((response, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex);
+                return;
+            }
+            try {
+                future.complete(record(request, response, start));
+            } catch (IOException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private HttpResponse record(RestRequest request, HttpResponse response, long start) throws IOException {
+        byte[] body = response.readBytes();
+        long duration = System.nanoTime() - start;
+        HttpRecording.Exchange exchange = new HttpRecording.Exchange(response.getCode(), response.getMessage(),
+                response.getHeaders(), body, duration);
+        recording.add(request, exchange);
+        // The recorded exchange doesn't have the credentials, but the client still needs them
+        return new HttpResponse(request, response.getCode(), response.getMessage(), response.getHeaders(), body);
+    }
+
+    @Override
+    public void setConnectTimeout(long milliseconds) {
+        delegate.setConnectTimeout(milliseconds);
+    }
+
+    @Override
+    public long getConnectTimeout() {
+        return delegate.getConnectTimeout();
+    }
+
+    public HttpRecording getRecording() {
+        return recording;
+    }
+}
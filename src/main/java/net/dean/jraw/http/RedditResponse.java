@@ -1,12 +1,12 @@
 package net.dean.jraw.http;
 
-import com.squareup.okhttp.Response;
 import net.dean.jraw.ApiException;
 import net.dean.jraw.JrawUtils;
 import net.dean.jraw.models.RedditObject;
 import net.dean.jraw.models.Comment;
 import net.dean.jraw.models.Listing;
 import net.dean.jraw.models.Submission;
+import net.dean.jraw.models.ThingFilter;
 import org.codehaus.jackson.JsonNode;
 
 /**
@@ -23,14 +23,14 @@ public class RedditResponse extends RestResponse {
      *
      * @param response The Response that will be encapsulated by this object
      */
-    public RedditResponse(Response response) {
+    public RedditResponse(HttpResponse response) {
         super(response);
 
-        if (JrawUtils.typeComparison(type, MediaTypes.HTML.type())) {
+        if (type != null && JrawUtils.typeComparison(type, MediaTypes.HTML.type())) {
             JrawUtils.logger().warn("Received HTML from Reddit API instead of JSON. Are you sure you have access to this document?");
         }
         ApiException[] errors = new ApiException[0];
-        if (JrawUtils.typeComparison(type, MediaTypes.JSON.type()) && !raw.isEmpty()) {
+        if (rootNode != null) {
             // Parse the errors into ApiExceptions
             JsonNode errorsNode = rootNode.get("json");
             if (errorsNode != null) {
@@ -90,6 +90,19 @@ public class RedditResponse extends RestResponse {
         return new Listing<>(rootNode.get("data"), thingClass);
     }
 
+    /**
+     * This method is the same as {@link #asListing(Class)}, except that only the children accepted by every one of the
+     * given filters are turned into models
+     *
+     * @param thingClass The class of T
+     * @param filters The filters that decide which children are kept
+     * @param <T> The type of object that the listing will contain
+     * @return A new Listing
+     */
+    public <T extends RedditObject> Listing<T> asListing(Class<T> thingClass, ThingFilter... filters) {
+        return new Listing<>(rootNode.get("data"), thingClass, filters);
+    }
+
     /**
      * Checks if there were errors returned by the Reddit API
      * @return True if there were errors, false if else
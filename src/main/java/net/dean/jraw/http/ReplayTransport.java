@@ -0,0 +1,152 @@
+package net.dean.jraw.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class serves the responses stored in an {@link HttpRecording} instead of sending requests over the network, so
+ * that a RedditClient, its paginators, and its managers can be run offline against real data. When the same request
+ * was recorded several times, its responses are served in the order they were recorded, and the last one is repeated
+ * once they run out. Requests that were never recorded fail with an IOException.
+ *
+ * <p>By default responses are served immediately. A fixed latency, or the latency observed while recording, can be
+ * simulated instead.
+ *
+ * @see RecordingTransport
+ */
+public class ReplayTransport implements HttpTransport {
+    private final HttpRecording recording;
+    /** The index of the next exchange to serve for every key. Guarded by itself. */
+    private final Map<String, Integer> positions;
+    private final ScheduledExecutorService scheduler;
+    private volatile long latencyNanos;
+    private volatile double recordedLatencyScale;
+    private volatile long connectTimeout;
+
+    /**
+     * Instantiates a new ReplayTransport
+     * @param recording The recording to serve responses from
+     */
+    public ReplayTransport(HttpRecording recording) {
+        if (recording == null) {
+            throw new NullPointerException("recording cannot be null");
+        }
+        this.recording = recording;
+        this.positions = new HashMap<>();
+        // The scheduler's only thread is not started until a delayed response has to be served
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("jraw-replay-%d")
+                .build());
+    }
+
+    @Override
+    public HttpResponse execute(RestRequest request) throws IOException {
+        HttpRecording.Exchange exchange = next(request);
+        long delay = delayOf(exchange);
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while simulating latency");
+            }
+        }
+        return exchange.toResponse(request);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        HttpRecording.Exchange exchange;
+        try {
+            exchange = next(request);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        long delay = delayOf(exchange);
+        if (delay > 0) {
+            scheduler.schedule(() -> future.complete(exchange.toResponse(request)), delay, TimeUnit.NANOSECONDS);
+        } else {
+            future.complete(exchange.toResponse(request));
+        }
+        return future;
+    }
+
+    private HttpRecording.Exchange next(RestRequest request) throws IOException {
+        List<HttpRecording.Exchange> exchanges = recording.get(request);
+        if (exchanges.isEmpty()) {
+            throw new IOException("No recorded response for " + request);
+        }
+
+        int index;
+        synchronized (positions) {
+            index = positions.merge(HttpRecording.key(request), 1, Integer::sum) - 1;
+        }
+        return exchanges.get(Math.min(index, exchanges.size() - 1));
+    }
+
+    private long delayOf(HttpRecording.Exchange exchange) {
+        return latencyNanos + (long) (exchange.durationNanos * recordedLatencyScale);
+    }
+
+    /**
+     * Sets a fixed amount of latency added to every response
+     *
+     * @param duration The amount of time, or 0 for none
+     * @param unit The unit of {@code duration}
+     */
+    public void setLatency(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration cannot be negative");
+        }
+        this.latencyNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Simulates the latency observed while recording. A scale of 1 waits as long as the original response took to
+     * arrive, 0.5 half as long, and 0 (the default) does not wait at all. This latency is added to the fixed one.
+     *
+     * @param scale The factor to multiply recorded durations by
+     */
+    public void setRecordedLatency(double scale) {
+        if (scale < 0) {
+            throw new IllegalArgumentException("scale cannot be negative");
+        }
+        this.recordedLatencyScale = scale;
+    }
+
+    /**
+     * Starts serving every request's responses from the first one recorded again
+     */
+    public void rewind() {
+        synchronized (positions) {
+            positions.clear();
+        }
+    }
+
+    @Override
+    public void setConnectTimeout(long milliseconds) {
+        this.connectTimeout = milliseconds;
+    }
+
+    @Override
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public HttpRecording getRecording() {
+        return recording;
+    }
+}
@@ -0,0 +1,77 @@
+package net.dean.jraw.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class describes a single attempt at sending a request
+ *
+ * @see NetworkException#getAttempts()
+ */
+public final class RequestAttempt {
+    private final int number;
+    private final int code;
+    private final String error;
+    private final long durationNanos;
+    private final long retryDelayNanos;
+
+    RequestAttempt(int number, int code, String error, long durationNanos, long retryDelayNanos) {
+        this.number = number;
+        this.code = code;
+        this.error = error;
+        this.durationNanos = durationNanos;
+        this.retryDelayNanos = retryDelayNanos;
+    }
+
+    /**
+     * Gets the number of this attempt
+     * @return The number of this attempt, starting at 1
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the status code the server responded with
+     * @return The status code, or -1 if the request could not be sent
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the reason the request could not be sent
+     * @return The message of the transport error, or null if the server responded
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets how long it took for the attempt to succeed or fail
+     * @param unit The unit of the returned value
+     * @return The duration of this attempt
+     */
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long was waited after this attempt before trying again
+     * @param unit The unit of the returned value
+     * @return The delay before the next attempt, or -1 if this attempt was not retried
+     */
+    public long getRetryDelay(TimeUnit unit) {
+        return retryDelayNanos < 0 ? -1 : unit.convert(retryDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestAttempt {" +
+                "number=" + number +
+                ", code=" + code +
+                ", error=" + error +
+                ", durationMillis=" + TimeUnit.NANOSECONDS.toMillis(durationNanos) +
+                ", retryDelayMillis=" + (retryDelayNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(retryDelayNanos)) +
+                '}';
+    }
+}
@@ -0,0 +1,292 @@
+package net.dean.jraw.http;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class keeps a record of the most recent requests a {@link RestClient} executed. Only a small summary of every
+ * request is kept (its method, endpoint, status code, timings, and size), and once the journal is full the oldest
+ * entries are overwritten, so its memory use never grows no matter how long the client runs.
+ *
+ * <p>Adding an entry is lock-free: it claims a slot with a single atomic increment and never blocks other writers or
+ * readers. {@link #snapshot()} and {@link #iterator()} return a copy of the entries present at the time they were
+ * called, in the order they were added. Entries being written while a snapshot is taken may be left out of it.
+ *
+ * <p>For debugging, the journal can also keep a reference to every response. This is disabled by default since
+ * responses hold their entire body and parsed JSON tree.
+ *
+ * @see RestClient#getJournal()
+ */
+public final class RequestJournal implements MetricsListener, Iterable<RequestJournal.Entry> {
+    private final int capacity;
+    private final AtomicReferenceArray<Entry> slots;
+    /** The sequence number the next entry will be given */
+    private final AtomicLong next;
+    /** Entries with a lower sequence number were removed by {@link #clear()} */
+    private volatile long clearedBefore;
+    private volatile long maxAgeMillis;
+    private volatile boolean retainResponses;
+
+    /**
+     * Instantiates a new RequestJournal
+     * @param capacity The amount of requests to remember
+     */
+    public RequestJournal(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.next = new AtomicLong();
+        this.maxAgeMillis = -1;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets how long entries are kept. Older entries are left out of snapshots even if the journal is not full yet.
+     *
+     * @param maxAge The maximum age of an entry, or a negative number to keep entries until they are overwritten
+     * @param unit The unit of {@code maxAge}
+     */
+    public void setMaxAge(long maxAge, TimeUnit unit) {
+        this.maxAgeMillis = maxAge < 0 ? -1 : unit.toMillis(maxAge);
+    }
+
+    /**
+     * Checks if entries keep a reference to the response they describe
+     * @return If responses are retained
+     */
+    public boolean isRetainingResponses() {
+        return retainResponses;
+    }
+
+    /**
+     * Sets whether entries keep a reference to the response they describe, including its body. This is meant for
+     * debugging only: every retained response stays in memory until its entry is overwritten.
+     *
+     * @param retainResponses If responses should be retained
+     */
+    public void setRetainResponses(boolean retainResponses) {
+        this.retainResponses = retainResponses;
+    }
+
+    @Override
+    public void onRequest(RequestMetrics metrics) {
+        add(metrics, null);
+    }
+
+    /**
+     * Adds an entry, overwriting the oldest one if the journal is full
+     *
+     * @param metrics What happened while the request was executed
+     * @param response The response, or null if there is none. Only kept if responses are being retained.
+     */
+    void add(RequestMetrics metrics, RestResponse response) {
+        long sequence = next.getAndIncrement();
+        slots.set(index(sequence), new Entry(sequence, metrics, retainResponses ? response : null));
+    }
+
+    /**
+     * Gets a copy of the entries currently in the journal
+     * @return An unmodifiable list of entries, from oldest to newest
+     */
+    public List<Entry> snapshot() {
+        // clearedBefore is read first: a clear() that runs in between can only set it to a value up to end
+        long clearedBefore = this.clearedBefore;
+        long end = next.get();
+        long start = Math.min(Math.max(clearedBefore, end - capacity), end);
+        long maxAge = maxAgeMillis;
+        long oldest = maxAge < 0 ? Long.MIN_VALUE : System.currentTimeMillis() - maxAge;
+
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = slots.get(index(sequence));
+            // Skip slots that have not been written yet or have already been overwritten by a newer entry
+            if (entry != null && entry.sequence == sequence && entry.timestamp >= oldest) {
+                entries.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Iterates over a snapshot of the journal
+     * @return An iterator over the entries present when this method was called, from oldest to newest
+     */
+    @Override
+    public Iterator<Entry> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * Gets the amount of requests added since this journal was created, including the ones that have been overwritten
+     * @return The total amount of requests
+     */
+    public long getTotalCount() {
+        return next.get();
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        clearedBefore = next.get();
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestJournal {" +
+                "capacity=" + capacity +
+                ", totalCount=" + getTotalCount() +
+                '}';
+    }
+
+    /**
+     * A summary of one executed request
+     */
+    public static final class Entry {
+        private final long sequence;
+        private final long timestamp;
+        private final String method;
+        private final String endpoint;
+        private final int code;
+        private final int attempts;
+        private final boolean cached;
+        private final String error;
+        private final long latencyNanos;
+        private final long ratelimitWaitNanos;
+        private final long timeToFirstByteNanos;
+        private final long parseNanos;
+        private final long responseBytes;
+        private final RestResponse response;
+
+        private Entry(long sequence, RequestMetrics metrics, RestResponse response) {
+            this.sequence = sequence;
+            this.timestamp = System.currentTimeMillis();
+            this.method = metrics.getRequest().getMethod();
+            this.endpoint = metrics.getEndpoint();
+            this.code = metrics.getCode();
+            this.attempts = metrics.getAttempts();
+            this.cached = metrics.isCached();
+            this.error = metrics.getError() != null ? metrics.getError().toString() : null;
+            this.latencyNanos = metrics.getLatency(TimeUnit.NANOSECONDS);
+            this.ratelimitWaitNanos = metrics.getRatelimitWait(TimeUnit.NANOSECONDS);
+            this.timeToFirstByteNanos = metrics.getTimeToFirstByte(TimeUnit.NANOSECONDS);
+            this.parseNanos = metrics.getParseTime(TimeUnit.NANOSECONDS);
+            this.responseBytes = metrics.getResponseBytes();
+            this.response = response;
+        }
+
+        /**
+         * Gets the position of this entry in the journal
+         * @return The amount of requests added to the journal before this one
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Gets when the request finished executing
+         * @return The time this entry was added
+         */
+        public Instant getTimestamp() {
+            return Instant.ofEpochMilli(timestamp);
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        /** @see RequestMetrics#getEndpoint() */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /** @see RequestMetrics#getCode() */
+        public int getCode() {
+            return code;
+        }
+
+        /** @see RequestMetrics#getAttempts() */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /** @see RequestMetrics#isCached() */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /**
+         * Gets the exception the request failed with
+         * @return The exception's description, or null if the request was successful
+         */
+        public String getError() {
+            return error;
+        }
+
+        /** @see RequestMetrics#getLatency(TimeUnit) */
+        public long getLatency(TimeUnit unit) {
+            return unit.convert(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** @see RequestMetrics#getRatelimitWait(TimeUnit) */
+        public long getRatelimitWait(TimeUnit unit) {
+            return unit.convert(ratelimitWaitNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** @see RequestMetrics#getTimeToFirstByte(TimeUnit) */
+        public long getTimeToFirstByte(TimeUnit unit) {
+            return unit.convert(timeToFirstByteNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** @see RequestMetrics#getParseTime(TimeUnit) */
+        public long getParseTime(TimeUnit unit) {
+            return unit.convert(parseNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /** @see RequestMetrics#getResponseBytes() */
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * Gets the response this entry describes
+         * @return The response, or null if the request failed or the journal was not retaining responses
+         * @see RequestJournal#setRetainResponses(boolean)
+         */
+        public RestResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry {" +
+                    "sequence=" + sequence +
+                    ", timestamp=" + getTimestamp() +
+                    ", endpoint='" + endpoint + '\'' +
+                    ", code=" + code +
+                    ", attempts=" + attempts +
+                    ", latency=" + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms" +
+                    ", responseBytes=" + responseBytes +
+                    (error != null ? ", error=" + error : "") +
+                    '}';
+        }
+    }
+}
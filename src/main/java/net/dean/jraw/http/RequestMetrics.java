@@ -0,0 +1,172 @@
+package net.dean.jraw.http;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class describes where the time went while a {@link RestClient} executed one request: waiting for the rate
+ * limit, waiting for the server, downloading the body, or parsing it.
+ *
+ * @see MetricsListener
+ */
+public final class RequestMetrics {
+    private final RestRequest request;
+    private final String endpoint;
+    private final int code;
+    private final int attempts;
+    private final boolean cached;
+    private final Throwable error;
+    private final long totalNanos;
+    private final long ratelimitWaitNanos;
+    private final long timeToFirstByteNanos;
+    private final long bodyReadNanos;
+    private final long parseNanos;
+    private final long responseBytes;
+
+    RequestMetrics(RestRequest request, int code, int attempts, boolean cached, Throwable error, long totalNanos,
+                   long ratelimitWaitNanos, long timeToFirstByteNanos, long bodyReadNanos, long parseNanos,
+                   long responseBytes) {
+        this.request = request;
+        this.endpoint = EndpointMatcher.match(request);
+        this.code = code;
+        this.attempts = attempts;
+        this.cached = cached;
+        this.error = error;
+        this.totalNanos = totalNanos;
+        this.ratelimitWaitNanos = ratelimitWaitNanos;
+        this.timeToFirstByteNanos = timeToFirstByteNanos;
+        this.bodyReadNanos = bodyReadNanos;
+        this.parseNanos = parseNanos;
+        this.responseBytes = responseBytes;
+    }
+
+    public RestRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Gets the endpoint the request was sent to. Requests built with a path instead of an {@link net.dean.jraw.Endpoints}
+     * value are matched against the known endpoints, so that requests for different subreddits or users are grouped
+     * together.
+     *
+     * @return The endpoint's descriptor, for example "GET /r/{subreddit}/about.json", or the request's method and path
+     *         if it does not match any known endpoint
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Gets the status code of the last response received
+     * @return The status code, or -1 if the server never responded
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the amount of times the request was sent over the network
+     * @return The amount of attempts, including retries. 0 if the response came straight from the cache or the circuit
+     *         breaker did not let the request through.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Checks if the response was served from an {@link HttpCache} without sending a request
+     * @return If the response came from the cache
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Gets the exception the request failed with
+     * @return The exception, or null if the request was successful
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * Gets how long it took to execute the request, from the moment it was given to the RestClient until the response
+     * was parsed or the request failed. This includes rate limit waits and retries.
+     *
+     * @param unit The unit of the returned value
+     * @return The total latency
+     */
+    public long getLatency(TimeUnit unit) {
+        return unit.convert(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long the request was blocked by the {@link Ratelimiter}, added up over every attempt
+     *
+     * @param unit The unit of the returned value
+     * @return The time spent waiting for the rate limit
+     */
+    public long getRatelimitWait(TimeUnit unit) {
+        return unit.convert(ratelimitWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long the last attempt took to receive the response's status line and headers after it was handed to the
+     * {@link HttpTransport}
+     *
+     * @param unit The unit of the returned value
+     * @return The time to first byte, or 0 if the server never responded
+     */
+    public long getTimeToFirstByte(TimeUnit unit) {
+        return unit.convert(timeToFirstByteNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long was spent waiting for the response body to arrive
+     *
+     * @param unit The unit of the returned value
+     * @return The time spent reading the body from the transport
+     */
+    public long getBodyReadTime(TimeUnit unit) {
+        return unit.convert(bodyReadNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how long it took to turn the response into a RestResponse, not counting the time spent waiting for the body
+     * to arrive
+     *
+     * @param unit The unit of the returned value
+     * @return The time spent parsing, or 0 if the response was never parsed
+     */
+    public long getParseTime(TimeUnit unit) {
+        return unit.convert(parseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the size of the response body that was received over the network
+     * @return The amount of bytes read from the transport, which is 0 for responses served from the cache
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics {" +
+                "endpoint='" + endpoint + '\'' +
+                ", code=" + code +
+                ", attempts=" + attempts +
+                ", cached=" + cached +
+                ", latency=" + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "ms" +
+                ", ratelimitWait=" + TimeUnit.NANOSECONDS.toMillis(ratelimitWaitNanos) + "ms" +
+                ", timeToFirstByte=" + TimeUnit.NANOSECONDS.toMillis(timeToFirstByteNanos) + "ms" +
+                ", bodyRead=" + TimeUnit.NANOSECONDS.toMillis(bodyReadNanos) + "ms" +
+                ", parse=" + TimeUnit.NANOSECONDS.toMillis(parseNanos) + "ms" +
+                ", responseBytes=" + responseBytes +
+                (error != null ? ", error=" + error : "") +
+                '}';
+    }
+}
@@ -0,0 +1,13 @@
+package net.dean.jraw.http;
+
+/**
+ * The classes of requests a {@link RequestScheduler} hands the rate limit budget out to, from most to least important
+ */
+public enum RequestPriority {
+    /** Requests a user is waiting on. Always sent before any other queued request. */
+    INTERACTIVE,
+    /** The default priority */
+    NORMAL,
+    /** Bulk work, such as crawling, that only gets the budget left over by the other classes */
+    BACKGROUND
+}
@@ -0,0 +1,375 @@
+package net.dean.jraw.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class decides which waiting request gets the next rate limit permit. Without it, permits are handed out in the
+ * order requests arrive, so a user's click can end up waiting behind hundreds of queued crawler requests.
+ *
+ * <p>Requests are queued by their {@link RequestPriority}. A permit always goes to a request of the most important class
+ * that has any waiting. Within a class, the permits are shared between tenants (see {@link RestRequest#getTenant()})
+ * in proportion to their weight, so that one busy paginator cannot starve the others. Requests from the same tenant
+ * are sent in the order they arrived.
+ *
+ * <p>Permits are only reserved from the Ratelimiter while there are requests waiting, and the request a permit goes
+ * to is chosen when the permit becomes usable, not when it was reserved. This means a request that arrives while the
+ * scheduler is waiting on the rate limit can still be sent next.
+ *
+ * <pre>
+ * client.setRequestScheduler(new RequestScheduler(client.getRatelimiter()));
+ * </pre>
+ *
+ * @see RestClient#setRequestScheduler(RequestScheduler)
+ */
+public final class RequestScheduler {
+    private static final String DEFAULT_TENANT = "";
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final Ratelimiter ratelimiter;
+    /** Waits for reserved permits to become usable */
+    private final ScheduledExecutorService executor;
+    private final ReentrantLock lock;
+    private final Map<RequestPriority, PriorityClass> classes;
+    private final Map<RequestPriority, Histogram> waitTimes;
+    private final Map<String, Double> weights;
+    /** True while a permit is being reserved or waited for. Guarded by {@link #lock}. */
+    private boolean dispatching;
+
+    /**
+     * Instantiates a new RequestScheduler
+     * @param ratelimiter The Ratelimiter to take permits from. Should be the same one the RestClient is using, so that
+     *                    it is kept up to date with the server's rate limit headers.
+     */
+    public RequestScheduler(Ratelimiter ratelimiter) {
+        if (ratelimiter == null) {
+            throw new NullPointerException("ratelimiter cannot be null");
+        }
+        this.ratelimiter = ratelimiter;
+        this.executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("jraw-scheduler-%d")
+                .build());
+        this.lock = new ReentrantLock();
+        this.classes = new EnumMap<>(RequestPriority.class);
+        this.waitTimes = new EnumMap<>(RequestPriority.class);
+        for (RequestPriority priority : PRIORITIES) {
+            classes.put(priority, new PriorityClass());
+            waitTimes.put(priority, new Histogram());
+        }
+        this.weights = new ConcurrentHashMap<>();
+    }
+
+    public Ratelimiter getRatelimiter() {
+        return ratelimiter;
+    }
+
+    /**
+     * Sets the share of the rate limit a tenant gets compared to the other tenants of the same priority. A tenant with
+     * a weight of 2 gets twice as many permits as one with the default weight of 1 while both have requests waiting.
+     *
+     * @param tenant The tenant
+     * @param weight The tenant's weight. Must be greater than 0.
+     */
+    public void setWeight(String tenant, double weight) {
+        if (tenant == null) {
+            throw new NullPointerException("tenant cannot be null");
+        }
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("weight must be greater than 0");
+        }
+        weights.put(tenant, weight);
+    }
+
+    /**
+     * Gets the share of the rate limit a tenant gets compared to the other tenants of the same priority
+     * @param tenant The tenant
+     * @return The tenant's weight
+     */
+    public double getWeight(String tenant) {
+        Double weight = weights.get(tenant == null ? DEFAULT_TENANT : tenant);
+        return weight != null ? weight : 1;
+    }
+
+    /**
+     * Waits until the request may be sent. This cannot be interrupted, so that the permit the request is given is never
+     * lost.
+     *
+     * @param request The request to wait for
+     * @return The amount of nanoseconds spent waiting
+     */
+    public long acquire(RestRequest request) {
+        long start = System.nanoTime();
+        acquireAsync(request).join();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Waits until the request may be sent, or gives up. If this method does not return normally, the request's permit
+     * has either never been handed out or been given back to the Ratelimiter.
+     *
+     * @param request The request to wait for
+     * @param timeoutNanos How long to wait at most, in nanoseconds
+     * @return The amount of nanoseconds spent waiting
+     * @throws InterruptedException If the calling thread was interrupted while waiting
+     * @throws TimeoutException If the request could not be sent in time
+     */
+    public long acquire(RestRequest request, long timeoutNanos) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        CompletableFuture<Void> permit = acquireAsync(request);
+        try {
+            permit.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return System.nanoTime() - start;
+        } catch (InterruptedException | TimeoutException e) {
+            if (!permit.cancel(false)) {
+                // The permit was handed out just as we gave up
+                ratelimiter.release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            // Permits are never completed exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Queues a request without blocking. Cancelling the returned future before it completes takes the request out of
+     * the queue.
+     *
+     * @param request The request to wait for
+     * @return A future that completes when the request may be sent
+     */
+    public CompletableFuture<Void> acquireAsync(RestRequest request) {
+        Waiter waiter = new Waiter(request.getPriority());
+        String tenant = request.getTenant() != null ? request.getTenant() : DEFAULT_TENANT;
+
+        boolean startDispatching;
+        lock.lock();
+        try {
+            classes.get(waiter.priority).add(tenant, waiter);
+            startDispatching = !dispatching;
+            dispatching = true;
+        } finally {
+            lock.unlock();
+        }
+
+        if (startDispatching) {
+            // Never reserve on the caller's thread: the Ratelimiter may block and the caller may be asynchronous
+            executor.execute(this::dispatch);
+        }
+        waiter.future.whenComplete((ignored, ex) -> {
+            if (waiter.future.isCancelled()) {
+                remove(tenant, waiter);
+            }
+        });
+        return waiter.future;
+    }
+
+    private void remove(String tenant, Waiter waiter) {
+        lock.lock();
+        try {
+            classes.get(waiter.priority).remove(tenant, waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the amount of requests waiting for a permit
+     * @param priority The class to count
+     * @return The amount of waiting requests of that priority
+     */
+    public int getQueueDepth(RequestPriority priority) {
+        lock.lock();
+        try {
+            return classes.get(priority).size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the amount of requests waiting for a permit
+     * @return The amount of waiting requests of every priority
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            int depth = 0;
+            for (PriorityClass c : classes.values()) {
+                depth += c.size;
+            }
+            return depth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets how long requests have had to wait before being sent, in nanoseconds
+     * @param priority The class of requests
+     * @return A live view of the wait times of the requests of that priority
+     */
+    public Histogram getWaitTime(RequestPriority priority) {
+        return waitTimes.get(priority);
+    }
+
+    /**
+     * Reserves permits and hands them out until no requests are waiting. Only one dispatch runs at a time.
+     */
+    private void dispatch() {
+        while (true) {
+            long wait = ratelimiter.reserve();
+            if (wait > 0) {
+                executor.schedule(() -> {
+                    if (release()) {
+                        dispatch();
+                    }
+                }, wait, TimeUnit.NANOSECONDS);
+                return;
+            }
+            if (!release()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives a usable permit to the request that should be sent next
+     *
+     * @return If more requests are waiting and dispatching should continue
+     */
+    private boolean release() {
+        while (true) {
+            Waiter waiter = null;
+            boolean more;
+            lock.lock();
+            try {
+                for (RequestPriority priority : PRIORITIES) {
+                    waiter = classes.get(priority).poll(this);
+                    if (waiter != null) {
+                        break;
+                    }
+                }
+                more = false;
+                for (PriorityClass c : classes.values()) {
+                    more |= c.size > 0;
+                }
+                dispatching = more;
+            } finally {
+                lock.unlock();
+            }
+
+            if (waiter == null) {
+                // Everyone who was waiting has been cancelled
+                ratelimiter.release();
+                return false;
+            }
+            // Recorded first so that the wait is visible by the time the waiter resumes
+            waitTimes.get(waiter.priority).record(System.nanoTime() - waiter.enqueued);
+            if (waiter.future.complete(null)) {
+                return more;
+            }
+            // The waiter was cancelled after being taken out of the queue, so give the permit to the next one
+            if (!more) {
+                ratelimiter.release();
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RequestScheduler {" +
+                "ratelimiter=" + ratelimiter +
+                ", queueDepth=" + getQueueDepth() +
+                '}';
+    }
+
+    /**
+     * The tenants with requests of one priority waiting. Tenants are served by stride scheduling: each has a "pass"
+     * that advances by 1/weight every time it is given a permit, and the tenant with the lowest pass goes next.
+     */
+    private static final class PriorityClass {
+        /** Tenants with at least one request waiting, in the order they became active */
+        private final Map<String, Tenant> tenants = new LinkedHashMap<>();
+        /** The pass of the last tenant served. Tenants that become active start here so they cannot bank credit. */
+        private double virtualTime;
+        private int size;
+
+        private void add(String name, Waiter waiter) {
+            Tenant tenant = tenants.get(name);
+            if (tenant == null) {
+                tenant = new Tenant(name, virtualTime);
+                tenants.put(name, tenant);
+            }
+            tenant.waiters.add(waiter);
+            size++;
+        }
+
+        private void remove(String name, Waiter waiter) {
+            Tenant tenant = tenants.get(name);
+            if (tenant != null && tenant.waiters.remove(waiter)) {
+                size--;
+                if (tenant.waiters.isEmpty()) {
+                    tenants.remove(name);
+                }
+            }
+        }
+
+        private Waiter poll(RequestScheduler scheduler) {
+            Tenant next = null;
+            for (Tenant tenant : tenants.values()) {
+                if (next == null || tenant.pass < next.pass) {
+                    next = tenant;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+
+            Waiter waiter = next.waiters.poll();
+            size--;
+            virtualTime = next.pass;
+            next.pass += 1 / scheduler.getWeight(next.name);
+            if (next.waiters.isEmpty()) {
+                tenants.remove(next.name);
+            }
+            return waiter;
+        }
+    }
+
+    private static final class Tenant {
+        private final String name;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private double pass;
+
+        private Tenant(String name, double pass) {
+            this.name = name;
+            this.pass = pass;
+        }
+    }
+
+    private static final class Waiter {
+        private final RequestPriority priority;
+        private final long enqueued = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Waiter(RequestPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -1,62 +1,110 @@
 package net.dean.jraw.http;
 
-import com.google.common.util.concurrent.RateLimiter;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.Response;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.dean.jraw.JrawUtils;
+import net.dean.jraw.models.Projection;
 
 import java.io.IOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.CookieStore;
-import java.time.LocalDateTime;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
- * This class provides a way to send RESTful HTTP requests
+ * This class provides a way to send RESTful HTTP requests. It is thread-safe: one instance can be shared by any amount
+ * of threads without external locking. Settings can be changed at any time and apply to the requests executed after
+ * the change.
  */
 public abstract class RestClient<T extends RestResponse> implements NetworkAccessible<T, RestClient<T>> {
+    private static final int DEFAULT_JOURNAL_CAPACITY = 256;
     private final String defaultHost;
-    private final RateLimiter rateLimiter;
-    /** The OkHttpClient used to execute RESTful HTTP requests */
-    protected final OkHttpClient http;
-    /** The CookieStore that will contain all the cookies saved by {@link #http} */
+    private volatile Ratelimiter ratelimiter;
+    /** The HttpTransport used to execute RESTful HTTP requests */
+    private volatile HttpTransport transport;
+    /** Adds cookies to outgoing requests and saves the ones sent back */
+    private final CookieManager cookieManager;
+    /** The CookieStore that will contain all the cookies saved by {@link #cookieManager} */
     protected final CookieStore cookieJar;
 
-    /** A list of Requests sent in the past */
-    protected final LinkedHashMap<T, LocalDateTime> history;
-    /** A list of headers to be sent for request */
-    protected final Map<String, String> defaultHeaders;
-    private boolean useHttpsDefault;
-    private boolean enforceRatelimit;
-
+    /** The headers sent with every request. Replaced as a whole when a header changes. */
+    private final AtomicReference<Headers> defaultHeaders;
+    private volatile boolean useHttpsDefault;
+    private volatile boolean enforceRatelimit;
+    private volatile RequestScheduler requestScheduler;
+    /** Sends asynchronous requests once their rate limit permit can be used */
+    private final ScheduledExecutorService scheduler;
+    private volatile Executor asyncExecutor;
+    /** Runs the tasks of {@link #fanOut(int)} */
+    private volatile Executor blockingExecutor;
+    private volatile boolean useVirtualThreads;
+    private volatile HttpCache httpCache;
+    private volatile RetryPolicy retryPolicy;
+    private volatile HedgingPolicy hedgingPolicy;
+    private volatile CircuitBreakerConfig circuitBreakerConfig;
+    private final Map<String, CircuitBreaker> circuitBreakers;
+    /** GET requests currently being executed, keyed by {@link #inFlightKey(RestRequest)} */
+    private final Map<String, SharedCall<T>> inFlight;
+    private final AtomicLong coalescedCount;
+    private volatile boolean coalesceRequests;
+    private volatile boolean keepRawResponses;
+    /** The deadline of requests that don't set their own, in nanoseconds, or 0 for none */
+    private volatile long defaultDeadlineNanos;
+    private volatile MetricsListener metricsListener;
+    /** A summary of the requests sent in the past */
+    private volatile RequestJournal journal;
 
     /**
      * Instantiates a new RestClient
      *
      * @param defaultHost The host on which to operate
      * @param userAgent The User-Agent header which will be sent with all requests
-     * @param requestsPerMinute The amount of HTTP requests that can be sent in one minute. A value greater than 0 will
-     *                          enable rate limit enforcing, one less than or equal to 0 will disable it. This value cannot
-     *                          be changed aft
+     * @param requestsPerMinute The amount of HTTP requests that can be sent in one minute when the server does not
+     *                          report its own rate limit. A value greater than 0 will enable rate limit enforcing, one
+     *                          less than or equal to 0 will disable it.
+     * @see AdaptiveRatelimiter
      */
     public RestClient(String defaultHost, String userAgent, int requestsPerMinute) {
         this.defaultHost = defaultHost;
         this.enforceRatelimit = requestsPerMinute > 0;
-        this.rateLimiter = enforceRatelimit ? RateLimiter.create((double) requestsPerMinute / 60) : null;
-        this.http = new OkHttpClient();
-        CookieManager manager = new CookieManager();
-        manager.setCookiePolicy(CookiePolicy.ACCEPT_ALL);
-        http.setCookieHandler(manager);
-        this.cookieJar = manager.getCookieStore();
-        this.history = new LinkedHashMap<>();
+        this.ratelimiter = enforceRatelimit ? new AdaptiveRatelimiter(requestsPerMinute) : null;
+        this.transport = new OkHttpTransport();
+        this.cookieManager = new CookieManager();
+        cookieManager.setCookiePolicy(CookiePolicy.ACCEPT_ALL);
+        this.cookieJar = cookieManager.getCookieStore();
+        this.journal = new RequestJournal(DEFAULT_JOURNAL_CAPACITY);
         this.useHttpsDefault = false;
-        this.defaultHeaders = new HashMap<>();
-        defaultHeaders.put("User-Agent", userAgent);
+        this.defaultHeaders = new AtomicReference<>(Headers.of("User-Agent", userAgent));
+        // The scheduler's only thread is not started until the first asynchronous request has to wait
+        this.scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("jraw-ratelimit-%d")
+                .build());
+        this.asyncExecutor = ForkJoinPool.commonPool();
+        this.blockingExecutor = VirtualThreads.newPlatformExecutor("jraw-fanout-");
+        this.inFlight = new ConcurrentHashMap<>();
+        this.circuitBreakers = new ConcurrentHashMap<>();
+        this.coalescedCount = new AtomicLong();
+        this.coalesceRequests = true;
     }
 
     public String getDefaultHost() {
@@ -81,26 +129,68 @@ public abstract class RestClient<T extends RestResponse> implements NetworkAcces
         this.useHttpsDefault = useHttpsDefault;
     }
 
+    /**
+     * Checks if RequestBuilders returned from {@link #request()} keep the raw body of JSON responses
+     * @return If raw JSON bodies are kept by default
+     */
+    public boolean isKeepingRawResponses() {
+        return keepRawResponses;
+    }
+
+    /**
+     * Sets whether RequestBuilders returned from {@link #request()} keep the raw body of JSON responses for {@link
+     * RestResponse#getRaw()} (disabled by default). Note that this can be changed per request later.
+     *
+     * @param keepRawResponses If raw JSON bodies should be kept by default
+     * @see RestRequest.Builder#keepRaw(boolean)
+     */
+    public void setKeepRawResponses(boolean keepRawResponses) {
+        this.keepRawResponses = keepRawResponses;
+    }
+
     @Override
     public RestRequest.Builder request() {
         return addDefaultHeaders(new RestRequest.Builder()
                 .host(defaultHost)
-                .https(useHttpsDefault));
+                .https(useHttpsDefault)
+                .keepRaw(keepRawResponses));
     }
 
     private RestRequest.Builder addDefaultHeaders(RestRequest.Builder builder) {
-        for (Map.Entry<String, String> entry : defaultHeaders.entrySet()) {
-            builder.header(entry.getKey(), entry.getValue());
+        Headers headers = defaultHeaders.get();
+        for (int i = 0; i < headers.size(); i++) {
+            builder.header(headers.name(i), headers.value(i));
         }
         return builder;
     }
 
+    /**
+     * Gets the headers sent with every request
+     * @return An immutable snapshot of the default headers
+     */
+    public Headers getDefaultHeaders() {
+        return defaultHeaders.get();
+    }
+
+    /**
+     * Sets a header that will be sent with every request built by {@link #request()} from now on. Requests that have
+     * already been built are not affected.
+     *
+     * @param name The header's name
+     * @param value The header's value, or null to stop sending the header
+     */
+    protected void setDefaultHeader(String name, String value) {
+        defaultHeaders.updateAndGet(headers -> value != null ?
+                headers.newBuilder().set(name, value).build() :
+                headers.newBuilder().removeAll(name).build());
+    }
+
     /**
      * Sets the time in milliseconds the HTTP client will wait before timing out
      * @param milliseconds Timeout length in milliseconds
      */
     public void setTimeoutLength(long milliseconds) {
-        http.setConnectTimeout(milliseconds, TimeUnit.MILLISECONDS);
+        transport.setConnectTimeout(milliseconds);
     }
 
     /**
@@ -108,40 +198,1253 @@ public abstract class RestClient<T extends RestResponse> implements NetworkAcces
      * @return Timeout length in milliseconds
      */
     public long getTimeoutLength() {
-        return http.getConnectTimeout();
+        return transport.getConnectTimeout();
+    }
+
+    /**
+     * Gets the HttpTransport that sends requests over the network
+     * @return The current HttpTransport. Unless changed, this is an {@link OkHttpTransport}.
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the HttpTransport that will send requests over the network. Rate limiting, caching, retries, circuit
+     * breaking, and cookies keep working the same way regardless of the transport. The connect timeout is not carried
+     * over from the previous transport.
+     *
+     * @param transport The new HttpTransport
+     */
+    public void setTransport(HttpTransport transport) {
+        if (transport == null) {
+            throw new NullPointerException("transport cannot be null");
+        }
+        this.transport = transport;
+    }
+
+    /**
+     * Replaces the current transport with an {@link OkHttpTransport} using the given connection settings, and starts
+     * connecting to the config's pre-connect hosts in the background
+     *
+     * @param config The connection settings
+     * @see #preconnect(String...)
+     */
+    public void setTransportConfig(TransportConfig config) {
+        if (config == null) {
+            throw new NullPointerException("config cannot be null");
+        }
+        setTransport(new OkHttpTransport(config));
+        List<String> hosts = config.getPreconnectHosts();
+        if (!hosts.isEmpty()) {
+            preconnect(hosts.toArray(new String[hosts.size()]));
+        }
+    }
+
+    /**
+     * Gets how well the current transport is reusing its connections
+     * @return A snapshot of the transport's connection statistics, or null if it does not keep track of them
+     */
+    public ConnectionStats getConnectionStats() {
+        return transport.getConnectionStats();
+    }
+
+    /**
+     * Opens a connection to each host over HTTPS, including the TLS handshake, so that it is ready to be reused by the
+     * first real request. This is done by sending a HEAD request for "/" outside of the rate limit, cache, and metrics.
+     * Failures are logged and otherwise ignored.
+     *
+     * @param hosts The hosts to connect to
+     * @return A future that completes once every host has been connected to or failed to be
+     */
+    public CompletableFuture<Void> preconnect(String... hosts) {
+        HttpTransport transport = this.transport;
+        CompletableFuture<?>[] connections = new CompletableFuture<?>[hosts.length];
+        for (int i = 0; i < hosts.length; i++) {
+            String host = hosts[i];
+            RestRequest request = request().https(true).host(host).path("/").head().build();
+            connections[i] = transport.executeAsync(request).handle((response, ex) -> {
+                if (ex != null) {
+                    JrawUtils.logger().warn("Could not pre-connect to {}", host, ex);
+                    return null;
+                }
+                try {
+                    // Returns the connection to the pool
+                    response.close();
+                } catch (IOException e) {
+                    JrawUtils.logger().warn("Could not close the pre-connect response from {}", host, e);
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(connections);
+    }
+
+    /**
+     * Gets the Executor that responses to asynchronous requests will be decoded on by default. Unless changed, this is
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @return The default Executor for asynchronous requests
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the Executor that responses to asynchronous requests will be decoded on when none is given
+     *
+     * @param executor The new default Executor for asynchronous requests
+     */
+    public void setAsyncExecutor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor cannot be null");
+        }
+        this.asyncExecutor = executor;
+    }
+
+    /**
+     * Checks if blocking work is run on virtual threads
+     * @return If virtual threads are being used
+     */
+    public boolean isUsingVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * Sets whether blocking work is run on virtual threads (disabled by default). When enabled, asynchronous responses
+     * are decoded on virtual threads instead of {@link ForkJoinPool#commonPool()} (decoding may block while the rest of
+     * the body arrives), and the tasks of {@link #fanOut(int)} each get a virtual thread of their own. This replaces the
+     * Executor set by {@link #setAsyncExecutor(Executor)}.
+     *
+     * <p>If the JVM does not support virtual threads, a cached pool of platform threads is used instead.
+     *
+     * @param useVirtualThreads If virtual threads should be used
+     * @see VirtualThreads
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        if (useVirtualThreads) {
+            if (!VirtualThreads.isAvailable()) {
+                JrawUtils.logger().warn("Virtual threads are not supported by this JVM, using platform threads");
+            }
+            Executor executor = VirtualThreads.newExecutor("jraw-virtual-");
+            this.asyncExecutor = executor;
+            this.blockingExecutor = executor;
+        } else {
+            this.asyncExecutor = ForkJoinPool.commonPool();
+            this.blockingExecutor = VirtualThreads.newPlatformExecutor("jraw-fanout-");
+        }
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * Creates a helper that makes many blocking calls with this client at the same time, for example to paginate through
+     * hundreds of subreddits at once. Every call still waits for the rate limit, so the concurrency mostly helps hide
+     * the latency of the server. The calls run on virtual threads if {@link #setUseVirtualThreads(boolean)} has been
+     * enabled, and on a pool of platform threads otherwise.
+     *
+     * @param maxConcurrency The maximum amount of calls that can be running at the same time
+     * @return A new FanOut
+     */
+    public FanOut fanOut(int maxConcurrency) {
+        return new FanOut(blockingExecutor, maxConcurrency);
     }
 
     /**
-     * Whether to automatically manage the execution of HTTP requests based on time (enabled by default). If there has
-     * been more than 30 requests in the last minute, this class will wait to execute the next request in order to
-     * minimize the chance of getting IP banned by Reddit, or simply having the API return a 403.
+     * Whether to automatically manage the execution of HTTP requests based on time (enabled by default). If the rate
+     * limit reported by the server (or, if there is none, the amount of requests per minute given in the constructor)
+     * is about to be exceeded, this class will wait to execute the next request in order to minimize the chance of
+     * getting IP banned by Reddit, or simply having the API return a 403.
      *
      * @param enabled Whether to enable request management
+     * @throws IllegalStateException If enabling request management when there is no Ratelimiter
      */
-    public void setEnforceRatelimit(boolean enabled) {
+    public synchronized void setEnforceRatelimit(boolean enabled) {
+        if (enabled && ratelimiter == null) {
+            throw new IllegalStateException("No Ratelimiter has been set");
+        }
         this.enforceRatelimit = enabled;
     }
 
+    /**
+     * Gets the Ratelimiter that decides when requests can be sent
+     * @return The current Ratelimiter, or null if this client was created without one
+     */
+    public Ratelimiter getRatelimiter() {
+        return ratelimiter;
+    }
+
+    /**
+     * Sets the Ratelimiter that decides when requests can be sent. Passing null also disables request management.
+     * @param ratelimiter The new Ratelimiter
+     */
+    public synchronized void setRatelimiter(Ratelimiter ratelimiter) {
+        this.ratelimiter = ratelimiter;
+        if (ratelimiter == null) {
+            this.enforceRatelimit = false;
+        }
+    }
+
+    /**
+     * Gets a snapshot of the current rate limit budget
+     * @return The state of the current Ratelimiter, or null if there is none
+     */
+    public RatelimitState getRatelimitState() {
+        Ratelimiter ratelimiter = this.ratelimiter;
+        return ratelimiter != null ? ratelimiter.getState() : null;
+    }
+
+    /**
+     * Gets the cache that GET responses are stored in
+     * @return The current HttpCache, or null if responses are not being cached
+     */
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    /**
+     * Sets the cache that GET responses will be stored in. Responses that are still fresh are returned without sending
+     * a request (and therefore without waiting for the rate limit), and stale responses are revalidated with a
+     * conditional GET. Caching is disabled by default.
+     *
+     * @param httpCache The new HttpCache, or null to disable caching
+     */
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    /**
+     * Gets the policy that decides whether failed requests are sent again
+     * @return The current RetryPolicy, or null if requests are never retried
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the policy that decides whether failed requests are sent again. Requests are not retried by default. Every
+     * attempt, including retries, waits for the rate limit.
+     *
+     * @param retryPolicy The new RetryPolicy, or null to disable retries
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Gets the policy that decides when slow requests are sent a second time
+     * @return The current HedgingPolicy, or null if requests are never hedged
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Sets the policy that decides when slow requests are sent a second time. When a request the policy considers
+     * hedgeable has been waiting for its response for too long, an identical request is sent, the first response to
+     * arrive is used, and the other request is cancelled. Requests are not hedged by default.
+     *
+     * <p>While a policy is set, hedgeable requests are sent asynchronously even by {@link #execute(RestRequest)}, which
+     * then waits for the result.
+     *
+     * @param hedgingPolicy The new HedgingPolicy, or null to disable hedging
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Gets the settings used by the circuit breakers of every host
+     * @return The current CircuitBreakerConfig, or null if circuit breaking is disabled
+     */
+    public CircuitBreakerConfig getCircuitBreakerConfig() {
+        return circuitBreakerConfig;
+    }
+
+    /**
+     * Enables a circuit breaker for every host requests are sent to. When a host fails or responds slowly too often,
+     * requests to it fail immediately with a {@link CircuitBreakerOpenException} until it has had some time to recover.
+     * Circuit breaking is disabled by default. Changing the config resets every circuit.
+     *
+     * @param config The settings to use, or null to disable circuit breaking
+     */
+    public void setCircuitBreakerConfig(CircuitBreakerConfig config) {
+        this.circuitBreakerConfig = config;
+        circuitBreakers.clear();
+    }
+
+    /**
+     * Gets the circuit breaker of a host
+     *
+     * @param host The host, for example "www.reddit.com"
+     * @return The host's CircuitBreaker, or null if circuit breaking is disabled or no requests have been sent to the
+     *         host yet
+     */
+    public CircuitBreaker getCircuitBreaker(String host) {
+        return circuitBreakers.get(host);
+    }
+
+    private CircuitBreaker circuitBreakerFor(RestRequest request) {
+        CircuitBreakerConfig config = circuitBreakerConfig;
+        if (config == null) {
+            return null;
+        }
+        return circuitBreakers.computeIfAbsent(request.getHost(), host -> new CircuitBreaker(host, config));
+    }
+
+    /**
+     * Checks if identical GET requests that are executed at the same time share a single HTTP call
+     * @return If request coalescing is enabled
+     */
+    public boolean isCoalescingRequests() {
+        return coalesceRequests;
+    }
+
+    /**
+     * Sets whether identical GET requests (same URL and same user) that are executed while one of them is already in
+     * flight will wait for that request's response instead of sending their own (enabled by default). Every caller
+     * receives the same response object, and only one request counts towards the rate limit.
+     *
+     * @param coalesceRequests If request coalescing should be enabled
+     */
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+    }
+
+    /**
+     * Gets how long requests that don't set their own deadline may take
+     * @param unit The unit of the returned value
+     * @return The default deadline, or 0 if there is none
+     */
+    public long getDefaultDeadline(TimeUnit unit) {
+        return unit.convert(defaultDeadlineNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets how long requests that don't set their own deadline may take in total, including waiting for the rate
+     * limit, connecting, retries, and reading the response. Requests still waiting for the rate limit when their
+     * deadline passes give their permit back. There is no default deadline unless this is called.
+     *
+     * @param timeout The default deadline, or 0 for none
+     * @param unit The unit of {@code timeout}
+     * @see RestRequest.Builder#deadline(long, TimeUnit)
+     */
+    public void setDefaultDeadline(long timeout, TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative");
+        }
+        this.defaultDeadlineNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Gets the amount of requests that did not send their own HTTP call because an identical request was already in
+     * flight
+     * @return The amount of coalesced requests
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Gets the listener that is notified every time a request is executed
+     * @return The current MetricsListener, or null if no metrics are being collected
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the listener that is notified every time a request is executed, with a breakdown of how long was spent
+     * waiting for the rate limit, waiting for the server, reading the body, and parsing it. No listener is set by
+     * default.
+     *
+     * @param metricsListener The new MetricsListener, or null to stop collecting metrics
+     * @see MetricsRecorder
+     */
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Gets the journal the most recent requests are recorded in
+     * @return The current RequestJournal, or null if requests are not being recorded
+     */
+    public RequestJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal the most recent requests will be recorded in. By default, the last 256 requests are recorded
+     * without their responses.
+     *
+     * @param journal The new RequestJournal, or null to stop recording requests
+     */
+    public void setJournal(RequestJournal journal) {
+        this.journal = journal;
+    }
+
     public boolean isEnforcingRatelimit() {
         return enforceRatelimit;
     }
 
+    /**
+     * Gets the scheduler that decides which waiting request gets the next rate limit permit
+     * @return The current RequestScheduler, or null if permits are handed out in the order requests arrive
+     */
+    public RequestScheduler getRequestScheduler() {
+        return requestScheduler;
+    }
+
+    /**
+     * Sets the scheduler that decides which waiting request gets the next rate limit permit. It is only used while the
+     * rate limit is being enforced, and should take its permits from this client's Ratelimiter.
+     *
+     * @param requestScheduler The new RequestScheduler, or null to hand permits out in the order requests arrive
+     */
+    public void setRequestScheduler(RequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+    }
+
     @Override
     public T execute(RestRequest request) throws NetworkException {
-        if (enforceRatelimit) {
-            if (!rateLimiter.tryAcquire()) {
-                JrawUtils.logger().info("Slept for {} seconds", rateLimiter.acquire());
+        if (!isCoalescable(request)) {
+            return sendOrHedge(request);
+        }
+
+        long timeout = deadlineOf(request);
+        if (timeout > 0) {
+            // Starts the deadline now, so that a request that ends up sending itself after waiting for another one
+            // doesn't get to start over
+            request = request.withExpiry(System.nanoTime() + timeout);
+        }
+        String key = inFlightKey(request);
+        while (true) {
+            SharedCall<T> call = new SharedCall<>();
+            SharedCall<T> existing = share(key, call);
+            if (existing == null) {
+                return lead(key, call, request);
+            }
+
+            try {
+                return await(request, existing.result);
+            } catch (NetworkException | RuntimeException e) {
+                if (!existing.result.isDone()) {
+                    // Only this request gave up
+                    leave(key, existing);
+                    throw e;
+                }
+                if (!isAbortedElsewhere(request, e)) {
+                    throw e;
+                }
+                JrawUtils.logger().debug("The request {} was waiting for was aborted, sending it again",
+                        request.getUrl());
+            }
+        }
+    }
+
+    /**
+     * Sends a GET request on behalf of every identical request that is executed while it is in flight
+     */
+    private T lead(String key, SharedCall<T> call, RestRequest request) throws NetworkException {
+        try {
+            T response = sendOrHedge(request);
+            inFlight.remove(key, call);
+            call.result.complete(response);
+            return response;
+        } catch (NetworkException | RuntimeException e) {
+            inFlight.remove(key, call);
+            call.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if the failure of a shared call was caused by the request that sent it running out of time or being
+     * interrupted, rather than by the server, while a request waiting for it could still be sent
+     *
+     * @param request The request that was waiting
+     * @param e The shared call's failure
+     * @return If the waiting request should be sent again
+     */
+    private static boolean isAbortedElsewhere(RestRequest request, Exception e) {
+        boolean aborted = e instanceof DeadlineExceededException || e.getCause() instanceof InterruptedException;
+        return aborted && !Thread.currentThread().isInterrupted() && request.getRemainingNanos() > 0;
+    }
+
+    /**
+     * Registers a GET request as in flight, unless an identical one already is
+     *
+     * @param key The request's {@link #inFlightKey(RestRequest)}
+     * @param call The request's own SharedCall
+     * @return The call of the identical request, which the caller is now waiting for, or null if {@code call} was
+     *         registered and the caller has to send the request itself
+     */
+    private SharedCall<T> share(String key, SharedCall<T> call) {
+        while (true) {
+            SharedCall<T> existing = inFlight.putIfAbsent(key, call);
+            if (existing == null) {
+                return null;
+            }
+            if (existing.join()) {
+                coalescedCount.incrementAndGet();
+                return existing;
+            }
+            // Every caller gave up on that one just now
+            inFlight.remove(key, existing);
+        }
+    }
+
+    /**
+     * Stops waiting for a shared call. Once no one is waiting for it anymore, the HTTP call is aborted.
+     *
+     * @param key The call's {@link #inFlightKey(RestRequest)}
+     * @param call The call that was given up on
+     */
+    private void leave(String key, SharedCall<T> call) {
+        if (call.waiters.decrementAndGet() > 0) {
+            return;
+        }
+        inFlight.remove(key, call);
+        CompletableFuture<T> send = call.send;
+        if (send != null) {
+            send.cancel(false);
+        }
+        call.result.cancel(false);
+    }
+
+    /**
+     * Waits for the response of an identical request that is already in flight
+     *
+     * @param request The request waiting for the other one, whose deadline still applies
+     * @param call The other request's future
+     * @return The other request's response
+     * @throws NetworkException If the other request was not successful, or this one was interrupted or timed out
+     */
+    private T await(RestRequest request, CompletableFuture<T> call) throws NetworkException {
+        long deadline = deadlineOf(request);
+        // The deadline starts now unless the request is already being executed with one
+        long timeout = request.getRemainingNanos();
+        if (timeout == Long.MAX_VALUE && deadline > 0) {
+            timeout = deadline;
+        }
+        try {
+            return timeout == Long.MAX_VALUE ? call.get() : call.get(Math.max(0, timeout), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(deadline, null, new ArrayList<>());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetworkException("Interrupted while executing the request: " + request, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetworkException) {
+                throw (NetworkException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new NetworkException("Could not execute the request", cause);
+        }
+    }
+
+    /**
+     * Gets how long executing a request may take
+     * @return The request's deadline in nanoseconds, or 0 if it has none
+     */
+    private long deadlineOf(RestRequest request) {
+        long timeout = request.getDeadline(TimeUnit.NANOSECONDS);
+        return timeout >= 0 ? timeout : defaultDeadlineNanos;
+    }
+
+    /**
+     * Sends a request, hedging it if the current HedgingPolicy allows it
+     */
+    private T sendOrHedge(RestRequest request) throws NetworkException {
+        HedgingPolicy policy = hedgingPolicy;
+        if (policy == null || !policy.isHedgeable(request)) {
+            return send(request);
+        }
+        CompletableFuture<T> call = sendHedged(request, asyncExecutor, policy);
+        try {
+            return await(request, call);
+        } catch (NetworkException | RuntimeException e) {
+            // Interrupted or past the deadline, so stop both requests
+            call.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the key identical requests share in {@link #inFlight}. Requests with different projections are parsed
+     * differently, and only some requests keep the raw body, so they don't share responses.
+     */
+    private static String inFlightKey(RestRequest request) {
+        Projection projection = request.getProjection();
+        String key = projection == null ? request.getIdentity() : request.getIdentity() + '\n' + projection;
+        return request.isRawKept() ? key + "\nraw" : key;
+    }
+
+    private boolean isCoalescable(RestRequest request) {
+        // Filters count the children they test, so every request with filters has to read its own response
+        return coalesceRequests && request.getMethod().equals("GET") && request.getFilters().isEmpty();
+    }
+
+    /**
+     * Sends a request, or returns the stored response if it is still fresh. Failed attempts are retried according to
+     * the current RetryPolicy.
+     *
+     * @param request The request to send
+     * @return A new response
+     * @throws NetworkException If the request was not successful
+     */
+    private T send(RestRequest request) throws NetworkException {
+        HttpCache cache = httpCache;
+        HttpCache.Entry cached = cache != null ? cache.get(request) : null;
+        if (cached != null && cached.isFresh()) {
+            return fromCache(request, cache, cached);
+        }
+
+        Exchange exchange = newExchange(request, cache, cached);
+        try {
+            T response = sendAttempts(exchange);
+            report(exchange, null);
+            return response;
+        } catch (NetworkException | RuntimeException e) {
+            report(exchange, e);
+            throw e;
+        }
+    }
+
+    private T sendAttempts(Exchange exchange) throws NetworkException {
+        while (true) {
+            if (exchange.isExpired()) {
+                throw exchange.deadlineExceeded(null);
+            }
+            if (!exchange.tryAcquirePermission()) {
+                throw exchange.circuitOpen();
+            }
+
+            try {
+                acquirePermit(exchange);
+            } catch (NetworkException | RuntimeException e) {
+                // The request was never sent, so it says nothing about the host
+                exchange.releasePermission();
+                throw e;
+            }
+            exchange.startAttempt();
+            HttpResponse response;
+            try {
+                // The body is left open so that initResponse() can read it as a stream
+                response = transport.execute(exchange.sent);
+                exchange.receivedHeaders();
+                saveCookies(response);
+            } catch (RuntimeException e) {
+                // A bug in the transport rather than a network problem, so don't retry
+                exchange.recordResult(true, exchange.endAttempt(-1, e.toString(), -1));
+                throw e;
+            } catch (IOException e) {
+                long delay = retryDelay(exchange, null, e);
+                if (delay < 0) {
+                    throw exchange.failed(e);
+                }
+                sleep(exchange, delay);
+                continue;
+            }
+
+            long delay = retryDelay(exchange, response, null);
+            if (delay < 0) {
+                return handleResponse(exchange, response);
+            }
+            sleep(exchange, delay);
+        }
+    }
+
+    /**
+     * Waits until the rate limit allows the request to be sent. If the request is interrupted or would miss its
+     * deadline, its permit is given back.
+     *
+     * @param exchange The request the permit is for
+     * @throws NetworkException If the calling thread was interrupted or the deadline passed while waiting
+     */
+    private void acquirePermit(Exchange exchange) throws NetworkException {
+        Ratelimiter ratelimiter = enforcedRatelimiter();
+        if (ratelimiter == null) {
+            return;
+        }
+
+        RequestScheduler requestScheduler = this.requestScheduler;
+        if (requestScheduler != null) {
+            try {
+                exchange.ratelimitWaitNanos += requestScheduler.acquire(exchange.sent, exchange.remainingNanos());
+            } catch (TimeoutException e) {
+                throw exchange.deadlineExceeded(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw exchange.interrupted(e);
+            }
+            return;
+        }
+
+        long waitNanos = ratelimiter.reserve();
+        if (waitNanos >= exchange.remainingNanos()) {
+            // Don't make the request wait for a permit it could never use in time
+            ratelimiter.release();
+            throw exchange.deadlineExceeded(null);
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                ratelimiter.release();
+                Thread.currentThread().interrupt();
+                throw exchange.interrupted(e);
+            }
+            JrawUtils.logger().info("Slept for {} seconds", waitNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+        exchange.ratelimitWaitNanos += waitNanos;
+    }
+
+    /**
+     * Waits before retrying a request
+     *
+     * @param exchange The request that will be retried
+     * @param delayNanos How long to wait
+     * @throws NetworkException If the calling thread was interrupted
+     */
+    private static void sleep(Exchange exchange, long delayNanos) throws NetworkException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw exchange.interrupted(e);
+        }
+    }
+
+    /**
+     * Executes a request without blocking the calling thread. Responses are decoded using the Executor returned by
+     * {@link #getAsyncExecutor()}.
+     *
+     * @param request The request to execute
+     * @return A CompletableFuture that will be completed with the response, or completed exceptionally with a
+     *         NetworkException if the request was not successful
+     * @see #executeAsync(RestRequest, Executor)
+     */
+    @Override
+    public CompletableFuture<T> executeAsync(RestRequest request) {
+        return executeAsync(request, asyncExecutor);
+    }
+
+    /**
+     * Executes a request without blocking the calling thread. If the rate limit has been reached, the request is
+     * queued and sent once a permit becomes available instead of holding a thread hostage in the meantime. The HTTP
+     * call itself is run by the transport, and the response is decoded on the given Executor, which is also where the
+     * returned CompletableFuture is completed.
+     *
+     * <p>Cancelling the returned future aborts the request: if it is still waiting for the rate limit its permit is
+     * given back, and if it has been sent the transport is asked to abort the call. When identical requests are sharing
+     * an HTTP call, the call is only aborted once every one of them has been cancelled.
+     *
+     * @param request The request to execute
+     * @param executor The Executor that will decode the response
+     * @return A CompletableFuture that will be completed with the response, or completed exceptionally with a
+     *         NetworkException if the request was not successful
+     */
+    @Override
+    public CompletableFuture<T> executeAsync(RestRequest request, Executor executor) {
+        if (!isCoalescable(request)) {
+            return sendAsyncOrHedge(request, executor);
+        }
+
+        String key = inFlightKey(request);
+        SharedCall<T> call = new SharedCall<>();
+        SharedCall<T> existing = share(key, call);
+        if (existing != null) {
+            // Don't hand out the shared future itself, since callers could complete or cancel it
+            return waitFor(key, existing, existing.result.thenApplyAsync(Function.identity(), executor));
+        }
+
+        CompletableFuture<T> send = sendAsyncOrHedge(request, executor);
+        call.send = send;
+        send.whenComplete((response, ex) -> {
+            inFlight.remove(key, call);
+            if (ex != null) {
+                call.result.completeExceptionally(ex);
+            } else {
+                call.result.complete(response);
+            }
+        });
+        return waitFor(key, call, call.result.thenApply(Function.identity()));
+    }
+
+    /** Makes cancelling a caller's future count as that caller leaving the shared call */
+    private CompletableFuture<T> waitFor(String key, SharedCall<T> call, CompletableFuture<T> future) {
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                leave(key, call);
+            }
+        });
+        return future;
+    }
+
+    private CompletableFuture<T> sendAsyncOrHedge(RestRequest request, Executor executor) {
+        HedgingPolicy policy = hedgingPolicy;
+        if (policy == null || !policy.isHedgeable(request)) {
+            return sendAsync(request, executor);
+        }
+        return sendHedged(request, executor, policy);
+    }
+
+    /**
+     * Sends a request, and sends it again if no response has arrived once the policy's hedge delay has passed. The
+     * first successful response is used and the other request is cancelled, which gives back its rate limit permit if
+     * it hasn't been sent yet. The returned future only fails once every request that was sent has failed.
+     */
+    private CompletableFuture<T> sendHedged(RestRequest request, Executor executor, HedgingPolicy policy) {
+        HttpCache cache = httpCache;
+        HttpCache.Entry cached = cache != null ? cache.get(request) : null;
+        if (cached != null && cached.isFresh()) {
+            // Nothing to hedge, and the latency of a stored response says nothing about the endpoint's
+            return sendAsync(request, executor);
+        }
+
+        policy.onRequest();
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Every request sent so far, the original one first. Guarded by itself.
+        List<CompletableFuture<T>> calls = new ArrayList<>(2);
+        synchronized (calls) {
+            calls.add(sendAsync(request, executor));
+        }
+
+        long delay = policy.getHedgeDelay(request);
+        ScheduledFuture<?> timer = delay < 0 ? null : scheduler.schedule(() -> {
+            synchronized (calls) {
+                if (result.isDone() || calls.get(0).isDone() || !policy.tryHedge()) {
+                    return;
+                }
+                JrawUtils.logger().debug("Hedging request after {} ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(delay), request.getUrl());
+                calls.add(sendAsync(request, executor));
+                onHedgedResult(request, policy, start, result, calls, 1);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+
+        result.whenComplete((response, ex) -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            synchronized (calls) {
+                // Stops every request if the caller gave up, and is a no-op otherwise
+                for (CompletableFuture<T> call : calls) {
+                    call.cancel(false);
+                }
+            }
+        });
+        onHedgedResult(request, policy, start, result, calls, 0);
+        return result;
+    }
+
+    private void onHedgedResult(RestRequest request, HedgingPolicy policy, long start, CompletableFuture<T> result,
+                                List<CompletableFuture<T>> calls, int index) {
+        CompletableFuture<T> call;
+        synchronized (calls) {
+            call = calls.get(index);
+        }
+        call.whenComplete((response, ex) -> {
+            synchronized (calls) {
+                if (ex == null) {
+                    if (!result.isDone()) {
+                        // Record the winner and stop the loser before the caller can see the response
+                        policy.onResponse(request, System.nanoTime() - start, index > 0);
+                        for (CompletableFuture<T> other : calls) {
+                            if (other != call) {
+                                other.cancel(false);
+                            }
+                        }
+                        result.complete(response);
+                    }
+                    return;
+                }
+                if (call.isCancelled()) {
+                    // Lost to the other request, or the caller gave up
+                    return;
+                }
+                for (CompletableFuture<T> other : calls) {
+                    if (other != call && !other.isDone()) {
+                        // The other request may still succeed
+                        return;
+                    }
+                }
+            }
+            result.completeExceptionally(ex);
+        });
+    }
+
+    private CompletableFuture<T> sendAsync(RestRequest request, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        HttpCache cache = httpCache;
+        HttpCache.Entry cached = cache != null ? cache.get(request) : null;
+        if (cached != null && cached.isFresh()) {
+            executor.execute(() -> {
+                try {
+                    future.complete(fromCache(request, cache, cached));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+
+        Exchange exchange = newExchange(request, cache, cached);
+        CompletableFuture<T> attempts = exchange.isMeasured() ? new CompletableFuture<>() : future;
+        if (attempts != future) {
+            // Report the metrics before the caller can see the response
+            attempts.whenComplete((response, ex) -> {
+                report(exchange, ex);
+                if (ex != null) {
+                    future.completeExceptionally(ex);
+                } else {
+                    future.complete(response);
+                }
+            });
+        }
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                exchange.cancel();
+                attempts.completeExceptionally(new CancellationException());
+            }
+        });
+
+        long remaining = exchange.remainingNanos();
+        if (remaining != Long.MAX_VALUE) {
+            ScheduledFuture<?> timer = scheduler.schedule(() -> {
+                if (attempts.completeExceptionally(exchange.deadlineExceeded(null))) {
+                    exchange.cancel();
+                }
+            }, remaining, TimeUnit.NANOSECONDS);
+            attempts.whenComplete((response, ex) -> timer.cancel(false));
+        }
+
+        attemptAsync(exchange, executor, attempts);
+        return future;
+    }
+
+    /**
+     * Sends one attempt of an asynchronous request. If it fails and should be retried, the next attempt is scheduled on
+     * {@link #scheduler}.
+     */
+    private void attemptAsync(Exchange exchange, Executor executor, CompletableFuture<T> future) {
+        if (exchange.cancelled) {
+            return;
+        }
+        if (!exchange.tryAcquirePermission()) {
+            future.completeExceptionally(exchange.circuitOpen());
+            return;
+        }
+
+        acquirePermitAsync(exchange).whenComplete((ignored, permitError) -> {
+            if (permitError != null || exchange.cancelled) {
+                // The request was never sent, so it says nothing about the host
+                exchange.releasePermission();
+                if (permitError == null && exchange.permitSource != null) {
+                    // The request was cancelled just as its permit became usable
+                    exchange.permitSource.release();
+                } else if (permitError != null && !exchange.cancelled) {
+                    future.completeExceptionally(permitError);
+                }
+                return;
+            }
+            exchange.startAttempt();
+            CompletableFuture<HttpResponse> call;
+            try {
+                call = transport.executeAsync(exchange.sent);
+            } catch (RuntimeException e) {
+                // Nothing was sent, for example because the transport could not make sense of the URL
+                if (exchange.permitSource != null) {
+                    exchange.permitSource.release();
+                }
+                onAsyncFailure(exchange, executor, future, e);
+                return;
+            }
+            exchange.setPending(call);
+            call.whenComplete((response, ex) -> {
+                if (exchange.cancelled) {
+                    // Whoever cancelled the request has already completed its future, and the aborted call has no
+                    // outcome the circuit breaker could learn from
+                    exchange.releasePermission();
+                    if (response != null) {
+                        closeQuietly(response);
+                    }
+                } else if (ex != null) {
+                    onAsyncFailure(exchange, executor, future, ex);
+                } else {
+                    onAsyncResponse(exchange, executor, future, response);
+                }
+            });
+        });
+    }
+
+    private void onAsyncFailure(Exchange exchange, Executor executor, CompletableFuture<T> future, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (!(cause instanceof IOException)) {
+            // A bug in the transport rather than a network problem, so don't retry
+            exchange.recordResult(true, exchange.endAttempt(-1, cause.toString(), -1));
+            future.completeExceptionally(cause);
+            return;
+        }
+
+        long delay = retryDelay(exchange, null, (IOException) cause);
+        if (delay < 0) {
+            future.completeExceptionally(exchange.failed(cause));
+        } else {
+            retryAsync(exchange, executor, future, delay);
+        }
+    }
+
+    private void onAsyncResponse(Exchange exchange, Executor executor, CompletableFuture<T> future,
+                                 HttpResponse response) {
+        exchange.receivedHeaders();
+        saveCookies(response);
+        long delay = retryDelay(exchange, response, null);
+        if (delay >= 0) {
+            retryAsync(exchange, executor, future, delay);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(handleResponse(exchange, response));
+                } catch (NetworkException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The executor rejected the task
+            closeQuietly(response);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void retryAsync(Exchange exchange, Executor executor, CompletableFuture<T> future, long delayNanos) {
+        scheduler.schedule(() -> attemptAsync(exchange, executor, future), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Exchange newExchange(RestRequest request, HttpCache cache, HttpCache.Entry cached) {
+        long deadline = deadlineOf(request);
+        RestRequest sent = cached != null ? cache.conditional(request, cached) : request;
+        if (deadline > 0 && sent.getRemainingNanos() == Long.MAX_VALUE) {
+            // Lets the transport abort the call once the deadline passes
+            sent = sent.withExpiry(System.nanoTime() + deadline);
+        }
+        return new Exchange(request, addCookies(sent), deadline, cache, cached, retryPolicy,
+                circuitBreakerFor(request), metricsListener, journal);
+    }
+
+    /**
+     * Records a request that is done in the exchange's RequestJournal and notifies its MetricsListener
+     *
+     * @param exchange The request that was executed
+     * @param error The exception the request failed with, or null if it was successful
+     */
+    private void report(Exchange exchange, Throwable error) {
+        if (exchange.isMeasured()) {
+            report(exchange.listener, exchange.journal, exchange.metrics(error), exchange.response);
+        }
+    }
+
+    private static void report(MetricsListener listener, RequestJournal journal, RequestMetrics metrics,
+                               RestResponse response) {
+        if (journal != null) {
+            journal.add(metrics, response);
+        }
+        if (listener != null) {
+            try {
+                listener.onRequest(metrics);
+            } catch (RuntimeException e) {
+                JrawUtils.logger().warn("MetricsListener failed to handle {}", metrics, e);
+            }
+        }
+    }
+
+    /**
+     * Adds the cookies stored for the request's URL to a request
+     *
+     * @param request The request to send
+     * @return The request with a Cookie header, or the same request if there are no cookies to send
+     */
+    private RestRequest addCookies(RestRequest request) {
+        try {
+            URI uri = URI.create(request.getUrl());
+            Map<String, List<String>> cookies = cookieManager.get(uri, toMultimap(request.getHeaders()));
+            for (Map.Entry<String, List<String>> entry : cookies.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    request = request.withHeader(entry.getKey(), String.join("; ", entry.getValue()));
+                }
             }
+        } catch (IOException | IllegalArgumentException e) {
+            JrawUtils.logger().warn("Could not load cookies for {}", request.getUrl(), e);
         }
+        return request;
+    }
 
-        Request r = request.getRequest();
+    /**
+     * Stores the cookies set by a response
+     * @param response The response to read the Set-Cookie headers of
+     */
+    private void saveCookies(HttpResponse response) {
         try {
-            Response response = http.newCall(r).execute();
+            cookieManager.put(URI.create(response.getRequest().getUrl()), toMultimap(response.getHeaders()));
+        } catch (IOException | IllegalArgumentException e) {
+            JrawUtils.logger().warn("Could not save cookies for {}", response.getRequest().getUrl(), e);
+        }
+    }
+
+    private static Map<String, List<String>> toMultimap(Headers headers) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (String name : headers.names()) {
+            map.put(name, headers.values(name));
+        }
+        return map;
+    }
+
+    /**
+     * Records the outcome of the current attempt and decides whether the request should be sent again. If it should,
+     * the response is closed.
+     *
+     * @param exchange The request being executed
+     * @param response The response to the current attempt, or null if it could not be sent
+     * @param error The reason the current attempt could not be sent, or null if there is a response
+     * @return The amount of nanoseconds to wait before the next attempt, or -1 if the current attempt is the last one
+     */
+    private long retryDelay(Exchange exchange, HttpResponse response, IOException error) {
+        int code = response != null ? response.getCode() : -1;
+        boolean failed = response == null ||
+                (!response.isSuccessful() && !(exchange.cached != null && code == 304));
+        long delay = failed && exchange.retryPolicy != null ?
+                exchange.retryPolicy.getRetryDelay(exchange.request, exchange.attempts.size() + 1, response) :
+                -1;
+        if (delay >= exchange.remainingNanos()) {
+            // The next attempt could not finish in time
+            delay = -1;
+        }
+        long duration = exchange.endAttempt(code, error != null ? error.toString() : null, delay);
+        // Client errors say nothing about the health of the host
+        exchange.recordResult(response == null || code >= 500, duration);
+
+        if (delay >= 0) {
+            RestRequest r = exchange.sent;
+            JrawUtils.logger().warn("{} {} failed ({}), retrying in {} ms", r.getMethod(), r.getUrl(),
+                    response != null ? "code " + code : error, TimeUnit.NANOSECONDS.toMillis(delay));
+            if (response != null) {
+                updateRatelimiter(response);
+                closeQuietly(response);
+            }
+        }
+        return delay;
+    }
+
+    /**
+     * Gets the Ratelimiter requests have to wait for
+     * @return The current Ratelimiter, or null if the rate limit is not being enforced
+     */
+    private Ratelimiter enforcedRatelimiter() {
+        Ratelimiter ratelimiter = this.ratelimiter;
+        return enforceRatelimit ? ratelimiter : null;
+    }
+
+    private void updateRatelimiter(HttpResponse response) {
+        Ratelimiter ratelimiter = this.ratelimiter;
+        if (ratelimiter != null) {
+            ratelimiter.update(response.getHeaders());
+        }
+    }
+
+    /**
+     * Reserves a permit from the rate limiter without blocking. If it cannot be used right away, the returned future is
+     * completed by {@link #scheduler} once it can.
+     *
+     * @param exchange The request the permit is for
+     * @return A future that completes when the request may be sent
+     */
+    private CompletableFuture<Void> acquirePermitAsync(Exchange exchange) {
+        Ratelimiter ratelimiter = enforcedRatelimiter();
+        exchange.permitSource = ratelimiter;
+        RequestScheduler requestScheduler = this.requestScheduler;
+        if (ratelimiter != null && requestScheduler != null) {
+            long start = System.nanoTime();
+            // Cancelling the scheduler's own future takes the request out of its queue
+            CompletableFuture<Void> queued = requestScheduler.acquireAsync(exchange.sent);
+            exchange.setPending(queued);
+            return queued.thenRun(() -> exchange.ratelimitWaitNanos += System.nanoTime() - start);
+        }
+
+        long waitNanos = ratelimiter != null ? ratelimiter.reserve() : 0;
+        exchange.ratelimitWaitNanos += waitNanos;
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        ScheduledFuture<?> task = scheduler.schedule(() -> permit.complete(null), waitNanos, TimeUnit.NANOSECONDS);
+        permit.whenComplete((ignored, ex) -> {
+            if (permit.isCancelled()) {
+                task.cancel(false);
+                ratelimiter.release();
+            }
+        });
+        exchange.setPending(permit);
+        return permit;
+    }
 
-            JrawUtils.logger().info("{} {}", r.method(), r.url());
-            if (!response.isSuccessful()) {
-                throw new NetworkException(response.code());
+    /**
+     * Creates a response out of a fresh cache entry without sending the request
+     *
+     * @param request The request that would have been sent
+     * @param cache The cache the entry came from
+     * @param cached The fresh entry
+     * @return A new response
+     */
+    private T fromCache(RestRequest request, HttpCache cache, HttpCache.Entry cached) {
+        long start = System.nanoTime();
+        MetricsListener listener = metricsListener;
+        RequestJournal journal = this.journal;
+        JrawUtils.logger().info("{} {} (cached)", request.getMethod(), request.getUrl());
+        cache.countHit(request);
+        HttpResponse response = cached.toResponse(request);
+        try {
+            long parseStart = System.nanoTime();
+            T parsed = initResponse(response);
+            if (listener != null || journal != null) {
+                long end = System.nanoTime();
+                report(listener, journal, new RequestMetrics(request, response.getCode(), 0, true, null, end - start,
+                        0, 0, 0, end - parseStart, 0), parsed);
             }
+            return parsed;
+        } finally {
+            closeQuietly(response);
+        }
+    }
+
+    /**
+     * Logs the request, checks the status code, and hands the response to {@link #initResponse(HttpResponse)}. If a cache
+     * is being used, a "304 Not Modified" is replaced by the stored response and successful responses are stored. The
+     * response is always closed by the time this method returns.
+     *
+     * @param exchange The request that was sent
+     * @param response The response the server sent back
+     * @return A new response
+     * @throws NetworkException If the response was not successful
+     */
+    private T handleResponse(Exchange exchange, HttpResponse response) throws NetworkException {
+        RestRequest request = exchange.request;
+        HttpCache cache = exchange.cache;
+        HttpCache.Entry cached = exchange.cached;
+        if (exchange.isMeasured()) {
+            response = exchange.meter(response);
+        }
+        HttpResponse original = response;
+        try {
+            JrawUtils.logger().info("{} {}", request.getMethod(), request.getUrl());
             if (request.getFormArgs() != null) {
                 for (Map.Entry<String, String> entry : request.getFormArgs().entrySet()) {
                     String val = request.isSensitive(entry.getKey()) ? "<sensitive>" : entry.getValue();
@@ -149,12 +1452,51 @@ public abstract class RestClient<T extends RestResponse> implements NetworkAcces
                 }
             }
 
-            T genericResponse = initResponse(http.newCall(r).execute());
+            updateRatelimiter(response);
+
+            if (cached != null && response.getCode() == 304) {
+                response = cache.revalidated(request, cached, response);
+            } else if (!response.isSuccessful()) {
+                throw new NetworkException(response.getCode(), exchange.attempts);
+            } else if (cache != null) {
+                cache.countMiss(request);
+                try {
+                    response = cache.put(request, response);
+                } catch (IOException e) {
+                    throw new NetworkException("Could not read the response body: " + request, e);
+                }
+            }
+
+            // Time spent waiting for the rest of the body to arrive is not parsing
+            long readNanos = exchange.getBodyReadNanos();
+            long parseStart = System.nanoTime();
+            T parsed = initResponse(response);
+            exchange.parseNanos = System.nanoTime() - parseStart - (exchange.getBodyReadNanos() - readNanos);
+            if (exchange.isExpired()) {
+                // The body may have been cut off by the transport aborting the call
+                throw exchange.deadlineExceeded(null);
+            }
+            exchange.response = parsed;
+            return parsed;
+        } finally {
+            closeQuietly(original);
+            if (response != original) {
+                closeQuietly(response);
+            }
+        }
+    }
 
-            history.put(genericResponse, LocalDateTime.now());
-            return genericResponse;
+    /**
+     * Releases the resources held by a response's body, such as its connection. Any exceptions thrown are logged and
+     * then ignored.
+     *
+     * @param response The response to close
+     */
+    private void closeQuietly(HttpResponse response) {
+        try {
+            response.close();
         } catch (IOException e) {
-            throw new NetworkException("Could not execute the request: " + r, e);
+            JrawUtils.logger().warn("Could not close the response body", e);
         }
     }
 
@@ -168,7 +1510,7 @@ public abstract class RestClient<T extends RestResponse> implements NetworkAcces
      * @return The value of the User-Agent header
      */
     public String getUserAgent() {
-        return defaultHeaders.get("User-Agent");
+        return defaultHeaders.get().get("User-Agent");
     }
 
     /**
@@ -176,14 +1518,217 @@ public abstract class RestClient<T extends RestResponse> implements NetworkAcces
      * @param userAgent The new User-Agent header
      */
     public void setUserAgent(String userAgent) {
-        defaultHeaders.put("User-Agent", userAgent);
+        setDefaultHeader("User-Agent", userAgent);
     }
 
     /**
-     * This method is responsible for instantiating a new RestResponse or one of its subclasses
+     * This method is responsible for instantiating a new RestResponse or one of its subclasses. The response's body has
+     * not been read yet when this method is called, so implementations are free to decode it directly from
+     * {@code r.getBody()}. The body will be closed by the RestClient once this method returns.
      *
-     * @param r The OkHttp response given
+     * @param r The response sent back by the transport
      * @return A new response
      */
-    protected abstract T initResponse(Response r);
+    protected abstract T initResponse(HttpResponse r);
+
+    /**
+     * A GET request that is being executed on behalf of every identical request that was executed while it was in
+     * flight
+     */
+    private static final class SharedCall<T> {
+        private final CompletableFuture<T> result;
+        /** The amount of callers waiting for the result, including the one that sent the request */
+        private final AtomicInteger waiters;
+        /** The asynchronous send, which is cancelled once every caller has left */
+        private volatile CompletableFuture<T> send;
+
+        private SharedCall() {
+            this.result = new CompletableFuture<>();
+            this.waiters = new AtomicInteger(1);
+        }
+
+        /**
+         * Adds a caller that will wait for the result
+         * @return False if every caller has already left, in which case the call is being aborted
+         */
+        private boolean join() {
+            while (true) {
+                int count = waiters.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (waiters.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a single execution of a request, which may span several attempts
+     */
+    private static final class Exchange {
+        private final RestRequest request;
+        /** The request actually sent over the network, which may have been made conditional and carry cookies */
+        private final RestRequest sent;
+        /** How long the request may take in nanoseconds, or 0 if it has no deadline */
+        private final long deadlineNanos;
+        private final HttpCache cache;
+        private final HttpCache.Entry cached;
+        private final RetryPolicy retryPolicy;
+        private final CircuitBreaker breaker;
+        private final MetricsListener listener;
+        private final RequestJournal journal;
+        private final List<RequestAttempt> attempts;
+        private final long start;
+        private long attemptStart;
+        private long ratelimitWaitNanos;
+        private long timeToFirstByteNanos;
+        private long parseNanos;
+        /** The body of the final response, if it is being measured */
+        private MeteredInputStream body;
+        /** The final response, once it has been parsed */
+        private RestResponse response;
+        /** The Ratelimiter the current attempt's permit came from, if any */
+        private volatile Ratelimiter permitSource;
+        /** What an asynchronous request is currently waiting on, which is cancelled along with the request */
+        private volatile CompletableFuture<?> pending;
+        private volatile boolean cancelled;
+        /**
+         * The permission {@link #breaker} gave the current attempt, or {@link CircuitBreaker#NO_PERMISSION} if it has
+         * none or has already reported its outcome
+         */
+        private final AtomicLong permission;
+
+        private Exchange(RestRequest request, RestRequest sent, long deadlineNanos, HttpCache cache,
+                         HttpCache.Entry cached, RetryPolicy retryPolicy, CircuitBreaker breaker,
+                         MetricsListener listener, RequestJournal journal) {
+            this.request = request;
+            this.sent = sent;
+            this.deadlineNanos = deadlineNanos;
+            this.cache = cache;
+            this.cached = cached;
+            this.retryPolicy = retryPolicy;
+            this.breaker = breaker;
+            this.listener = listener;
+            this.journal = journal;
+            this.attempts = new ArrayList<>();
+            this.start = System.nanoTime();
+            this.permission = new AtomicLong(CircuitBreaker.NO_PERMISSION);
+            if (retryPolicy != null) {
+                retryPolicy.onRequest();
+            }
+        }
+
+        private void startAttempt() {
+            attemptStart = System.nanoTime();
+            timeToFirstByteNanos = 0;
+        }
+
+        /** Checks if the outcome of this exchange will be reported anywhere */
+        private boolean isMeasured() {
+            return listener != null || journal != null;
+        }
+
+        private void receivedHeaders() {
+            timeToFirstByteNanos = System.nanoTime() - attemptStart;
+        }
+
+        /** Wraps the response's body so that the bytes read from it and the time spent waiting for them are counted */
+        private HttpResponse meter(HttpResponse response) {
+            body = new MeteredInputStream(response.getBody());
+            return new HttpResponse(response.getRequest(), response.getCode(), response.getMessage(),
+                    response.getHeaders(), body);
+        }
+
+        private long getBodyReadNanos() {
+            return body != null ? body.getReadNanos() : 0;
+        }
+
+        private RequestMetrics metrics(Throwable error) {
+            int code = attempts.isEmpty() ? -1 : attempts.get(attempts.size() - 1).getCode();
+            return new RequestMetrics(request, code, attempts.size(), false, error, System.nanoTime() - start,
+                    ratelimitWaitNanos, timeToFirstByteNanos, getBodyReadNanos(), parseNanos,
+                    body != null ? body.getBytes() : 0);
+        }
+
+        /** Records the outcome of the current attempt and returns how long it took */
+        private long endAttempt(int code, String error, long retryDelayNanos) {
+            long duration = System.nanoTime() - attemptStart;
+            attempts.add(new RequestAttempt(attempts.size() + 1, code, error, duration, retryDelayNanos));
+            return duration;
+        }
+
+        private boolean tryAcquirePermission() {
+            if (breaker == null) {
+                return true;
+            }
+            long granted = breaker.tryAcquirePermission();
+            if (granted == CircuitBreaker.NO_PERMISSION) {
+                return false;
+            }
+            permission.set(granted);
+            return true;
+        }
+
+        /** Reports the outcome of the current attempt to the circuit breaker */
+        private void recordResult(boolean failed, long durationNanos) {
+            long held = permission.getAndSet(CircuitBreaker.NO_PERMISSION);
+            if (held != CircuitBreaker.NO_PERMISSION) {
+                breaker.onResult(held, failed, durationNanos);
+            }
+        }
+
+        /** Gives the circuit breaker's permission back if the current attempt will never have an outcome */
+        private void releasePermission() {
+            long held = permission.getAndSet(CircuitBreaker.NO_PERMISSION);
+            if (held != CircuitBreaker.NO_PERMISSION) {
+                breaker.release(held);
+            }
+        }
+
+        private long remainingNanos() {
+            return sent.getRemainingNanos();
+        }
+
+        private boolean isExpired() {
+            return remainingNanos() <= 0;
+        }
+
+        private void setPending(CompletableFuture<?> pending) {
+            this.pending = pending;
+            if (cancelled) {
+                pending.cancel(false);
+            }
+        }
+
+        /** Stops an asynchronous request from going any further */
+        private void cancel() {
+            cancelled = true;
+            CompletableFuture<?> pending = this.pending;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+
+        /** Creates the exception for a request that could not be sent, which may be because its deadline passed */
+        private NetworkException failed(Throwable cause) {
+            if (isExpired()) {
+                return deadlineExceeded(cause);
+            }
+            return new NetworkException("Could not execute the request: " + sent, cause, attempts);
+        }
+
+        private DeadlineExceededException deadlineExceeded(Throwable cause) {
+            return new DeadlineExceededException(deadlineNanos, cause, new ArrayList<>(attempts));
+        }
+
+        private NetworkException interrupted(InterruptedException e) {
+            return new NetworkException("Interrupted while executing the request: " + sent, e, attempts);
+        }
+
+        private CircuitBreakerOpenException circuitOpen() {
+            return new CircuitBreakerOpenException(breaker.getHost(), breaker.getRemainingOpenTime(TimeUnit.NANOSECONDS));
+        }
+    }
 }
@@ -1,33 +1,69 @@
 package net.dean.jraw.http;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.squareup.okhttp.FormEncodingBuilder;
-import com.squareup.okhttp.Request;
 import net.dean.jraw.Endpoint;
 import net.dean.jraw.Endpoints;
 import net.dean.jraw.JrawUtils;
+import net.dean.jraw.models.Projection;
+import net.dean.jraw.models.ThingFilter;
 
 import java.io.UnsupportedEncodingException;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 
+/**
+ * This class represents an HTTP request in terms that do not depend on any particular HTTP library: a method, a URL,
+ * headers, and an optional body. It is turned into an actual HTTP call by an {@link HttpTransport}.
+ */
 public class RestRequest {
+    /** Headers that make a response specific to the user who requested it */
+    private static final String[] AUTH_HEADERS = {"X-Modhash", "Authorization"};
+
     private final String url;
+    private final String host;
     private final String method;
     private final Map<String, String> formArgs;
     private final String[] sensitiveArgs;
-    private final Request request;
-
-    private RestRequest(Builder b) {
-        this.request = b.builder.build();
-        this.url = request.urlString();
-        this.method = request.method();
+    private final Endpoints endpoint;
+    private final Headers headers;
+    private final byte[] body;
+    private final MediaType bodyType;
+    private final RequestPriority priority;
+    private final String tenant;
+    private final Projection projection;
+    private final List<ThingFilter> filters;
+    private final boolean keepRaw;
+    /** How long executing this request may take, -1 to use the client's default, or 0 for no limit */
+    private final long timeoutNanos;
+    /** The {@link System#nanoTime()} at which the current execution of this request expires, if it has a deadline */
+    private final long expiresAt;
+    private final boolean hasExpiry;
+
+    private RestRequest(Builder b, String url) {
+        this.endpoint = b.endpoint;
+        this.url = url;
+        this.host = b.host;
+        this.method = b.method;
+        this.headers = b.headers.build();
+        this.body = b.body;
+        this.bodyType = b.bodyType;
         this.sensitiveArgs = b.sensitiveArgs;
+        this.priority = b.priority;
+        this.tenant = b.tenant;
+        this.projection = b.projection;
+        this.filters = ImmutableList.copyOf(b.filters);
+        this.keepRaw = b.keepRaw;
+        this.timeoutNanos = b.timeoutNanos;
+        this.expiresAt = 0;
+        this.hasExpiry = false;
         if (b.formArgs != null) {
             this.formArgs = ImmutableMap.<String, String>builder().putAll(b.formArgs).build();
         } else {
@@ -36,18 +72,190 @@ public class RestRequest {
 
     }
 
-    public Request getRequest() {
-        return request;
+    private RestRequest(RestRequest other, Headers headers, long expiresAt, boolean hasExpiry) {
+        this.endpoint = other.endpoint;
+        this.url = other.url;
+        this.host = other.host;
+        this.method = other.method;
+        this.headers = headers;
+        this.body = other.body;
+        this.bodyType = other.bodyType;
+        this.sensitiveArgs = other.sensitiveArgs;
+        this.formArgs = other.formArgs;
+        this.priority = other.priority;
+        this.tenant = other.tenant;
+        this.projection = other.projection;
+        this.filters = other.filters;
+        this.keepRaw = other.keepRaw;
+        this.timeoutNanos = other.timeoutNanos;
+        this.expiresAt = expiresAt;
+        this.hasExpiry = hasExpiry;
+    }
+
+    /**
+     * Creates a copy of this request with one more header
+     *
+     * @param name The header's name
+     * @param value The header's value, which replaces any existing header of the same name
+     * @return A new RestRequest
+     */
+    RestRequest withHeader(String name, String value) {
+        return new RestRequest(this, headers.newBuilder().set(name, value).build(), expiresAt, hasExpiry);
+    }
+
+    /**
+     * Creates a copy of this request that expires at the given time
+     *
+     * @param expiresAt The {@link System#nanoTime()} by which the request has to be done
+     * @return A new RestRequest
+     */
+    RestRequest withExpiry(long expiresAt) {
+        return new RestRequest(this, headers, expiresAt, true);
     }
 
     public String getUrl() {
         return url;
     }
 
+    /**
+     * Gets the path of this request's URL
+     * @return The path, for example "/r/pics/about.json"
+     */
+    public String getPath() {
+        return URI.create(url).getRawPath();
+    }
+
+    public Headers getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Gets the last value of a header
+     *
+     * @param name The header's name, which is not case-sensitive
+     * @return The header's value, or null if it was not set
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * Gets the encoded body of this request
+     * @return The body, or null if this request has none
+     */
+    public byte[] getBody() {
+        return body != null ? body.clone() : null;
+    }
+
+    /**
+     * Gets the type of this request's body
+     * @return The body's MediaType, or null if this request has no body
+     */
+    public MediaType getBodyType() {
+        return bodyType;
+    }
+
+    /**
+     * Gets the host this request will be sent to
+     * @return The host, for example "www.reddit.com"
+     */
+    public String getHost() {
+        return host;
+    }
+
     public String getMethod() {
         return method;
     }
 
+    /**
+     * Gets the endpoint this request was built with
+     * @return The endpoint given to {@link Builder#endpoint(Endpoints, String...)}, or null if the path was set
+     *         directly
+     */
+    public Endpoints getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Gets the class this request is queued in when a {@link RequestScheduler} is being used
+     * @return The request's priority. Unless changed, this is {@link RequestPriority#NORMAL}.
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Gets how long executing this request may take, including waiting for the rate limit, connecting, and reading the
+     * response
+     *
+     * @param unit The unit of the returned value
+     * @return The request's deadline, -1 if the client's default deadline applies, or 0 if it has no deadline
+     */
+    public long getDeadline(TimeUnit unit) {
+        return timeoutNanos <= 0 ? timeoutNanos : unit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets how much time is left before this request's deadline. Transports should abort the call once it reaches 0.
+     *
+     * @return The remaining time in nanoseconds (which may be negative once the deadline has passed), or
+     *         {@link Long#MAX_VALUE} if the request is not being executed with a deadline
+     */
+    public long getRemainingNanos() {
+        return hasExpiry ? expiresAt - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets who this request is being sent on behalf of. A {@link RequestScheduler} shares the rate limit fairly between
+     * the tenants of each priority class.
+     *
+     * @return The request's tenant, or null if it has none
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Gets the attributes of things that are kept while the response to this request is parsed
+     * @return The request's projection, or null if every attribute is kept
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Gets the filters that the children of a listing have to pass to be kept while the response is parsed
+     * @return The request's filters, which are empty if every child is kept
+     */
+    public List<ThingFilter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Checks if the body of a JSON response to this request is kept for {@link RestResponse#getRaw()}
+     * @return If the raw body is kept
+     */
+    public boolean isRawKept() {
+        return keepRaw;
+    }
+
+    /**
+     * Gets a string that is the same for two requests if and only if they would return the same data: their method,
+     * URL, and the headers that identify the user sending them. Requests with a body are never identical.
+     *
+     * @return This request's identity
+     */
+    String getIdentity() {
+        StringBuilder sb = new StringBuilder(method).append(' ').append(url);
+        for (String header : AUTH_HEADERS) {
+            String value = headers.get(header);
+            if (value != null) {
+                sb.append('\n').append(header).append(": ").append(value);
+            }
+        }
+        return sb.toString();
+    }
+
     public Map<String, String> getFormArgs() {
         return formArgs;
     }
@@ -71,8 +279,18 @@ public class RestRequest {
         return false;
     }
 
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+
     public static class Builder {
-        private Request.Builder builder;
+        private static final MediaType FORM_TYPE = MediaType.parse("application/x-www-form-urlencoded");
+
+        private String method;
+        private final Headers.Builder headers;
+        private byte[] body;
+        private MediaType bodyType;
 
         private String host;
         private String path;
@@ -82,13 +300,23 @@ public class RestRequest {
         private Endpoints endpoint;
         private Map<String, String> formArgs;
         private String[] sensitiveArgs;
+        private RequestPriority priority;
+        private String tenant;
+        private Projection projection;
+        private List<ThingFilter> filters;
+        private boolean keepRaw;
+        private long timeoutNanos;
 
         /**
          * Instantiates a new RequestBuilder
          */
         public Builder() {
             this.https = false;
-            this.builder = new Request.Builder();
+            this.method = "GET";
+            this.priority = RequestPriority.NORMAL;
+            this.timeoutNanos = -1;
+            this.filters = ImmutableList.of();
+            this.headers = new Headers.Builder();
         }
 
         /**
@@ -162,13 +390,15 @@ public class RestRequest {
         }
 
         public Builder get() {
-            builder.get();
-            return this;
+            return method("GET", null, null);
         }
 
         public Builder delete() {
-            builder.delete();
-            return this;
+            return method("DELETE", null, null);
+        }
+
+        public Builder head() {
+            return method("HEAD", null, null);
         }
 
         public Builder post(Map<String, String> formArgs) {
@@ -180,7 +410,84 @@ public class RestRequest {
         }
 
         public Builder header(String key, String value) {
-            builder.header(key, value);
+            headers.set(key, value);
+            return this;
+        }
+
+        /**
+         * Sets the class this request will be queued in when a {@link RequestScheduler} is being used
+         * @param priority The request's priority
+         * @return This RequestBuilder
+         */
+        public Builder priority(RequestPriority priority) {
+            if (priority == null) {
+                throw new NullPointerException("priority cannot be null");
+            }
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Sets who this request is being sent on behalf of, such as a user of an application or a paginator
+         * @param tenant The request's tenant, or null to share the default tenant
+         * @return This RequestBuilder
+         */
+        public Builder tenant(String tenant) {
+            this.tenant = tenant;
+            return this;
+        }
+
+        /**
+         * Sets which attributes of things are kept while the response is parsed. Everything else is skipped.
+         * @param projection The projection, or null to keep every attribute
+         * @return This RequestBuilder
+         */
+        public Builder projection(Projection projection) {
+            this.projection = projection;
+            return this;
+        }
+
+        /**
+         * Sets the filters that the children of a listing have to pass to be kept. Each child is tested as soon as it
+         * has been read, and the children that are rejected are left out of the response's JSON.
+         * @param filters The filters, tested in order
+         * @return This RequestBuilder
+         */
+        public Builder filters(List<ThingFilter> filters) {
+            if (filters == null) {
+                throw new NullPointerException("filters cannot be null");
+            }
+            this.filters = filters;
+            return this;
+        }
+
+        /**
+         * Sets whether the body of a JSON response is kept as it was received, so that it can be returned by {@link
+         * RestResponse#getRaw()}. It is not kept by default, because it would stay in memory next to the parsed tree,
+         * along with every attribute left out by the projection.
+         * @param keepRaw If the raw body should be kept
+         * @return This RequestBuilder
+         */
+        public Builder keepRaw(boolean keepRaw) {
+            this.keepRaw = keepRaw;
+            return this;
+        }
+
+        /**
+         * Sets how long executing this request may take in total, from waiting for the rate limit to reading the last
+         * byte of the response. Once it is over, the request fails with a {@link DeadlineExceededException}. Overrides
+         * the client's default deadline.
+         *
+         * @param timeout The deadline, or 0 for no deadline
+         * @param unit The unit of {@code timeout}
+         * @return This RequestBuilder
+         * @see RestClient#setDefaultDeadline(long, TimeUnit)
+         */
+        public Builder deadline(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout cannot be negative");
+            }
+            this.timeoutNanos = unit.toNanos(timeout);
             return this;
         }
 
@@ -190,18 +497,23 @@ public class RestRequest {
         }
 
         private Builder formMethod(String method, Map<String, String> formArgs) {
-            FormEncodingBuilder formBuilder = new FormEncodingBuilder();
-            for (Map.Entry<String, String> entry : formArgs.entrySet()) {
-                formBuilder.add(entry.getKey(), entry.getValue());
-            }
-
-            builder.method(method, formBuilder.build());
+            // Same encoding as a query string, minus the leading "?"
+            String form = generateQueryString(formArgs);
+            byte[] encoded = (form.isEmpty() ? form : form.substring(1)).getBytes(StandardCharsets.UTF_8);
+            method(method, encoded, FORM_TYPE);
 
             this.formArgs = formArgs;
             return this;
 
         }
 
+        private Builder method(String method, byte[] body, MediaType bodyType) {
+            this.method = method;
+            this.body = body;
+            this.bodyType = bodyType;
+            return this;
+        }
+
         /**
          * Generates a valid query string based on the given arguments
          * @param args The arguments for the query string
@@ -291,9 +603,7 @@ public class RestRequest {
                 url.append(generateQueryString(query));
             }
 
-            builder.url(url.toString());
-
-            return new RestRequest(this);
+            return new RestRequest(this, url.toString());
         }
 
         /**
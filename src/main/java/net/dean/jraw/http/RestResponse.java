@@ -1,61 +1,84 @@
 package net.dean.jraw.http;
 
-import com.squareup.okhttp.Headers;
-import com.squareup.okhttp.MediaType;
-import com.squareup.okhttp.Response;
+import com.google.common.collect.ImmutableList;
 import net.dean.jraw.JrawUtils;
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class is used to show the result of a request to a RESTful web service, such as Reddit's JSON API.
  */
 public class RestResponse {
-    /** The ObjectMapper used to read a JSON tree into a JsonNode */
-    private static final ObjectMapper objectMapper = new ObjectMapper();
     /** A list of all the headers received from the server */
     protected final Headers headers;
     /** The root node of the JSON */
     protected final JsonNode rootNode;
-    /** The raw data of the response's content */
+    /** The raw data of the response's content, or null for JSON responses whose request did not keep it */
     protected final String raw;
     /** The Content-Type returned from the response */
     protected final MediaType type;
 
     /**
-     * Instantiates a new RedditResponse
+     * Instantiates a new RedditResponse. JSON responses are parsed token by token while the body is being read, so no
+     * tree is built for the attributes left out by the request's projection or for the children of a listing rejected
+     * by its filters, and strings repeated throughout the document are only kept once. The body itself is only kept
+     * for {@link #getRaw()} if the request asked for it with {@link RestRequest.Builder#keepRaw(boolean)}.
      *
      * @param response The Response that will be encapsulated by this object
      */
-    public RestResponse(Response response) {
-        this.headers = response.headers();
-        this.raw = readContent(response);
-        this.type = MediaType.parse(response.header("Content-Type"));
+    public RestResponse(HttpResponse response) {
+        this.headers = response.getHeaders();
+        this.type = response.getType();
 
-        if (JrawUtils.typeComparison(type, MediaTypes.JSON.type()) && !raw.isEmpty()) {
-            this.rootNode = readTree(raw);
+        if (type != null && JrawUtils.typeComparison(type, MediaTypes.JSON.type())) {
+            RestRequest request = response.getRequest();
+            if (request != null && request.isRawKept()) {
+                ByteArrayOutputStream received = new ByteArrayOutputStream();
+                this.rootNode = readTree(request, new CopyingInputStream(response.getBody(), received));
+                this.raw = decode(received, type.charset(StandardCharsets.UTF_8));
+            } else {
+                this.rootNode = readTree(request, response.getBody());
+                this.raw = null;
+            }
         } else {
             // Init JSON-related final variables
             this.rootNode = null;
+            this.raw = readContent(response);
         }
     }
 
-    private String readContent(Response r) {
+    private static String decode(ByteArrayOutputStream received, Charset charset) {
         try {
-            return r.body().string();
+            // Decodes straight from the stream's buffer, without copying the bytes first
+            return received.toString(charset.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Unsupported charset: " + charset, e);
+        }
+    }
+
+    private String readContent(HttpResponse r) {
+        try {
+            return r.readString();
         } catch (IOException e) {
             JrawUtils.logger().error("Could not read the body of the given response");
             return null;
         }
     }
 
-    private JsonNode readTree(String raw) {
+    private JsonNode readTree(RestRequest request, InputStream in) {
         try {
-            return objectMapper.readTree(raw);
+            return request != null ?
+                    JsonTreeReader.read(in, request.getProjection(), request.getFilters()) :
+                    JsonTreeReader.read(in, null, ImmutableList.of());
         } catch (IOException e) {
-            JrawUtils.logger().error("Unable to parse JSON: \"{}\"", raw.replace("\n", "").replace("\r", ""));
+            JrawUtils.logger().error("Unable to parse JSON", e);
             return null;
         }
     }
@@ -77,8 +100,11 @@ public class RestResponse {
     }
 
     /**
-     * Gets the raw response data returned from the request
-     * @return The raw data of the request
+     * Gets the raw response data returned from the request. If the response was JSON, then this is the body exactly as
+     * it was received, including the attributes and children that were left out of {@link #getJson()}, but only if
+     * the request was built with {@link RestRequest.Builder#keepRaw(boolean)}.
+     *
+     * @return The raw data of the request, or null if the response was JSON and its body was not kept
      */
     public String getRaw() {
         return raw;
@@ -89,8 +115,49 @@ public class RestResponse {
         return "RestResponse {" +
                 "headers=" + headers +
                 ", rootNode=" + rootNode +
-                ", raw='" + raw + '\'' +
+                ", raw='" + getRaw() + '\'' +
                 ", type=" + type +
                 '}';
     }
+
+    /** Copies everything read from a stream, including whatever follows the JSON document once it is closed */
+    private static final class CopyingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream copy;
+
+        private CopyingInputStream(InputStream in, ByteArrayOutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                copy.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The parser stops at the end of the document, so the rest of the body is read here
+            try {
+                byte[] buffer = new byte[4096];
+                while (read(buffer, 0, buffer.length) != -1) {
+                    // The bytes are copied by read()
+                }
+            } finally {
+                super.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,270 @@
+package net.dean.jraw.http;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class decides whether a failed request should be sent again, and how long to wait before doing so. Only
+ * idempotent requests are retried, and only when the server returned one of the retryable status codes (by default 429,
+ * 500, 502, 503, and 504) or the request could not be sent at all. The delay grows exponentially with every attempt and
+ * is randomized ("full jitter") so that many clients failing at once do not retry in lockstep. A {@code Retry-After}
+ * header sent by the server always takes precedence.
+ *
+ * <p>Retries are limited by a budget shared by every request: each request adds a fraction of a retry to the budget
+ * and each retry takes a whole one out, so that during an outage the amount of retries stays proportional to the amount
+ * of regular traffic instead of multiplying it.
+ *
+ * @see RestClient#setRetryPolicy(RetryPolicy)
+ */
+public class RetryPolicy {
+    private static final Set<String> IDEMPOTENT_VERBS = ImmutableSet.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long maxRetryAfterNanos;
+    private final Set<Integer> retryableCodes;
+    private final boolean retryTransportErrors;
+    private final double budgetRatio;
+    private final double maxBudget;
+    /** The amount of retries that can currently be made. Guarded by this. */
+    private double budget;
+
+    private RetryPolicy(Builder b) {
+        this.maxAttempts = b.maxAttempts;
+        this.baseDelayNanos = b.baseDelayNanos;
+        this.maxDelayNanos = b.maxDelayNanos;
+        this.maxRetryAfterNanos = b.maxRetryAfterNanos;
+        this.retryableCodes = ImmutableSet.copyOf(b.retryableCodes);
+        this.retryTransportErrors = b.retryTransportErrors;
+        this.budgetRatio = b.budgetRatio;
+        this.maxBudget = b.maxBudget;
+        this.budget = b.maxBudget;
+    }
+
+    /**
+     * Checks if a request can be sent more than once without changing its outcome. The verb of the request's endpoint is
+     * used if it has one, and the HTTP method otherwise.
+     *
+     * @param request The request to check
+     * @return If the request is idempotent
+     */
+    public boolean isIdempotent(RestRequest request) {
+        String verb = request.getEndpoint() != null ?
+                request.getEndpoint().getEndpoint().getVerb() :
+                request.getMethod();
+        return IDEMPOTENT_VERBS.contains(verb.toUpperCase());
+    }
+
+    /**
+     * Notifies this policy that a new request is about to be sent for the first time, which adds to the retry budget
+     */
+    public synchronized void onRequest() {
+        budget = Math.min(maxBudget, budget + budgetRatio);
+    }
+
+    /**
+     * Decides whether a failed attempt should be retried. If it should, one retry is taken out of the budget.
+     *
+     * @param request The request that failed
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @param response The response the server sent back, or null if the request could not be sent
+     * @return The amount of nanoseconds to wait before the next attempt, or -1 if the request should not be retried
+     */
+    public long getRetryDelay(RestRequest request, int attempt, HttpResponse response) {
+        if (attempt >= maxAttempts || !isIdempotent(request)) {
+            return -1;
+        }
+        if (response == null ? !retryTransportErrors : !retryableCodes.contains(response.getCode())) {
+            return -1;
+        }
+
+        long delay = ThreadLocalRandom.current().nextLong(backoff(attempt) + 1);
+        if (response != null) {
+            long retryAfter = parseRetryAfter(response.getHeader("Retry-After"));
+            if (retryAfter > maxRetryAfterNanos) {
+                // Better to fail now than to block for that long
+                return -1;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+
+        return withdraw() ? delay : -1;
+    }
+
+    private long backoff(int attempt) {
+        // Avoid overflowing for large attempt numbers
+        int shift = Math.min(attempt - 1, 30);
+        long backoff = baseDelayNanos << shift;
+        return backoff < 0 || backoff > maxDelayNanos ? maxDelayNanos : backoff;
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * Gets the amount of retries that can currently be made
+     * @return The current retry budget
+     */
+    public synchronized double getBudget() {
+        return budget;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either an amount of seconds or an HTTP date
+     *
+     * @param value The header's value
+     * @return The amount of nanoseconds to wait, or 0 if there is no header or it could not be parsed
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null) {
+            return 0;
+        }
+        value = value.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not a number, try a date
+        }
+        try {
+            Instant date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, date.toEpochMilli() - System.currentTimeMillis()));
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * This class is used to configure a new RetryPolicy
+     */
+    public static class Builder {
+        private int maxAttempts;
+        private long baseDelayNanos;
+        private long maxDelayNanos;
+        private long maxRetryAfterNanos;
+        private Set<Integer> retryableCodes;
+        private boolean retryTransportErrors;
+        private double budgetRatio;
+        private double maxBudget;
+
+        /**
+         * Instantiates a new Builder. By default, a request is attempted at most three times, the delay starts at one
+         * second and is capped at thirty, a Retry-After of over a minute is not waited for, and retries may make up
+         * about 10% of all requests with a reserve of ten.
+         */
+        public Builder() {
+            this.maxAttempts = 3;
+            this.baseDelayNanos = TimeUnit.SECONDS.toNanos(1);
+            this.maxDelayNanos = TimeUnit.SECONDS.toNanos(30);
+            this.maxRetryAfterNanos = TimeUnit.MINUTES.toNanos(1);
+            this.retryableCodes = ImmutableSet.of(429, 500, 502, 503, 504);
+            this.retryTransportErrors = true;
+            this.budgetRatio = 0.1;
+            this.maxBudget = 10;
+        }
+
+        /**
+         * Sets the maximum amount of times a request will be sent, including the first attempt
+         *
+         * @param maxAttempts The maximum amount of attempts. Must be at least 1.
+         * @return This Builder
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the delays between attempts. The delay before the n-th retry is a random amount of time between zero and
+         * {@code baseDelay * 2^(n-1)}, but no more than {@code maxDelay}.
+         *
+         * @param baseDelay The delay before the first retry
+         * @param maxDelay The longest delay possible
+         * @param unit The unit of both delays
+         * @return This Builder
+         */
+        public Builder backoff(long baseDelay, long maxDelay, TimeUnit unit) {
+            if (baseDelay < 0 || maxDelay < baseDelay) {
+                throw new IllegalArgumentException("Delays must not be negative and baseDelay must not exceed maxDelay");
+            }
+            this.baseDelayNanos = unit.toNanos(baseDelay);
+            this.maxDelayNanos = unit.toNanos(maxDelay);
+            return this;
+        }
+
+        /**
+         * Sets the longest Retry-After the server can ask for before the request is given up on
+         *
+         * @param duration The amount of time
+         * @param unit The unit of {@code duration}
+         * @return This Builder
+         */
+        public Builder maxRetryAfter(long duration, TimeUnit unit) {
+            this.maxRetryAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the status codes that will be retried
+         *
+         * @param codes The HTTP status codes
+         * @return This Builder
+         */
+        public Builder retryableCodes(Integer... codes) {
+            this.retryableCodes = ImmutableSet.copyOf(codes);
+            return this;
+        }
+
+        /**
+         * Sets whether requests that could not be sent at all (for example, because the connection was reset) will be
+         * retried
+         *
+         * @param retryTransportErrors If transport errors should be retried
+         * @return This Builder
+         */
+        public Builder retryTransportErrors(boolean retryTransportErrors) {
+            this.retryTransportErrors = retryTransportErrors;
+            return this;
+        }
+
+        /**
+         * Sets the retry budget
+         *
+         * @param ratio The fraction of a retry that each request adds to the budget. A ratio of 0.1 means that retries
+         *              will make up about 10% of all requests while the server is failing.
+         * @param maxBudget The amount of retries that can be saved up, which is also the initial budget
+         * @return This Builder
+         */
+        public Builder budget(double ratio, double maxBudget) {
+            if (ratio < 0 || maxBudget < 0) {
+                throw new IllegalArgumentException("ratio and maxBudget must not be negative");
+            }
+            this.budgetRatio = ratio;
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
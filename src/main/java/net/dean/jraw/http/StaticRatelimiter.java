@@ -0,0 +1,82 @@
+package net.dean.jraw.http;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class spaces requests out evenly at a fixed rate, regardless of what the server reports. Permits cannot be
+ * saved up, so a client that has been idle will not be able to send a burst of requests.
+ */
+public class StaticRatelimiter implements Ratelimiter {
+    private final Ticker ticker;
+    private final long intervalNanos;
+    /** The time (according to {@link #ticker}) at which the next permit becomes available */
+    private long nextFreeNanos;
+
+    /**
+     * Instantiates a new StaticRatelimiter
+     *
+     * @param requestsPerMinute The amount of requests that will be allowed in one minute. Must be greater than 0.
+     */
+    public StaticRatelimiter(double requestsPerMinute) {
+        this(requestsPerMinute, Ticker.systemTicker());
+    }
+
+    /**
+     * Instantiates a new StaticRatelimiter
+     *
+     * @param requestsPerMinute The amount of requests that will be allowed in one minute. Must be greater than 0.
+     * @param ticker The source of time
+     */
+    public StaticRatelimiter(double requestsPerMinute, Ticker ticker) {
+        if (requestsPerMinute <= 0) {
+            throw new IllegalArgumentException("requestsPerMinute must be greater than 0");
+        }
+        this.ticker = ticker;
+        this.intervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / requestsPerMinute);
+        this.nextFreeNanos = ticker.read();
+    }
+
+    @Override
+    public synchronized long reserve() {
+        long now = ticker.read();
+        long wait = Math.max(0, nextFreeNanos - now);
+        nextFreeNanos = Math.max(nextFreeNanos, now) + intervalNanos;
+        return wait;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire() {
+        long now = ticker.read();
+        if (nextFreeNanos > now) {
+            return false;
+        }
+        nextFreeNanos = now + intervalNanos;
+        return true;
+    }
+
+    @Override
+    public synchronized void release() {
+        nextFreeNanos = Math.max(ticker.read(), nextFreeNanos - intervalNanos);
+    }
+
+    @Override
+    public void update(Headers headers) {
+        // The rate never changes
+    }
+
+    @Override
+    public synchronized RatelimitState getState() {
+        return new RatelimitState(false, -1, -1, -1, intervalNanos);
+    }
+
+    /**
+     * Gets the amount of time between two permits
+     *
+     * @return The interval in nanoseconds
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+}
@@ -0,0 +1,269 @@
+package net.dean.jraw.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class holds the connection settings of an {@link HttpTransport}: how many connections are kept alive and for
+ * how long, the timeouts, the protocols that may be negotiated, and whether responses are compressed.
+ *
+ * <pre>
+ * reddit.setTransportConfig(new TransportConfig.Builder()
+ *         .pool(10, 2, TimeUnit.MINUTES)
+ *         .readTimeout(30, TimeUnit.SECONDS)
+ *         .preconnect(RedditClient.HOST, RedditClient.HOST_OAUTH)
+ *         .build());
+ * </pre>
+ *
+ * @see RestClient#setTransportConfig(TransportConfig)
+ * @see OkHttpTransport#OkHttpTransport(TransportConfig)
+ * @see UrlConnectionTransport#UrlConnectionTransport(TransportConfig)
+ */
+public final class TransportConfig {
+    private final int maxIdleConnections;
+    private final long keepAliveMillis;
+    private final long connectTimeoutMillis;
+    private final long readTimeoutMillis;
+    private final long writeTimeoutMillis;
+    private final long callTimeoutMillis;
+    private final boolean preferHttp2;
+    private final boolean gzip;
+    private final List<String> preconnectHosts;
+
+    private TransportConfig(Builder b) {
+        this.maxIdleConnections = b.maxIdleConnections;
+        this.keepAliveMillis = b.keepAliveMillis;
+        this.connectTimeoutMillis = b.connectTimeoutMillis;
+        this.readTimeoutMillis = b.readTimeoutMillis;
+        this.writeTimeoutMillis = b.writeTimeoutMillis;
+        this.callTimeoutMillis = b.callTimeoutMillis;
+        this.preferHttp2 = b.preferHttp2;
+        this.gzip = b.gzip;
+        this.preconnectHosts = Collections.unmodifiableList(new ArrayList<>(b.preconnectHosts));
+    }
+
+    /**
+     * Gets the amount of idle connections kept open for reuse
+     * @return The maximum amount of idle connections
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Gets how long an idle connection is kept open, in milliseconds
+     * @return How long an idle connection is kept open, in milliseconds
+     */
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * Gets how long to wait for a connection to be established, in milliseconds
+     * @return The connect timeout in milliseconds, or 0 for no timeout
+     */
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * Gets how long to wait for data to arrive once connected, in milliseconds
+     * @return The read timeout in milliseconds, or 0 for no timeout
+     */
+    public long getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * Gets how long to wait for the request's body to be written, in milliseconds
+     * @return The write timeout in milliseconds, or 0 for no timeout
+     */
+    public long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
+
+    /**
+     * Gets how long a whole call may take, from connecting to reading the last byte of the body, in milliseconds
+     * @return The call timeout in milliseconds, or 0 for no timeout
+     */
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * Checks if HTTP/2 will be offered to servers before older protocols
+     * @return If HTTP/2 is preferred
+     */
+    public boolean isPreferringHttp2() {
+        return preferHttp2;
+    }
+
+    /**
+     * Checks if responses are requested gzipped and transparently decompressed as they are read
+     * @return If gzip is enabled
+     */
+    public boolean isGzipEnabled() {
+        return gzip;
+    }
+
+    /**
+     * Gets the hosts a connection is opened to as soon as the transport is put in use
+     * @return An unmodifiable list of hosts
+     */
+    public List<String> getPreconnectHosts() {
+        return preconnectHosts;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportConfig {" +
+                "maxIdleConnections=" + maxIdleConnections +
+                ", keepAliveMillis=" + keepAliveMillis +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", readTimeoutMillis=" + readTimeoutMillis +
+                ", writeTimeoutMillis=" + writeTimeoutMillis +
+                ", callTimeoutMillis=" + callTimeoutMillis +
+                ", preferHttp2=" + preferHttp2 +
+                ", gzip=" + gzip +
+                ", preconnectHosts=" + preconnectHosts +
+                '}';
+    }
+
+    /**
+     * This class is used to create a new TransportConfig
+     */
+    public static class Builder {
+        private int maxIdleConnections;
+        private long keepAliveMillis;
+        private long connectTimeoutMillis;
+        private long readTimeoutMillis;
+        private long writeTimeoutMillis;
+        private long callTimeoutMillis;
+        private boolean preferHttp2;
+        private boolean gzip;
+        private List<String> preconnectHosts;
+
+        /**
+         * Instantiates a new Builder. By default, up to 5 idle connections are kept alive for 5 minutes, there are no
+         * timeouts, responses are gzipped, and no connections are opened in advance.
+         */
+        public Builder() {
+            this.maxIdleConnections = 5;
+            this.keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+            this.gzip = true;
+            this.preconnectHosts = new ArrayList<>();
+        }
+
+        /**
+         * Sets how many idle connections are kept open, and for how long. Only supported by {@link OkHttpTransport};
+         * HttpURLConnection's pool is configured JVM-wide by the "http.keepAlive" and "http.maxConnections" system
+         * properties.
+         *
+         * @param maxIdleConnections The maximum amount of idle connections
+         * @param keepAlive How long an idle connection is kept open
+         * @param unit The unit of {@code keepAlive}
+         * @return This Builder
+         */
+        public Builder pool(int maxIdleConnections, long keepAlive, TimeUnit unit) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections cannot be negative");
+            }
+            if (keepAlive < 0) {
+                throw new IllegalArgumentException("keepAlive cannot be negative");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = timeout(timeout, unit);
+            return this;
+        }
+
+        public Builder readTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = timeout(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for the request's body to be written. HttpURLConnection has no write timeout, so
+         * {@link UrlConnectionTransport} ignores this.
+         *
+         * @param timeout The write timeout, or 0 for no timeout
+         * @param unit The unit of {@code timeout}
+         * @return This Builder
+         */
+        public Builder writeTimeout(long timeout, TimeUnit unit) {
+            this.writeTimeoutMillis = timeout(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets how long a whole call may take, from connecting to reading the last byte of the body. Once it is over,
+         * the connection is closed and reading from it fails with an IOException.
+         *
+         * @param timeout The call timeout, or 0 for no timeout
+         * @param unit The unit of {@code timeout}
+         * @return This Builder
+         */
+        public Builder callTimeout(long timeout, TimeUnit unit) {
+            this.callTimeoutMillis = timeout(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Sets whether HTTP/2 is offered to servers before older protocols. Servers that do not support it are still
+         * talked to over HTTP/1.1. Only supported by {@link OkHttpTransport}.
+         *
+         * @param preferHttp2 If HTTP/2 should be preferred
+         * @return This Builder
+         */
+        public Builder preferHttp2(boolean preferHttp2) {
+            this.preferHttp2 = preferHttp2;
+            return this;
+        }
+
+        /**
+         * Sets whether responses are requested gzipped. Compressed bodies are decompressed as they are read, so they
+         * are never held in memory in full.
+         *
+         * @param gzip If gzip should be enabled
+         * @return This Builder
+         */
+        public Builder gzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * Adds hosts to open a connection to (including the TLS handshake) as soon as the transport is put in use, so
+         * that the first real request does not pay for it
+         *
+         * @param hosts The hosts to connect to
+         * @return This Builder
+         */
+        public Builder preconnect(String... hosts) {
+            for (String host : hosts) {
+                if (host == null) {
+                    throw new NullPointerException("host cannot be null");
+                }
+                preconnectHosts.add(host);
+            }
+            return this;
+        }
+
+        public TransportConfig build() {
+            return new TransportConfig(this);
+        }
+
+        private static long timeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new IllegalArgumentException("timeout cannot be negative");
+            }
+            return unit.toMillis(timeout);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package net.dean.jraw.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This class sends requests using {@link HttpURLConnection}, so it has no dependencies outside of the JDK. Since
+ * HttpURLConnection has no asynchronous API, asynchronous requests are run on virtual threads if the JVM supports them,
+ * and on a cached pool of daemon threads otherwise.
+ *
+ * <p>Connections are kept alive and reused by the JVM, which can be configured with the "http.keepAlive" and
+ * "http.maxConnections" system properties.
+ *
+ * @see VirtualThreads
+ */
+public class UrlConnectionTransport implements HttpTransport {
+    private final Executor executor;
+    private volatile int connectTimeout;
+    private volatile int readTimeout;
+    private volatile long callTimeout;
+    private volatile boolean gzip;
+
+    /**
+     * Instantiates a new UrlConnectionTransport that, like {@link OkHttpTransport}, asks for gzipped responses
+     */
+    public UrlConnectionTransport() {
+        this(VirtualThreads.newExecutor("jraw-urlconnection-"));
+    }
+
+    /**
+     * Instantiates a new UrlConnectionTransport that runs asynchronous requests on the given Executor and asks for
+     * gzipped responses
+     * @param executor The Executor that will block on asynchronous requests
+     */
+    public UrlConnectionTransport(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor cannot be null");
+        }
+        this.executor = executor;
+        this.gzip = true;
+    }
+
+    /**
+     * Instantiates a new UrlConnectionTransport configured by the given TransportConfig. The pool, write timeout, and
+     * HTTP/2 settings are not supported by HttpURLConnection and are ignored.
+     *
+     * @param config The connection settings
+     */
+    public UrlConnectionTransport(TransportConfig config) {
+        this();
+        setConnectTimeout(config.getConnectTimeoutMillis());
+        setReadTimeout(config.getReadTimeoutMillis());
+        this.callTimeout = config.getCallTimeoutMillis();
+        this.gzip = config.isGzipEnabled();
+    }
+
+    @Override
+    public HttpResponse execute(RestRequest request) throws IOException {
+        return execute(request, null);
+    }
+
+    /**
+     * Sends a request
+     *
+     * @param request The request to send
+     * @param cancelled Completed as soon as the call should be aborted, or null if it cannot be cancelled
+     * @return The server's response
+     * @throws IOException If the request could not be sent or was aborted
+     */
+    private HttpResponse execute(RestRequest request, CompletableFuture<?> cancelled) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(request.getUrl()).openConnection();
+        // HttpURLConnection can't always be aborted while it's blocked reading, so make sure no read outlasts the call
+        long callLimit = CallTimer.limitMillis(request, callTimeout);
+        conn.setConnectTimeout(limit(connectTimeout, callLimit));
+        conn.setReadTimeout(limit(readTimeout, callLimit));
+        conn.setInstanceFollowRedirects(true);
+        // Cookies are managed by the RestClient
+        conn.setUseCaches(false);
+        conn.setRequestMethod(request.getMethod());
+
+        Headers headers = request.getHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            conn.addRequestProperty(headers.name(i), headers.value(i));
+        }
+        // Only decompress responses we asked to be compressed, and leave the body alone if the caller asked itself
+        boolean decompress = gzip && headers.get("Accept-Encoding") == null;
+        if (decompress) {
+            conn.setRequestProperty("Accept-Encoding", "gzip");
+        }
+
+        Future<?> timeout = CallTimer.start(conn::disconnect, request, callTimeout);
+        if (cancelled != null) {
+            // Runs right away if the call was cancelled before the connection was opened
+            cancelled.whenComplete((ignored, ex) -> conn.disconnect());
+        }
+        try {
+            return send(request, conn, decompress, timeout);
+        } catch (IOException | RuntimeException e) {
+            CallTimer.cancel(timeout);
+            throw e;
+        }
+    }
+
+    private HttpResponse send(RestRequest request, HttpURLConnection conn, boolean decompress, Future<?> timeout)
+            throws IOException {
+        byte[] body = request.getBody();
+        if (body != null) {
+            conn.setDoOutput(true);
+            if (request.getBodyType() != null) {
+                conn.setRequestProperty("Content-Type", request.getBodyType().toString());
+            }
+            conn.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+        }
+
+        try {
+            int code = conn.getResponseCode();
+            boolean gzipped = decompress && "gzip".equalsIgnoreCase(conn.getContentEncoding()) &&
+                    hasBody(request, code);
+            Headers.Builder responseHeaders = new Headers.Builder();
+            for (Map.Entry<String, List<String>> entry : conn.getHeaderFields().entrySet()) {
+                // The status line is stored under the null key
+                if (entry.getKey() == null) {
+                    continue;
+                }
+                // The decompressed body has neither the encoding nor the length the server sent
+                if (gzipped && (entry.getKey().equalsIgnoreCase("Content-Encoding") ||
+                        entry.getKey().equalsIgnoreCase("Content-Length"))) {
+                    continue;
+                }
+                for (String value : entry.getValue()) {
+                    responseHeaders.add(entry.getKey(), value);
+                }
+            }
+
+            InputStream in = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            if (in == null) {
+                in = new ByteArrayInputStream(new byte[0]);
+            } else if (gzipped) {
+                // Decompresses as the body is read, so the whole body never has to be held in memory
+                in = new GZIPInputStream(in);
+            }
+            in = CallTimer.cancelOnClose(in, timeout);
+            // Closing the body lets the connection be reused
+            return new HttpResponse(request, code, conn.getResponseMessage(), responseHeaders.build(), in);
+        } catch (IOException | RuntimeException e) {
+            conn.disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        // Only completed by cancelling the returned future, which then aborts the call
+        CompletableFuture<Void> cancelled = new CompletableFuture<>();
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                cancelled.complete(null);
+            }
+        });
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                HttpResponse response = execute(request, cancelled);
+                if (!future.complete(response)) {
+                    response.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void setConnectTimeout(long milliseconds) {
+        this.connectTimeout = (int) Math.min(Integer.MAX_VALUE, milliseconds);
+    }
+
+    @Override
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets how long to wait for data once connected
+     * @param milliseconds The read timeout in milliseconds, or 0 for no timeout
+     */
+    public void setReadTimeout(long milliseconds) {
+        this.readTimeout = (int) Math.min(Integer.MAX_VALUE, milliseconds);
+    }
+
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Lowers a timeout to the call's limit
+     *
+     * @param timeout A timeout in milliseconds, or 0 for none
+     * @param callLimit The call's limit in milliseconds, or 0 for none
+     * @return The stricter of the two
+     */
+    private static int limit(int timeout, long callLimit) {
+        if (callLimit <= 0) {
+            return timeout;
+        }
+        int limit = (int) Math.min(Integer.MAX_VALUE, callLimit);
+        return timeout > 0 ? Math.min(timeout, limit) : limit;
+    }
+
+    private static boolean hasBody(RestRequest request, int code) {
+        return !request.getMethod().equals("HEAD") && code != 204 && code != 304 && (code < 100 || code >= 200);
+    }
+}
@@ -0,0 +1,97 @@
+package net.dean.jraw.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.dean.jraw.JrawUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class creates Executors that run every task on its own virtual thread when the JVM supports them (Java 21 and
+ * later), and on a cached pool of daemon platform threads otherwise. JRAW is compiled for Java 8, so virtual threads
+ * are looked up reflectively.
+ *
+ * <p>Blocking calls such as {@link RestClient#execute(RestRequest)} are cheap on a virtual thread: while it waits for
+ * the rate limit or for the server, its carrier thread is free to run other tasks. None of the locks held by JRAW while
+ * a request is executed are held across blocking operations, so virtual threads are never pinned by JRAW itself.
+ */
+public final class VirtualThreads {
+    /** Thread.ofVirtual(), or null if virtual threads are not supported */
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            // Make sure they can actually be used, since they may be a preview feature that has not been enabled
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+        // no instances
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads
+     * @return If {@link #newExecutor(String)} will create virtual threads
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an Executor that starts a new virtual thread for every task, or that runs tasks on a cached pool of daemon
+     * threads if virtual threads are not available. Neither has a limit on the amount of tasks run at the same time.
+     *
+     * @param namePrefix The prefix of the threads' names, for example "jraw-worker-"
+     * @return A new Executor
+     */
+    public static Executor newExecutor(String namePrefix) {
+        ThreadFactory factory = newVirtualThreadFactory(namePrefix);
+        if (factory != null) {
+            return command -> factory.newThread(command).start();
+        }
+        return newPlatformExecutor(namePrefix);
+    }
+
+    /**
+     * Creates an Executor that runs tasks on a cached pool of daemon platform threads
+     *
+     * @param namePrefix The prefix of the threads' names
+     * @return A new Executor
+     */
+    static Executor newPlatformExecutor(String namePrefix) {
+        return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(namePrefix + "%d")
+                .build());
+    }
+
+    private static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            JrawUtils.logger().warn("Could not create a virtual thread factory", e);
+            return null;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package net.dean.jraw.managers;
 
-import com.squareup.okhttp.FormEncodingBuilder;
 import net.dean.jraw.*;
 import net.dean.jraw.http.AbstractManager;
 import net.dean.jraw.http.NetworkException;
@@ -6,6 +6,7 @@ import net.dean.jraw.http.NetworkException;
 import net.dean.jraw.http.RedditResponse;
 import net.dean.jraw.http.RestRequest;
 import net.dean.jraw.models.MultiReddit;
+import net.dean.jraw.models.Projection;
 import net.dean.jraw.models.RenderStringPair;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
@@ -89,6 +90,7 @@ public class MultiRedditManager extends AbstractManager {
                 )).build();
 
         execute(request);
+        invalidate(multiName);
     }
 
     /**
@@ -110,6 +112,7 @@ public class MultiRedditManager extends AbstractManager {
                 .build();
 
         execute(request);
+        invalidate(multiName);
     }
 
     @EndpointImplementation(Endpoints.MULTI_MULTIPATH_COPY)
@@ -158,6 +161,8 @@ public class MultiRedditManager extends AbstractManager {
                 )).build();
 
         RedditResponse response = execute(request);
+        invalidate(prevName);
+        invalidate(newName);
         try {
             checkForError(response.getJson());
         } catch (ApiException e) {
@@ -185,6 +190,7 @@ public class MultiRedditManager extends AbstractManager {
                         "multipath", getMultiPath(multiName)
                 )).build();
         RedditResponse response = execute(request);
+        invalidate(multiName);
         JsonNode dataNode = response.getJson().get("data");
 
         return new RenderStringPair(dataNode.get("body_md").asText(), dataNode.get("body_html").asText());
@@ -234,6 +240,7 @@ public class MultiRedditManager extends AbstractManager {
         }
 
         RedditResponse response = execute(request.build());
+        invalidate(name);
         JsonNode result = response.getJson();
         checkForError(result);
     }
@@ -252,6 +259,7 @@ public class MultiRedditManager extends AbstractManager {
                 .delete()
                 .build();
         execute(request);
+        invalidate(name);
         // This endpoint does not return any JSON data, so we only have the HTTP code to go off of.
     }
 
@@ -280,7 +288,26 @@ public class MultiRedditManager extends AbstractManager {
             Endpoints.MULTI_MULTIPATH_R_SRNAME_GET
     })
     public MultiReddit get(String owner, String multiName) throws NetworkException, ApiException {
+        ModelCache cache = reddit.getModelCache();
+        Projection projection = reddit.getProjection();
+        if (cache == null || projection != null) {
+            // Projected multireddits are never cached, so that invalidate() can find every cached copy
+            return fetch(owner, multiName, projection);
+        }
+
+        String key = ModelCache.key(reddit.getAuthenticatedUser(), Endpoints.MULTI_MULTIPATH_GET, owner, multiName);
+        MultiReddit multi = cache.getIfPresent(key, MultiReddit.class);
+        if (multi == null) {
+            multi = fetch(owner, multiName, null);
+            cache.put(key, multi, () -> fetch(owner, multiName, null));
+        }
+        return multi;
+    }
+
+    private MultiReddit fetch(String owner, String multiName, Projection projection)
+            throws NetworkException, ApiException {
         JsonNode node = execute(request()
+                .projection(projection)
                 .endpoint(Endpoints.MULTI_MULTIPATH_GET, getMultiPath(owner, multiName).substring(1))
                 .build()).getJson();
 
@@ -345,6 +372,18 @@ public class MultiRedditManager extends AbstractManager {
         return String.format("/user/%s/m/%s", owner, multiName);
     }
 
+    /**
+     * Removes one of the logged-in user's multireddits from the ModelCache after it has been modified
+     * @param multiName The name of the multireddit
+     */
+    private void invalidate(String multiName) {
+        ModelCache cache = reddit.getModelCache();
+        if (cache != null) {
+            String owner = reddit.getAuthenticatedUser();
+            cache.invalidate(ModelCache.key(owner, Endpoints.MULTI_MULTIPATH_GET, owner, multiName));
+        }
+    }
+
     private String toJson(Object o) {
         StringWriter out = new StringWriter();
         try {
@@ -58,6 +58,14 @@ public class Comment extends PublicContribution {
         return data("controversiality", Integer.class) == 1;
     }
 
+    /**
+     * Checks whether the comment is controversial without boxing the result
+     * @return If the comment is controversial, or false if it is unknown
+     */
+    public boolean controversial() {
+        return dataInt("controversiality", 0) == 1;
+    }
+
     /**
      * Who removed this comment, or null if you are not a mod
      * @return Who removed this comment
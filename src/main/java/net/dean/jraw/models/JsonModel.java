@@ -15,7 +15,32 @@ import java.util.stream.Collectors;
  * Reddit API.
  */
 public abstract class JsonModel {
+    /** Turns a JSON value into an object of each type supported by {@link #data(String, Class)} */
+    private static final Map<Class<?>, FieldDecoder<?>> DECODERS;
+    private static final int INITIAL_MEMO_CAPACITY = 8;
+
+    static {
+        Map<Class<?>, FieldDecoder<?>> decoders = new HashMap<>();
+        decoders.put(Boolean.class, (model, name, node) -> node.asBoolean());
+        decoders.put(Double.class, (model, name, node) -> node.asDouble());
+        decoders.put(Integer.class, (model, name, node) -> node.asInt());
+        decoders.put(Long.class, (model, name, node) -> node.asLong());
+        decoders.put(Float.class, (model, name, node) -> Float.valueOf(node.asText()));
+        decoders.put(URL.class, (model, name, node) -> JrawUtils.newUrl(node.asText()));
+        decoders.put(URI.class, (model, name, node) -> JrawUtils.newUri(node.asText()));
+        decoders.put(RenderStringPair.class, (model, name, node) ->
+                new RenderStringPair(model.data(name), model.data(name + "_html")));
+        decoders.put(String.class, (model, name, node) -> node.asText());
+        DECODERS = Collections.unmodifiableMap(decoders);
+    }
+
     protected final JsonNode data;
+    /**
+     * The values returned by {@link #data(String, Class)} so far, in an open-addressing hash table whose length is a
+     * power of two. Created when the first value is decoded, since many models never have any of their data read.
+     */
+    private Memo[] memo;
+    private int memoSize;
     /** The maximum length of a result of a {@link net.dean.jraw.models.JsonInteraction} method in {@link #toString()} */
     private static final int MAX_STRING_LENGTH = 500;
     private static final String ELLIPSIS = "(...)";
@@ -48,6 +73,9 @@ public abstract class JsonModel {
      * {@link net.dean.jraw.models.RenderStringPair}, then the JSON field for the HTML is assumed to be the name with
      * "_html" appended to the given name. If any other class is passed, then String is assumed.
      *
+     * <p>Values are only decoded the first time they are asked for. After that, the same object is returned. Dates are
+     * mutable, so only their number of seconds is kept, and every call returns a new Date.
+     *
      * @param name The key to look up in the JSON node.
      * @param type The wanted return value. Supported values are any class representing a primitive data type, such as
      *             {@link Integer} or {@link Boolean}.
@@ -57,6 +85,40 @@ public abstract class JsonModel {
      */
     @SuppressWarnings("unchecked")
     public <T> T data(String name, Class<T> type) {
+        if (type == Date.class) {
+            // Unix epoch seconds, and the Date constructor wants milliseconds
+            Long seconds = data(name, Long.class);
+            return seconds != null ? type.cast(new Date(seconds * 1000)) : null;
+        }
+
+        Memo[] table = memo;
+        if (table != null) {
+            int mask = table.length - 1;
+            int index = Memo.hash(name, type) & mask;
+            // Bounded, since entries added by other threads might have been lost
+            for (int probes = 0; probes < table.length; probes++) {
+                Memo entry = table[index];
+                if (entry == null) {
+                    break;
+                }
+                if (entry.type == type && (entry.name == name || entry.name.equals(name))) {
+                    return (T) entry.value;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        T value = decode(name, type);
+        remember(new Memo(name, type, value));
+        return value;
+    }
+
+    private <T> T decode(String name, Class<T> type) {
+        FieldDecoder<?> decoder = DECODERS.get(type);
+        if (decoder == null) {
+            throw new IllegalArgumentException("Unrecognized class: " + type.getName());
+        }
+
         // Make sure the key is actually there
         if (!data.has(name)) {
             return null;
@@ -68,42 +130,90 @@ public abstract class JsonModel {
             return null;
         }
 
-        T returnVal;
-
-        // Try to return the desired value
-        if (type.equals(Boolean.class))
-            returnVal = (T) Boolean.valueOf(node.asBoolean());
-        else if (type.equals(Double.class))
-            returnVal = (T) Double.valueOf(node.asDouble());
-        else if (type.equals(Integer.class))
-            returnVal = (T) Integer.valueOf(node.asInt());
-        else if (type.equals(Long.class))
-            returnVal = (T) Long.valueOf(node.asLong());
-        else if (type.equals(Float.class))
-            returnVal = (T) Float.valueOf(node.asText());
-        else if (type.equals(URL.class) || type.equals(URI.class)) {
-            String href = node.asText();
-            if (href != null) {
-                if (type.equals(URL.class)) {
-                    returnVal = (T) JrawUtils.newUrl(href);
-                } else {
-                    returnVal = (T) JrawUtils.newUri(href);
+        return type.cast(decoder.decode(this, name, node));
+    }
+
+    /**
+     * Adds a decoded value to {@link #memo}. Several threads may do this at once, in which case some values may be
+     * forgotten and decoded again later, but every value that is found is correct since entries are immutable.
+     */
+    private void remember(Memo entry) {
+        Memo[] table = memo;
+        if (table == null) {
+            table = new Memo[INITIAL_MEMO_CAPACITY];
+        } else if ((memoSize + 1) * 4 > table.length * 3) {
+            Memo[] larger = new Memo[table.length * 2];
+            for (Memo old : table) {
+                if (old != null) {
+                    insert(larger, old);
                 }
-            } else {
-                returnVal = null;
             }
-        } else if (type.equals(Date.class)) {
-            long seconds = node.asLong();
-            returnVal = (T) new Date(seconds * 1000);
-        } else if (type.equals(RenderStringPair.class)) {
-            return (T) new RenderStringPair(data(name), data(name + "_html"));
-        } else if (type.equals(String.class)) {
-            returnVal = (T) String.valueOf(node.asText());
-        } else {
-            throw new IllegalArgumentException("Unrecognized class: " + type.getName());
+            table = larger;
         }
+        insert(table, entry);
+        memoSize++;
+        memo = table;
+    }
+
+    private static void insert(Memo[] table, Memo entry) {
+        int mask = table.length - 1;
+        int index = Memo.hash(entry.name, entry.type) & mask;
+        for (int probes = 0; probes < table.length; probes++) {
+            Memo existing = table[index];
+            if (existing == null || (existing.type == entry.type && existing.name.equals(entry.name))) {
+                table[index] = entry;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Retrieves an int from the JSON node without boxing it
+     *
+     * @param name The key to look up in the JSON node
+     * @param missing The value to return if the key is missing or null
+     * @return The value, or {@code missing}
+     */
+    public int dataInt(String name, int missing) {
+        JsonNode node = data.get(name);
+        return node == null || node.isNull() ? missing : node.asInt();
+    }
+
+    /**
+     * Retrieves a long from the JSON node without boxing it
+     *
+     * @param name The key to look up in the JSON node
+     * @param missing The value to return if the key is missing or null
+     * @return The value, or {@code missing}
+     */
+    public long dataLong(String name, long missing) {
+        JsonNode node = data.get(name);
+        return node == null || node.isNull() ? missing : node.asLong();
+    }
+
+    /**
+     * Retrieves a double from the JSON node without boxing it
+     *
+     * @param name The key to look up in the JSON node
+     * @param missing The value to return if the key is missing or null
+     * @return The value, or {@code missing}
+     */
+    public double dataDouble(String name, double missing) {
+        JsonNode node = data.get(name);
+        return node == null || node.isNull() ? missing : node.asDouble();
+    }
 
-        return returnVal;
+    /**
+     * Retrieves a boolean from the JSON node without boxing it
+     *
+     * @param name The key to look up in the JSON node
+     * @param missing The value to return if the key is missing or null
+     * @return The value, or {@code missing}
+     */
+    public boolean dataBoolean(String name, boolean missing) {
+        JsonNode node = data.get(name);
+        return node == null || node.isNull() ? missing : node.asBoolean();
     }
 
     /**
@@ -233,6 +343,42 @@ public abstract class JsonModel {
         return sb.toString();
     }
 
+    /**
+     * Turns a JSON value into an object of a certain type
+     * @param <T> The type of object
+     */
+    @FunctionalInterface
+    private interface FieldDecoder<T> {
+        /**
+         * Decodes a value
+         *
+         * @param model The model the value belongs to
+         * @param name The name of the value
+         * @param node The value, which is never a null node
+         * @return The decoded value
+         */
+        T decode(JsonModel model, String name, JsonNode node);
+    }
+
+    /** A value returned by {@link #data(String, Class)} */
+    private static final class Memo {
+        private final String name;
+        private final Class<?> type;
+        private final Object value;
+
+        private Memo(String name, Class<?> type, Object value) {
+            this.name = name;
+            this.type = type;
+            this.value = value;
+        }
+
+        private static int hash(String name, Class<?> type) {
+            int h = name.hashCode() * 31 + type.hashCode();
+            // Spread the high bits, since only the low ones pick the slot
+            return h ^ (h >>> 16);
+        }
+    }
+
     /**
      * Gets a list of fields that have the JsonInteraction annotation attached to them. This method also returns
      * JsonInteraction-annotated methods in this class' superclasses, up until JsonModel. Mainly used for testing.
@@ -32,20 +32,32 @@ public class Listing<T extends RedditObject> extends RedditObject implements Lis
      * @param thingClass The class which will be the type of the children in this listing
      */
     public Listing(JsonNode dataNode, Class<T> thingClass) {
+        this(dataNode, thingClass, new ThingFilter[0]);
+    }
+
+    /**
+     * Instantiates a new Listing that only contains the children accepted by every one of the given filters. The
+     * filters are tested in order against each child's data before a model is created for it.
+     *
+     * @param dataNode   The node to get data from
+     * @param thingClass The class which will be the type of the children in this listing
+     * @param filters    The filters that decide which children are kept
+     */
+    public Listing(JsonNode dataNode, Class<T> thingClass, ThingFilter... filters) {
         super(dataNode);
 
         this.thingClass = thingClass;
         this.hasChildren = data.has("children");
-        this.children = initChildren();
+        this.children = initChildren(filters);
         this.more = initMore();
     }
 
-    private ImmutableList<T> initChildren() {
+    private ImmutableList<T> initChildren(ThingFilter[] filters) {
         ImmutableList.Builder<T> children = ImmutableList.<T>builder();
 
         // children is a JSON array
         for (JsonNode childNode : data.get("children")) {
-            if (!childNode.get("kind").getTextValue().equalsIgnoreCase("more")) {
+            if (!childNode.get("kind").getTextValue().equalsIgnoreCase("more") && accept(childNode, filters)) {
                 children.add(JrawUtils.parseJson(childNode, thingClass));
             }
         }
@@ -53,6 +65,19 @@ public class Listing<T extends RedditObject> extends RedditObject implements Lis
         return children.build();
     }
 
+    private static boolean accept(JsonNode childNode, ThingFilter[] filters) {
+        if (filters.length == 0) {
+            return true;
+        }
+        JsonNode childData = childNode.get("data");
+        for (ThingFilter filter : filters) {
+            if (!filter.accept(childData)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private More initMore() {
         for (JsonNode childNode : data.get("children")) {
             if (childNode.get("kind").getTextValue().equalsIgnoreCase("more")) {
@@ -0,0 +1,220 @@
+package net.dean.jraw.models;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.JsonNodeFactory;
+import org.codehaus.jackson.node.ObjectNode;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Declares which {@link JsonInteraction} methods of a model will be called, so that the JSON attributes no other
+ * method reads can be skipped while the response is parsed and never kept in memory. A Submission carries around sixty
+ * attributes, many of them (such as the HTML of its self text, or its embedded media) larger than the rest combined.
+ *
+ * <p>Calling a method of a projected model that was not declared throws an IllegalStateException, unless it only reads
+ * attributes that a declared method reads as well. The "id" and "name" attributes are always kept.
+ *
+ * <p>Projections only apply to things of the declared kinds, wherever they appear in a response: on their own, in a
+ * Listing, or as the replies of a comment.
+ *
+ * @see net.dean.jraw.http.RestRequest.Builder#projection(Projection)
+ * @see net.dean.jraw.RedditClient#setProjection(Projection)
+ */
+public final class Projection {
+    /** The attributes to keep, keyed by the kind of the things they belong to */
+    private final Map<String, Set<String>> fields;
+
+    private Projection(Map<String, Set<String>> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Gets the attributes kept for things of a given kind
+     *
+     * @param kind The thing's kind, such as "t3"
+     * @return The names of the attributes, or null if things of that kind are not projected
+     */
+    public Set<String> getFields(String kind) {
+        return fields.get(kind);
+    }
+
+    /**
+     * Creates the node the data of a thing will be parsed into. Only attributes kept by this projection should be added
+     * to it, and looking up any other attribute throws an IllegalStateException.
+     *
+     * @param kind The thing's kind, such as "t3"
+     * @return A new node, or null if things of that kind are not projected
+     */
+    public ObjectNode newDataNode(String kind) {
+        Set<String> kept = fields.get(kind);
+        return kept != null ? new ProjectedNode(kind, kept) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return fields.equals(((Projection) o).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Projection " + fields;
+    }
+
+    /**
+     * This class is used to declare the methods a new Projection keeps the data of
+     */
+    public static class Builder {
+        private final Map<String, Set<String>> fields;
+
+        public Builder() {
+            this.fields = new TreeMap<>();
+        }
+
+        /**
+         * Declares the methods of a model that will be called
+         *
+         * @param modelClass The model's class, which must not be abstract
+         * @param methods The names of the model's {@link JsonInteraction} methods, such as "getTitle"
+         * @return This Builder
+         * @throws IllegalArgumentException If the class can't be projected, or one of the methods does not exist
+         */
+        public Builder include(Class<? extends RedditObject> modelClass, String... methods) {
+            if (Modifier.isAbstract(modelClass.getModifiers()) || Listing.class.isAssignableFrom(modelClass)) {
+                throw new IllegalArgumentException("Cannot project " + modelClass.getName());
+            }
+
+            Map<String, Method> available = new HashMap<>();
+            for (Method m : JsonModel.getJsonInteractionMethods(modelClass)) {
+                available.put(m.getName(), m);
+            }
+
+            FieldRecorder recorder = new FieldRecorder();
+            RedditObject model = newInstance(modelClass, recorder);
+            for (String name : methods) {
+                Method m = available.get(name);
+                if (m == null || m.getParameterTypes().length != 0) {
+                    throw new IllegalArgumentException("No JsonInteraction method named " + name + " in " +
+                            modelClass.getName());
+                }
+                try {
+                    m.invoke(model);
+                } catch (InvocationTargetException e) {
+                    // The recorder's values aren't realistic, but every attribute read up to this point is recorded
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Cannot call " + name, e);
+                }
+            }
+
+            Set<String> kept = fields.computeIfAbsent(model.getType().getPrefix(), k -> new TreeSet<>());
+            kept.add("id");
+            kept.add("name");
+            kept.addAll(recorder.read);
+            return this;
+        }
+
+        private static RedditObject newInstance(Class<? extends RedditObject> modelClass, JsonNode data) {
+            try {
+                Constructor<? extends RedditObject> constructor = modelClass.getConstructor(JsonNode.class);
+                return constructor.newInstance(data);
+            } catch (NoSuchMethodException | InstantiationException | IllegalAccessException |
+                    InvocationTargetException e) {
+                throw new IllegalArgumentException("Cannot project " + modelClass.getName(), e);
+            }
+        }
+
+        public Projection build() {
+            // Sorted, so that equal projections have the same toString()
+            Map<String, Set<String>> copy = new TreeMap<>();
+            for (Map.Entry<String, Set<String>> entry : fields.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableSet(new TreeSet<>(entry.getValue())));
+            }
+            return new Projection(Collections.unmodifiableMap(copy));
+        }
+    }
+
+    /**
+     * Records the name of every attribute a model looks up. Every attribute appears to be an empty string, so that as
+     * many methods as possible run to completion.
+     */
+    private static final class FieldRecorder extends ObjectNode {
+        private final Set<String> read = new HashSet<>();
+
+        private FieldRecorder() {
+            super(JsonNodeFactory.instance);
+        }
+
+        @Override
+        public JsonNode get(String fieldName) {
+            read.add(fieldName);
+            return JsonNodeFactory.instance.textNode("");
+        }
+
+        @Override
+        public boolean has(String fieldName) {
+            read.add(fieldName);
+            return true;
+        }
+
+        @Override
+        public JsonNode path(String fieldName) {
+            return get(fieldName);
+        }
+    }
+
+    /**
+     * Holds the data of a projected thing, and refuses to look up the attributes that were left out
+     */
+    private static final class ProjectedNode extends ObjectNode {
+        private final String kind;
+        private final Set<String> kept;
+
+        private ProjectedNode(String kind, Set<String> kept) {
+            super(JsonNodeFactory.instance);
+            this.kind = kind;
+            this.kept = kept;
+        }
+
+        private void check(String fieldName) {
+            if (!kept.contains(fieldName)) {
+                throw new IllegalStateException("The \"" + fieldName + "\" attribute of this " + kind + " was left " +
+                        "out by its Projection. Include the method that needs it in the Projection.");
+            }
+        }
+
+        @Override
+        public JsonNode get(String fieldName) {
+            check(fieldName);
+            return super.get(fieldName);
+        }
+
+        @Override
+        public boolean has(String fieldName) {
+            check(fieldName);
+            return super.has(fieldName);
+        }
+
+        @Override
+        public JsonNode path(String fieldName) {
+            check(fieldName);
+            return super.path(fieldName);
+        }
+    }
+}
@@ -106,6 +106,14 @@ public class Submission extends PublicContribution {
         return data("upvote_ratio", Double.class);
     }
 
+    /**
+     * Gets the ratio of upvotes to downvotes without boxing it
+     * @return The ratio of upvotes to downvotes, or NaN if it is missing
+     */
+    public double upvoteRatio() {
+        return dataDouble("upvote_ratio", Double.NaN);
+    }
+
     /**
      * This link's flair
      * @return This link's flair
@@ -147,6 +155,14 @@ public class Submission extends PublicContribution {
         return data("num_comments", Integer.class);
     }
 
+    /**
+     * Gets the number of comments that belong to this submission without boxing it
+     * @return The total number of comments, or 0 if it is missing
+     */
+    public int numComments() {
+        return dataInt("num_comments", 0);
+    }
+
     /**
      * Whether or not the post is tagged as NSFW (not safe for work)
      * @return If the post is tagged as NSFW
@@ -156,6 +172,14 @@ public class Submission extends PublicContribution {
         return data("over_18", Boolean.class);
     }
 
+    /**
+     * Checks whether the post is tagged as NSFW without boxing the result
+     * @return If the post is tagged as NSFW, or false if it is unknown
+     */
+    public boolean nsfw() {
+        return dataBoolean("over_18", false);
+    }
+
     /**
      * Relative URL (of reddit.com) of the permanent URL for this Submission
      * @return The permalink of this submission
@@ -295,6 +319,14 @@ public class Submission extends PublicContribution {
         return data("stickied", Boolean.class);
     }
 
+    /**
+     * Checks whether the post is stickied without boxing the result
+     * @return If this submission is a sticky, or false if it is unknown
+     */
+    public boolean stickied() {
+        return dataBoolean("stickied", false);
+    }
+
     /**
      * Gets a URL on the redd.it domain. For example, <a href="http://redd.it/92dd8">http://redd.it/92dd8</a>
      * @return The short URL to this post
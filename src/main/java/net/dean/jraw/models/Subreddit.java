@@ -29,6 +29,14 @@ public class Subreddit extends Thing {
         return data("accounts_active", Integer.class);
     }
 
+    /**
+     * Gets the amount of users active in the last 15 minutes without boxing it
+     * @return The number of active users, or 0 if it is missing
+     */
+    public int accountsActive() {
+        return dataInt("accounts_active", 0);
+    }
+
     /**
      * Gets the number of minutes the subreddit initially hides comment scores
      * @return The number of minutes the subreddit initially hides comment scores
@@ -97,6 +105,14 @@ public class Subreddit extends Thing {
         return data("over18", Boolean.class);
     }
 
+    /**
+     * Checks whether this subreddit is not safe for work without boxing the result
+     * @return If this subreddit is NSFW, or false if it is unknown
+     */
+    public boolean nsfw() {
+        return dataBoolean("over18", false);
+    }
+
     /**
      * Gets the public description show in the subreddit search results
      * @return The public description
@@ -124,6 +140,14 @@ public class Subreddit extends Thing {
         return data("subscribers", Long.class);
     }
 
+    /**
+     * Gets the amount of users subscribed to this subreddit without boxing it
+     * @return The amount of subscribers, or 0 if it is missing
+     */
+    public long subscriberCount() {
+        return dataLong("subscribers", 0);
+    }
+
     /**
      * Checks if this subreddit allows self (text) posts
      * @return If this subreddit allows self posts
@@ -0,0 +1,148 @@
+package net.dean.jraw.models;
+
+import com.google.common.collect.ImmutableSet;
+import org.codehaus.jackson.JsonNode;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Decides which children of a {@link Listing} are kept, by looking at their raw JSON data before any model is created
+ * for them. Children that are rejected are never turned into a Thing. Each filter counts how many children it has
+ * looked at and how many it rejected, across every listing it was used for.
+ *
+ * <p>Filters given to a request, such as those of a {@link net.dean.jraw.pagination.Paginator}, see every attribute of
+ * a child before the request's {@link Projection} is applied. Filters given to {@link
+ * net.dean.jraw.http.RedditResponse#asListing(Class, ThingFilter...)} only see the attributes the projection kept.
+ *
+ * @see net.dean.jraw.http.RedditResponse#asListing(Class, ThingFilter...)
+ * @see net.dean.jraw.pagination.Paginator#addFilter(ThingFilter)
+ */
+public final class ThingFilter {
+    private final String name;
+    private final Predicate<JsonNode> accept;
+    private final AtomicLong evaluated;
+    private final AtomicLong rejected;
+
+    /**
+     * Instantiates a new ThingFilter
+     *
+     * @param name A name describing what the filter does, used by {@link #toString()}
+     * @param accept Tests the "data" node of a child, and returns true if the child should be kept
+     */
+    public ThingFilter(String name, Predicate<JsonNode> accept) {
+        if (accept == null) {
+            throw new NullPointerException("accept cannot be null");
+        }
+        this.name = name;
+        this.accept = accept;
+        this.evaluated = new AtomicLong();
+        this.rejected = new AtomicLong();
+    }
+
+    /**
+     * Rejects the things for which a boolean attribute is true, such as "over_18" or "stickied"
+     *
+     * @param field The attribute's name
+     * @return A new ThingFilter
+     */
+    public static ThingFilter isFalse(String field) {
+        return new ThingFilter(field + " is false", data -> {
+            JsonNode node = data.get(field);
+            return node == null || !node.asBoolean();
+        });
+    }
+
+    /**
+     * Rejects the things for which a numeric attribute, such as "score" or "created_utc", is below a minimum. Things
+     * that don't have the attribute are kept.
+     *
+     * @param field The attribute's name
+     * @param min The lowest value that is kept
+     * @return A new ThingFilter
+     */
+    public static ThingFilter atLeast(String field, double min) {
+        return new ThingFilter(field + " >= " + min, data -> {
+            JsonNode node = data.get(field);
+            return node == null || !node.isNumber() || node.getDoubleValue() >= min;
+        });
+    }
+
+    /**
+     * Keeps only the things for which a text attribute, such as "domain" or "subreddit", is one of the given values
+     *
+     * @param field The attribute's name
+     * @param values The values that are kept
+     * @return A new ThingFilter
+     */
+    public static ThingFilter in(String field, Collection<String> values) {
+        Set<String> set = ImmutableSet.copyOf(values);
+        return new ThingFilter(field + " in " + set, data -> {
+            JsonNode node = data.get(field);
+            return node != null && set.contains(node.asText());
+        });
+    }
+
+    /**
+     * Rejects the things for which a text attribute, such as "author", is one of the given values
+     *
+     * @param field The attribute's name
+     * @param values The values that are rejected
+     * @return A new ThingFilter
+     */
+    public static ThingFilter notIn(String field, Collection<String> values) {
+        Set<String> set = ImmutableSet.copyOf(values);
+        return new ThingFilter(field + " not in " + set, data -> {
+            JsonNode node = data.get(field);
+            return node == null || !set.contains(node.asText());
+        });
+    }
+
+    /**
+     * Tests a child of a listing and counts the result
+     *
+     * @param data The child's "data" node
+     * @return True if the child should be kept
+     */
+    public boolean accept(JsonNode data) {
+        evaluated.incrementAndGet();
+        if (accept.test(data)) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets how many children this filter has looked at. A child rejected by an earlier filter is not looked at by the
+     * filters after it.
+     *
+     * @return The number of children tested
+     */
+    public long getEvaluatedCount() {
+        return evaluated.get();
+    }
+
+    /**
+     * Gets how many children this filter has rejected
+     * @return The number of children rejected
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ThingFilter {" +
+                "name='" + name + '\'' +
+                ", evaluated=" + getEvaluatedCount() +
+                ", rejected=" + getRejectedCount() +
+                '}';
+    }
+}
@@ -14,8 +14,7 @@ public interface Created extends JsonAttribute {
      */
     @JsonInteraction
     public default Date getCreated() {
-        // created in seconds, Date constructor wants milliseconds
-        return new Date(getDataNode().get("created").getLongValue() * 1000);
+        return data("created", Date.class);
     }
 
     /**
@@ -24,7 +23,22 @@ public interface Created extends JsonAttribute {
      */
     @JsonInteraction
     public default Date getCreatedUtc() {
-        // created in seconds, Date constructor wants milliseconds
-        return new Date(getDataNode().get("created_utc").getLongValue() * 1000);
+        return data("created_utc", Date.class);
+    }
+
+    /**
+     * Gets the time this object was created in local time, without creating a Date
+     * @return The time in seconds since the Unix epoch, or -1 if it is missing
+     */
+    public default long createdEpochSeconds() {
+        return dataLong("created", -1);
+    }
+
+    /**
+     * Gets the time this object was created in UTC, without creating a Date
+     * @return The time in seconds since the Unix epoch, or -1 if it is missing
+     */
+    public default long createdUtcEpochSeconds() {
+        return dataLong("created_utc", -1);
     }
 }
@@ -12,6 +12,14 @@ public interface Gildable extends JsonAttribute {
      */
     @JsonInteraction
     public default Integer getTimesGilded() {
-        return getDataNode().get("gilded").asInt();
+        return data("gilded", Integer.class);
+    }
+
+    /**
+     * Gets the number of times this comment has received Reddit Gold without boxing it
+     * @return The number of times this comment has received Reddit Gold, or 0 if it is missing
+     */
+    public default int timesGilded() {
+        return dataInt("gilded", 0);
     }
 }
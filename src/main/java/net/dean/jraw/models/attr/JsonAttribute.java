@@ -9,4 +9,20 @@ interface JsonAttribute {
      * @return The JsonNode to use for methods annotated with the {@link net.dean.jraw.models.JsonInteraction} annotation
      */
     public JsonNode getDataNode();
+
+    /**
+     * See {@link net.dean.jraw.models.JsonModel#data(String, Class)}
+     *
+     * @param name The key to look up in the JSON node
+     * @param type The type of the value
+     * @param <T> The type of the value
+     * @return The value, decoded only the first time it is asked for
+     */
+    public <T> T data(String name, Class<T> type);
+
+    /** See {@link net.dean.jraw.models.JsonModel#dataInt(String, int)} */
+    public int dataInt(String name, int missing);
+
+    /** See {@link net.dean.jraw.models.JsonModel#dataLong(String, long)} */
+    public long dataLong(String name, long missing);
 }
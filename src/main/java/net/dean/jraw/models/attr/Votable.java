@@ -18,7 +18,7 @@ public interface Votable extends JsonAttribute {
      */
     @JsonInteraction
     public default Integer getUpvotes() {
-        return getDataNode().get("ups").getIntValue();
+        return data("ups", Integer.class);
     }
 
     /**
@@ -31,7 +31,7 @@ public interface Votable extends JsonAttribute {
     @JsonInteraction
     @Deprecated
     public default Integer getDownvotes() {
-        return getDataNode().get("downs").getIntValue();
+        return data("downs", Integer.class);
     }
 
     /**
@@ -41,10 +41,26 @@ public interface Votable extends JsonAttribute {
      */
     @JsonInteraction
     public default Integer getScore() {
-        return getDataNode().get("score").getIntValue();
+        return data("score", Integer.class);
     }
 
 
+    /**
+     * Gets the net score of the object without boxing it. Unlike {@link #getScore()}, this doesn't allocate anything.
+     * @return The net score, or 0 if it is missing
+     */
+    public default int score() {
+        return dataInt("score", 0);
+    }
+
+    /**
+     * Gets the amount of upvotes the object has received without boxing it
+     * @return The amount of upvotes, or 0 if it is missing
+     */
+    public default int upvotes() {
+        return dataInt("ups", 0);
+    }
+
     /**
      * Gets the way in which the logged in user voted. If there is none, this method will always return
      * {@link net.dean.jraw.models.VoteDirection#NO_VOTE}.
@@ -4,13 +4,20 @@ import net.dean.jraw.RedditClient;
 import net.dean.jraw.http.NetworkAccessible;
 import net.dean.jraw.http.NetworkException;
 import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RequestPriority;
 import net.dean.jraw.http.RestRequest;
 import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.Projection;
 import net.dean.jraw.models.Thing;
+import net.dean.jraw.models.ThingFilter;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Represents the basic concept of a paginator
@@ -42,6 +49,10 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
     /** Current listing. Will get the next listing based on the current listing's "after" value */
     protected Listing<T> current;
     private int pageNumber;
+    private RequestPriority priority;
+    private String tenant;
+    private Projection projection;
+    private final List<ThingFilter> filters;
 
     private boolean started;
     private boolean changed;
@@ -58,6 +69,10 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
         this.sorting = DEFAULT_SORTING;
         this.timePeriod = DEFAULT_TIME_PERIOD;
         this.limit = DEFAULT_LIMIT;
+        this.priority = RequestPriority.NORMAL;
+        // Every paginator gets its own share of the rate limit unless told otherwise
+        this.tenant = getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(this));
+        this.filters = new ArrayList<>();
         this.changed = false;
         this.started = false;
     }
@@ -72,6 +87,18 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
      *                               requested.
      */
     protected Listing<T> getListing(boolean forwards) throws NetworkException, IllegalStateException {
+        return onListingReceived(execute(createRequest(forwards)));
+    }
+
+    /**
+     * Creates the request for the next (or first) listing
+     *
+     * @param forwards If true, the request will be for the next listing. If false, it will be for the first listing.
+     * @return A new request
+     * @throws IllegalStateException If a setter method (such as {@link #setLimit(int)} was called after the first listing was
+     *                               requested.
+     */
+    private RestRequest createRequest(boolean forwards) throws IllegalStateException {
         if (started && changed) {
             throw new IllegalStateException("Cannot change parameters without calling reset()");
         }
@@ -94,11 +121,24 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
             args.putAll(extraArgs);
         }
 
-        RestRequest request = request()
+        return request()
                 .path(path)
                 .query(args)
+                .priority(priority)
+                .tenant(tenant)
+                .projection(projection != null ? projection : creator.getProjection())
+                .filters(filters)
                 .build();
-        Listing<T> listing = parseListing(execute(request));
+    }
+
+    /**
+     * Parses the response and makes the resulting listing the current one
+     *
+     * @param response The response to the request created by {@link #createRequest(boolean)}
+     * @return The new current listing
+     */
+    private Listing<T> onListingReceived(RedditResponse response) {
+        Listing<T> listing = parseListing(response);
         this.current = listing;
         pageNumber++;
 
@@ -115,6 +155,7 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
      * @return A new Listing from the given response
      */
     protected Listing<T> parseListing(RedditResponse response) {
+        // The filters were already applied while the response was read
         return response.asListing(thingType);
     }
 
@@ -138,6 +179,19 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
         }
     }
 
+    /**
+     * Gets the next listing without blocking the calling thread. The state of this Paginator is updated when the
+     * returned future is completed, so only one asynchronous request should be in progress at a time. Wait for the
+     * future to complete before calling this method (or {@link #next()}) again.
+     *
+     * @return A CompletableFuture that will be completed with the next listing
+     * @throws IllegalStateException If a setter method (such as {@link #setLimit(int)} was called after the first listing was
+     *                               requested.
+     */
+    public CompletableFuture<Listing<T>> nextAsync() {
+        return executeAsync(createRequest(true)).thenApply(this::onListingReceived);
+    }
+
     /**
      * Generates the base URI. Parameters will be stacked after this URI to form a query. For example,
      * {@link net.dean.jraw.pagination.SubredditPaginator} will return something like "/r/pics/new.json"
@@ -192,6 +246,95 @@ public abstract class Paginator<T extends Thing> implements Iterator<Listing<T>>
         invalidate();
     }
 
+    /**
+     * Gets the priority of the requests this Paginator sends
+     * @return The current priority
+     */
+    public RequestPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of the requests this Paginator sends. Unlike the other setters, this can be changed at any time.
+     * @param priority The new priority
+     * @see net.dean.jraw.http.RequestScheduler
+     */
+    public void setPriority(RequestPriority priority) {
+        if (priority == null) {
+            throw new NullPointerException("priority cannot be null");
+        }
+        this.priority = priority;
+    }
+
+    /**
+     * Gets who the requests this Paginator sends are made on behalf of
+     * @return The current tenant. Unless changed, every Paginator is its own tenant.
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Sets who the requests this Paginator sends are made on behalf of. Paginators with the same tenant share one slice
+     * of the rate limit when a {@link net.dean.jraw.http.RequestScheduler} is being used. Can be changed at any time.
+     *
+     * @param tenant The new tenant
+     */
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * Gets which attributes of the things in the listings are kept
+     * @return The current Projection, or null if the client's projection is used
+     */
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Sets which attributes of the things in the listings are kept while they are parsed. Calling a method of a Thing
+     * that needs an attribute that was left out throws an IllegalStateException. Can be changed at any time.
+     *
+     * @param projection The new Projection, or null to use the projection of the RedditClient
+     * @see net.dean.jraw.RedditClient#setProjection(Projection)
+     */
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Adds a filter that decides which Things are kept in the following listings. Things are tested against the
+     * filters in the order they were added while the response is read, and rejected ones are dropped before the next
+     * Thing is read and are never turned into models, so listings may contain fewer Things than the limit.
+     *
+     * @param filter The filter to add
+     */
+    public void addFilter(ThingFilter filter) {
+        if (filter == null) {
+            throw new NullPointerException("filter cannot be null");
+        }
+        filters.add(filter);
+    }
+
+    /**
+     * Removes a filter added by {@link #addFilter(ThingFilter)}
+     *
+     * @param filter The filter to remove
+     * @return True if the filter was removed
+     */
+    public boolean removeFilter(ThingFilter filter) {
+        return filters.remove(filter);
+    }
+
+    /**
+     * Gets the filters that decide which Things are kept. Each one counts how many Things it has rejected.
+     * @return An unmodifiable list of filters
+     */
+    public List<ThingFilter> getFilters() {
+        return Collections.unmodifiableList(filters);
+    }
+
     /**
      * Checks whether this Paginator has sent a request yet. Calling {@link #reset()} resets this.
      * @return True if this Paginator has sent a request yet, false if else
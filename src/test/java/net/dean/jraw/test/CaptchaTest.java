@@ -1,8 +1,8 @@
 package net.dean.jraw.test;
 
-import com.squareup.okhttp.MediaType;
 import net.dean.jraw.ApiException;
 import net.dean.jraw.JrawUtils;
+import net.dean.jraw.http.MediaType;
 import net.dean.jraw.http.NetworkException;
 import net.dean.jraw.http.RedditResponse;
 import net.dean.jraw.http.RestRequest;
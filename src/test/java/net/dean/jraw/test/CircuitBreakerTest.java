@@ -0,0 +1,134 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.http.CircuitBreaker;
+import net.dean.jraw.http.CircuitBreakerConfig;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/** Tests the CircuitBreaker's state transitions with a fake clock */
+public class CircuitBreakerTest extends RedditTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(20);
+
+    @Test
+    public void testOpensOnFailureRate() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = newBreaker(ticker);
+
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false, FAST);
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+
+        // 5 failures out of 10 calls
+        for (int i = 0; i < 5; i++) {
+            call(breaker, true, FAST);
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+        call(breaker, false, FAST);
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertEquals(breaker.tryAcquirePermission(), CircuitBreaker.NO_PERMISSION);
+    }
+
+    @Test
+    public void testOpensOnSlowCalls() {
+        CircuitBreaker breaker = newBreaker(new FakeTicker());
+        for (int i = 0; i < 10; i++) {
+            call(breaker, false, SLOW);
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testHalfOpenCloses() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = open(newBreaker(ticker));
+
+        ticker.advance(30, TimeUnit.SECONDS);
+        long first = acquire(breaker);
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        long second = acquire(breaker);
+        // Only two trial calls are allowed
+        assertEquals(breaker.tryAcquirePermission(), CircuitBreaker.NO_PERMISSION);
+
+        breaker.onResult(first, false, FAST);
+        breaker.onResult(second, false, FAST);
+        assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testEarlierPermissionsAreIgnored() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = newBreaker(ticker);
+        // Two calls are let through while the circuit is closed, and only finish once it is half-open
+        long slow = acquire(breaker);
+        long unused = acquire(breaker);
+        open(breaker);
+        ticker.advance(30, TimeUnit.SECONDS);
+        long trial = acquire(breaker);
+        acquire(breaker);
+
+        // Neither counts as a trial call
+        breaker.release(unused);
+        assertEquals(breaker.tryAcquirePermission(), CircuitBreaker.NO_PERMISSION);
+        breaker.onResult(slow, true, SLOW);
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertEquals(breaker.getFailureRate(), 0.0);
+
+        // A trial call's permission is still given back
+        breaker.release(trial);
+        acquire(breaker);
+    }
+
+    @Test
+    public void testHalfOpenReopens() {
+        FakeTicker ticker = new FakeTicker();
+        CircuitBreaker breaker = open(newBreaker(ticker));
+
+        ticker.advance(30, TimeUnit.SECONDS);
+        call(breaker, true, FAST);
+        call(breaker, false, FAST);
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        assertEquals(breaker.getRemainingOpenTime(TimeUnit.SECONDS), 30);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMoreTrialCallsThanWindow() {
+        new CircuitBreakerConfig.Builder()
+                .window(5, 5)
+                .halfOpenCalls(6)
+                .build();
+    }
+
+    private CircuitBreaker newBreaker(FakeTicker ticker) {
+        return new CircuitBreaker("www.reddit.com", new CircuitBreakerConfig.Builder()
+                .window(10, 10)
+                .failureRateThreshold(0.5)
+                .slowCalls(10, TimeUnit.SECONDS, 0.8)
+                .openDuration(30, TimeUnit.SECONDS)
+                .halfOpenCalls(2)
+                .ticker(ticker)
+                .build());
+    }
+
+    private CircuitBreaker open(CircuitBreaker breaker) {
+        for (int i = 0; i < 10; i++) {
+            call(breaker, true, FAST);
+        }
+        assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private void call(CircuitBreaker breaker, boolean failed, long duration) {
+        breaker.onResult(acquire(breaker), failed, duration);
+    }
+
+    private long acquire(CircuitBreaker breaker) {
+        long permission = breaker.tryAcquirePermission();
+        assertNotEquals(permission, CircuitBreaker.NO_PERMISSION);
+        return permission;
+    }
+}
@@ -0,0 +1,135 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.FanOut;
+import net.dean.jraw.http.MetricsRecorder;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.http.VirtualThreads;
+import net.dean.jraw.test.stub.LoadDriver;
+import net.dean.jraw.test.stub.LoadReport;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+/** Shares one RedditClient between many threads, without touching the network */
+public class ConcurrencyTest extends RedditTest {
+    private static final int THREADS = 64;
+    private static final int CALLS = 12_800;
+
+    @Test
+    public void testSharedClient() throws InterruptedException {
+        FakeTransport transport = new FakeTransport("Set-Cookie", "session=abc; Path=/");
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+        MetricsRecorder metrics = new MetricsRecorder();
+        client.setMetricsListener(metrics);
+
+        String[] subreddits = {"pics", "funny", "aww", "news"};
+        AtomicLong counter = new AtomicLong();
+        LoadReport report = new LoadDriver(THREADS).run(() -> {
+            long n = counter.getAndIncrement();
+            if (n % 100 == 0) {
+                // Change the default headers while other threads are building requests
+                client.setUserAgent("stress-" + n);
+            }
+            RestRequest request = client.request()
+                    .endpoint(Endpoints.SUBREDDIT_ABOUT, subreddits[(int) (n % subreddits.length)])
+                    .build();
+            if (n % 2 == 0) {
+                client.execute(request);
+            } else {
+                client.executeAsync(request).get();
+            }
+        }, CALLS);
+
+        assertEquals(report.getCalls(), CALLS);
+        assertEquals(report.getErrors(), 0, report.toString());
+
+        // Every call either sent its own request or shared one that was in flight
+        long sent = transport.sent.size();
+        assertEquals(sent + client.getCoalescedRequestCount(), CALLS);
+        assertEquals(client.getJournal().getTotalCount(), sent);
+        assertEquals(metrics.get("GET /r/{subreddit}/about.json").getCount(), sent);
+
+        String original = getUserAgent(getClass());
+        for (RestRequest request : transport.sent) {
+            String userAgent = request.getHeader("User-Agent");
+            assertTrue(userAgent.equals(original) || userAgent.startsWith("stress-"), userAgent);
+        }
+        assertEquals(transport.sent.get(transport.sent.size() - 1).getHeader("Cookie"), "session=abc");
+    }
+
+    @Test
+    public void testFanOutIsBounded() throws Exception {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(i);
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        FanOut fanOut = new FanOut(VirtualThreads.newExecutor("fanout-test-"), 16);
+        List<Integer> results = fanOut.map(inputs, i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            running.decrementAndGet();
+            return i * 2;
+        });
+
+        assertTrue(maxRunning.get() <= 16, "Too many tasks ran at once: " + maxRunning.get());
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals((int) results.get(i), i * 2);
+        }
+    }
+
+    @Test
+    public void testFanOutStopsOnFailure() throws InterruptedException {
+        List<Integer> inputs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            inputs.add(i);
+        }
+        AtomicInteger started = new AtomicInteger();
+        try {
+            new FanOut(VirtualThreads.newExecutor("fanout-test-"), 4).map(inputs, i -> {
+                started.incrementAndGet();
+                if (i == 10) {
+                    throw new IllegalStateException("Task " + i + " failed");
+                }
+                Thread.sleep(1);
+                return i;
+            });
+            fail("Expected the fan-out to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(started.get() < inputs.size(), "Every task was started");
+    }
+
+    @Test
+    public void testVirtualThreadMode() throws Exception {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(new FakeTransport());
+        client.setUseVirtualThreads(true);
+        assertTrue(client.isUsingVirtualThreads());
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            names.add("subreddit" + i);
+        }
+        List<RedditResponse> responses = client.fanOut(500).map(names, name ->
+                client.execute(client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, name).build()));
+        assertEquals(responses.size(), names.size());
+        assertEquals(client.executeAsync(client.request().endpoint(Endpoints.ME).build()).get()
+                .getJson().get("kind").asText(), "t5");
+    }
+}
@@ -0,0 +1,267 @@
+package net.dean.jraw.test;
+
+import com.google.common.base.Ticker;
+import com.sun.net.httpserver.HttpServer;
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.CircuitBreaker;
+import net.dean.jraw.http.CircuitBreakerConfig;
+import net.dean.jraw.http.DeadlineExceededException;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.http.StaticRatelimiter;
+import net.dean.jraw.http.UrlConnectionTransport;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+/** Tests request deadlines and cancellation, without touching the network */
+public class DeadlineTest extends RedditTest {
+    /** A source of time that never moves, so the rate limiter's state only changes when permits are taken */
+    private static final Ticker FROZEN = new Ticker() {
+        @Override
+        public long read() {
+            return 0;
+        }
+    };
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testDeadlineWhileWaitingForRatelimit() throws NetworkException {
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, FROZEN);
+        RedditClient client = newClient(ratelimiter);
+        client.execute(request(client));
+
+        long start = System.nanoTime();
+        try {
+            client.execute(client.request().endpoint(Endpoints.ME).deadline(100, TimeUnit.MILLISECONDS).build());
+            fail("Expected the deadline to be exceeded");
+        } catch (DeadlineExceededException e) {
+            assertEquals(e.getDeadline(TimeUnit.MILLISECONDS), 100);
+        }
+        // The permit could never have been used in time, so it is given back without waiting for it
+        assertTrue(System.nanoTime() - start < INTERVAL / 2);
+        assertEquals(ratelimiter.reserve(), INTERVAL);
+    }
+
+    @Test
+    public void testInterruptReleasesPermit() throws Exception {
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, FROZEN);
+        RedditClient client = newClient(ratelimiter);
+        client.execute(request(client));
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                client.execute(request(client));
+            } catch (NetworkException | RuntimeException e) {
+                error.set(e);
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertTrue(error.get() instanceof NetworkException, String.valueOf(error.get()));
+        assertTrue(error.get().getCause() instanceof InterruptedException);
+        assertEquals(ratelimiter.reserve(), INTERVAL);
+    }
+
+    @Test
+    public void testCancelReleasesPermit() throws Exception {
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, FROZEN);
+        RedditClient client = newClient(ratelimiter);
+        client.execute(request(client));
+
+        CompletableFuture<RedditResponse> future = client.executeAsync(request(client));
+        assertTrue(future.cancel(true));
+        assertEquals(ratelimiter.reserve(), INTERVAL);
+    }
+
+    @Test
+    public void testCancelAbortsSharedCall() throws Exception {
+        List<CompletableFuture<HttpResponse>> calls = new CopyOnWriteArrayList<>();
+        FakeTransport transport = new FakeTransport() {
+            @Override
+            public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+                CompletableFuture<HttpResponse> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }
+        };
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+
+        CompletableFuture<RedditResponse> first = client.executeAsync(request(client));
+        CompletableFuture<RedditResponse> second = client.executeAsync(request(client));
+        assertEquals(calls.size(), 1);
+        assertEquals(client.getCoalescedRequestCount(), 1);
+
+        assertTrue(first.cancel(true));
+        // The second request is still waiting for the call
+        assertFalse(calls.get(0).isCancelled());
+        assertTrue(second.cancel(true));
+        assertTrue(calls.get(0).isCancelled(), "The call should have been aborted");
+
+        // A new request doesn't wait for the aborted call
+        CompletableFuture<RedditResponse> third = client.executeAsync(request(client));
+        assertEquals(calls.size(), 2);
+        assertFalse(third.isDone());
+        third.cancel(true);
+    }
+
+    @Test
+    public void testFollowerOutlivesLeaderDeadline() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        FakeTransport transport = new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                if (started.getCount() == 0) {
+                    return super.execute(request);
+                }
+                sent.add(request);
+                started.countDown();
+                // Never responds before the deadline
+                try {
+                    TimeUnit.NANOSECONDS.sleep(request.getRemainingNanos());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Read timed out");
+            }
+        };
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+
+        AtomicReference<Throwable> leaderError = new AtomicReference<>();
+        Thread leader = new Thread(() -> {
+            try {
+                client.execute(client.request().endpoint(Endpoints.ME).deadline(200, TimeUnit.MILLISECONDS).build());
+            } catch (NetworkException | RuntimeException e) {
+                leaderError.set(e);
+            }
+        });
+        leader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Waits for the leader, then sends the request itself once the leader runs out of time
+        RedditResponse response = client.execute(request(client));
+        leader.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertTrue(leaderError.get() instanceof DeadlineExceededException, String.valueOf(leaderError.get()));
+        assertEquals(response.getJson().get("kind").asText(), "t5");
+        assertEquals(client.getCoalescedRequestCount(), 1);
+        assertEquals(transport.sent.size(), 2);
+    }
+
+    @Test
+    public void testDeadlineReleasesTrialCall() throws NetworkException {
+        FakeTicker ticker = new FakeTicker();
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, FROZEN);
+        RedditClient client = newClient(ratelimiter);
+        CircuitBreaker breaker = halfOpenBreaker(client, ticker);
+
+        try {
+            client.execute(client.request().endpoint(Endpoints.ME).deadline(100, TimeUnit.MILLISECONDS).build());
+            fail("Expected the deadline to be exceeded");
+        } catch (DeadlineExceededException e) {
+            // The trial call was never sent, so another one may take its place
+            assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+            assertNotEquals(breaker.tryAcquirePermission(), CircuitBreaker.NO_PERMISSION);
+        }
+    }
+
+    @Test
+    public void testCancelReleasesTrialCall() throws NetworkException {
+        FakeTicker ticker = new FakeTicker();
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, FROZEN);
+        RedditClient client = newClient(ratelimiter);
+        CircuitBreaker breaker = halfOpenBreaker(client, ticker);
+
+        CompletableFuture<RedditResponse> future = client.executeAsync(request(client));
+        assertTrue(future.cancel(true));
+        assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+        assertNotEquals(breaker.tryAcquirePermission(), CircuitBreaker.NO_PERMISSION);
+    }
+
+    /** Sends a request to create the host's circuit breaker, then opens it and waits until it becomes half-open */
+    private CircuitBreaker halfOpenBreaker(RedditClient client, FakeTicker ticker) throws NetworkException {
+        client.setCircuitBreakerConfig(new CircuitBreakerConfig.Builder()
+                .window(2, 2)
+                .halfOpenCalls(1)
+                .openDuration(30, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build());
+        client.execute(request(client));
+        CircuitBreaker breaker = client.getCircuitBreaker(client.getDefaultHost());
+        while (breaker.getState() != CircuitBreaker.State.OPEN) {
+            breaker.onResult(breaker.tryAcquirePermission(), true, 0);
+        }
+        ticker.advance(30, TimeUnit.SECONDS);
+        return breaker;
+    }
+
+    @Test
+    public void testStalledBodyIsAborted() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            out.write("{\"kind\": ".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            RedditClient client = new RedditClient("localhost:" + server.getAddress().getPort(),
+                    getUserAgent(getClass()));
+            client.setEnforceRatelimit(false);
+            client.setTransport(new UrlConnectionTransport());
+            client.setDefaultDeadline(300, TimeUnit.MILLISECONDS);
+
+            long start = System.nanoTime();
+            try {
+                client.execute(request(client));
+                fail("Expected the deadline to be exceeded");
+            } catch (DeadlineExceededException e) {
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private RedditClient newClient(StaticRatelimiter ratelimiter) {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setTransport(new FakeTransport());
+        client.setRatelimiter(ratelimiter);
+        client.setEnforceRatelimit(true);
+        return client;
+    }
+
+    private RestRequest request(RedditClient client) {
+        return client.request().endpoint(Endpoints.ME).build();
+    }
+}
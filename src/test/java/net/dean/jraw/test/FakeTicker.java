@@ -0,0 +1,19 @@
+package net.dean.jraw.test;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/** A Ticker that only moves when told to */
+final class FakeTicker extends Ticker {
+    private long nanos = 0;
+
+    @Override
+    public long read() {
+        return nanos;
+    }
+
+    public void advance(long time, TimeUnit unit) {
+        nanos += unit.toNanos(time);
+    }
+}
@@ -0,0 +1,57 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.HttpTransport;
+import net.dean.jraw.http.RestRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/** An HttpTransport that responds to every request with the same JSON and records what was sent */
+class FakeTransport implements HttpTransport {
+    static final byte[] JSON = "{\"kind\": \"t5\", \"data\": {}}".getBytes(StandardCharsets.UTF_8);
+
+    final List<RestRequest> sent = new CopyOnWriteArrayList<>();
+    private final String[] headers;
+    private long connectTimeout;
+
+    /**
+     * @param headers Extra headers to respond with, as alternating names and values
+     */
+    FakeTransport(String... headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public HttpResponse execute(RestRequest request) throws IOException {
+        sent.add(request);
+        return new HttpResponse(request, 200, "OK", Headers.of(headers).newBuilder()
+                .add("Content-Type", "application/json; charset=UTF-8")
+                .build(), JSON);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request));
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void setConnectTimeout(long milliseconds) {
+        this.connectTimeout = milliseconds;
+    }
+
+    @Override
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+}
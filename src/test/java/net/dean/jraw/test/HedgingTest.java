@@ -0,0 +1,94 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.DeadlineExceededException;
+import net.dean.jraw.http.HedgingPolicy;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RestRequest;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/** Tests hedged requests, without touching the network */
+public class HedgingTest extends RedditTest {
+    @Test
+    public void testSlowRequestIsHedged() throws NetworkException {
+        StallingTransport transport = new StallingTransport();
+        HedgingPolicy policy = new HedgingPolicy.Builder()
+                .minSamples(5)
+                .minDelay(20, TimeUnit.MILLISECONDS)
+                .build();
+        RedditClient client = newClient(transport, policy);
+        train(client, 5);
+        assertEquals(policy.getHedgeCount(), 0);
+
+        transport.stallNext = true;
+        client.execute(client.request().endpoint(Endpoints.ME).build());
+
+        assertEquals(transport.sent.size(), 7);
+        assertTrue(transport.stalled.isCancelled(), "The slow request should have been cancelled");
+        assertEquals(policy.getHedgeCount(), 1);
+        assertEquals(policy.getWinCount(), 1);
+        assertEquals(policy.getWinRate(), 1.0);
+        assertEquals(policy.getHedgeRate(), 1.0 / 6);
+    }
+
+    @Test
+    public void testHedgesAreLimitedByBudget() throws NetworkException {
+        StallingTransport transport = new StallingTransport();
+        HedgingPolicy policy = new HedgingPolicy.Builder()
+                .minSamples(5)
+                .minDelay(20, TimeUnit.MILLISECONDS)
+                .budget(0, 0)
+                .build();
+        RedditClient client = newClient(transport, policy);
+        train(client, 5);
+
+        transport.stallNext = true;
+        try {
+            client.execute(client.request().endpoint(Endpoints.ME).deadline(200, TimeUnit.MILLISECONDS).build());
+            fail("Expected the deadline to be exceeded");
+        } catch (DeadlineExceededException e) {
+            // Expected
+        }
+        assertEquals(transport.sent.size(), 6);
+        assertEquals(policy.getHedgeCount(), 0);
+    }
+
+    private RedditClient newClient(StallingTransport transport, HedgingPolicy policy) {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+        client.setHedgingPolicy(policy);
+        return client;
+    }
+
+    /** Sends enough fast requests for the policy to know how long the endpoint usually takes */
+    private void train(RedditClient client, int count) throws NetworkException {
+        for (int i = 0; i < count; i++) {
+            client.execute(client.request().endpoint(Endpoints.ME).build());
+        }
+    }
+
+    /** Responds immediately, except to the request after {@link #stallNext} is set, which never gets a response */
+    private static class StallingTransport extends FakeTransport {
+        private volatile boolean stallNext;
+        private volatile CompletableFuture<HttpResponse> stalled;
+
+        @Override
+        public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+            if (!stallNext) {
+                return super.executeAsync(request);
+            }
+            stallNext = false;
+            sent.add(request);
+            stalled = new CompletableFuture<>();
+            return stalled;
+        }
+    }
+}
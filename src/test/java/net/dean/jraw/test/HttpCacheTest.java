@@ -0,0 +1,113 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpCache;
+import net.dean.jraw.http.HttpCacheStats;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.RestRequest;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.testng.Assert.*;
+
+/** Tests the HttpCache without touching the network */
+public class HttpCacheTest extends RedditTest {
+    private static final String JSON = "{\"kind\": \"t5\"}";
+
+    @Test
+    public void testFreshResponseIsStored() throws IOException {
+        HttpCache cache = newCache(1024 * 1024);
+        RestRequest request = request("pics");
+
+        HttpResponse stored = cache.put(request, response(request, "Cache-Control", "max-age=60"));
+        assertEquals(stored.readString(), JSON);
+
+        HttpCache.Entry entry = cache.get(request);
+        assertNotNull(entry);
+        assertTrue(entry.isFresh());
+        assertEquals(entry.toResponse(request).readString(), JSON);
+
+        // Entries survive a new instance
+        assertNotNull(new HttpCache(cache.getDirectory(), 1024 * 1024).get(request));
+    }
+
+    @Test
+    public void testNoStoreIsNotStored() throws IOException {
+        HttpCache cache = newCache(1024 * 1024);
+        RestRequest request = request("pics");
+
+        cache.put(request, response(request, "Cache-Control", "private, no-store"));
+        assertNull(cache.get(request));
+    }
+
+    @Test
+    public void testStaleEntryIsRevalidated() throws IOException {
+        HttpCache cache = newCache(1024 * 1024);
+        RestRequest request = request("pics");
+
+        cache.put(request, response(request, "Cache-Control", "no-cache", "ETag", "\"abc\""));
+        HttpCache.Entry entry = cache.get(request);
+        assertNotNull(entry);
+        assertFalse(entry.isFresh());
+
+        RestRequest conditional = cache.conditional(request, entry);
+        assertEquals(conditional.getHeader("If-None-Match"), "\"abc\"");
+
+        HttpResponse notModified = new HttpResponse(conditional, 304, "Not Modified",
+                Headers.of("Cache-Control", "max-age=60"), new byte[0]);
+        HttpResponse merged = cache.revalidated(request, entry, notModified);
+        assertEquals(merged.getCode(), 200);
+        assertEquals(merged.readString(), JSON);
+        assertTrue(cache.get(request).isFresh());
+
+        HttpCacheStats stats = cache.getStats().get(Endpoints.SUBREDDIT_ABOUT.getEndpoint().getRequestDescriptor());
+        assertEquals(stats.getRevalidations(), 1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        HttpCache cache = newCache(1024 * 1024);
+        RestRequest first = request("pics");
+        cache.put(first, response(first, "Cache-Control", "max-age=60"));
+        long entrySize = cache.getSize();
+
+        // Only room for two entries
+        cache = new HttpCache(cache.getDirectory(), entrySize * 2 + entrySize / 2);
+        RestRequest second = request("funny");
+        RestRequest third = request("aww");
+        cache.put(second, response(second, "Cache-Control", "max-age=60"));
+        cache.get(first);
+        cache.put(third, response(third, "Cache-Control", "max-age=60"));
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    private HttpCache newCache(long maxSize) throws IOException {
+        File dir = Files.createTempDirectory("jraw-cache").toFile();
+        dir.deleteOnExit();
+        return new HttpCache(dir, maxSize);
+    }
+
+    private RestRequest request(String subreddit) {
+        return new RestRequest.Builder()
+                .host("www.reddit.com")
+                .endpoint(Endpoints.SUBREDDIT_ABOUT, subreddit)
+                .build();
+    }
+
+    private HttpResponse response(RestRequest request, String... headers) {
+        Headers.Builder builder = new Headers.Builder()
+                .add("Content-Type", "application/json; charset=UTF-8");
+        for (int i = 0; i < headers.length; i += 2) {
+            builder.add(headers[i], headers[i + 1]);
+        }
+        return new HttpResponse(request, 200, "OK", builder.build(), JSON.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.models.Submission;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Date;
+
+import static org.testng.Assert.*;
+
+/** Tests how JsonModel decodes its data, without touching the network */
+public class JsonModelTest extends RedditTest {
+    private static final String DATA = "{\"id\": \"a\", \"name\": \"t3_a\", \"title\": \"Title\", \"score\": 1234, " +
+            "\"ups\": 1300, \"downs\": 66, \"gilded\": 2, \"created\": 1412345678.0, \"created_utc\": 1412316878.0, " +
+            "\"url\": \"http://i.imgur.com/a.png\", \"selftext\": \"text\", \"selftext_html\": \"<p>text</p>\", " +
+            "\"over_18\": false, \"thumbnail\": null}";
+
+    @Test
+    public void testValuesAreDecodedOnce() throws IOException {
+        Submission submission = new Submission(new ObjectMapper().readTree(DATA));
+
+        Date created = submission.getCreatedUtc();
+        assertEquals(created.getTime(), 1412316878000L);
+        // Dates are mutable, so every caller gets its own
+        created.setTime(0);
+        assertEquals(submission.getCreatedUtc().getTime(), 1412316878000L);
+        assertSame(submission.data("created_utc", Long.class), submission.data("created_utc", Long.class));
+        assertSame(submission.getScore(), submission.getScore());
+        URL url = submission.getUrl();
+        assertSame(submission.getUrl(), url);
+        assertSame(submission.getSelftext(), submission.getSelftext());
+    }
+
+    @Test
+    public void testManyValues() throws IOException {
+        Submission submission = new Submission(new ObjectMapper().readTree(DATA));
+        // Enough different values to make the memo grow a few times
+        for (int i = 0; i < 2; i++) {
+            assertEquals(submission.getTitle(), "Title");
+            assertEquals(submission.getScore(), Integer.valueOf(1234));
+            assertEquals(submission.getUpvotes(), Integer.valueOf(1300));
+            assertEquals(submission.getTimesGilded(), Integer.valueOf(2));
+            assertEquals(submission.getCreated().getTime(), 1412345678000L);
+            assertEquals(submission.data("score", Long.class), Long.valueOf(1234));
+            assertEquals(submission.data("score", Double.class), 1234.0);
+            assertEquals(submission.data("score", Float.class), 1234f);
+            assertEquals(submission.data("over_18", Boolean.class), Boolean.FALSE);
+            assertEquals(submission.getSelftext().html(), "<p>text</p>");
+            assertNull(submission.data("thumbnail"));
+            assertNull(submission.data("missing"));
+        }
+    }
+
+    @Test
+    public void testPrimitiveAccessors() throws IOException {
+        Submission submission = new Submission(new ObjectMapper().readTree(DATA));
+        assertEquals(submission.score(), 1234);
+        assertEquals(submission.upvotes(), 1300);
+        assertEquals(submission.timesGilded(), 2);
+        assertEquals(submission.createdUtcEpochSeconds(), 1412316878L);
+        assertEquals(submission.createdEpochSeconds(), 1412345678L);
+        assertFalse(submission.nsfw());
+
+        // Missing and null attributes fall back to the sentinels
+        assertEquals(submission.numComments(), 0);
+        assertFalse(submission.stickied());
+        assertTrue(Double.isNaN(submission.upvoteRatio()));
+        assertEquals(submission.dataInt("thumbnail", -1), -1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsupportedType() throws IOException {
+        JsonNode data = new ObjectMapper().readTree(DATA);
+        new Submission(data).data("title", StringBuilder.class);
+    }
+}
@@ -0,0 +1,123 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.Histogram;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.HttpTransport;
+import net.dean.jraw.http.MetricsRecorder;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RequestMetrics;
+import net.dean.jraw.http.RestRequest;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.testng.Assert.*;
+
+/** Tests the metrics a RestClient reports, without touching the network */
+public class MetricsTest extends RedditTest {
+    @Test
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(histogram.getCount(), 100_000);
+        assertEquals(histogram.getMax(), 100_000_000);
+        assertEquals(histogram.getMean(), 50_000_500.0, 0.1);
+        assertWithin(histogram.getValueAtPercentile(50), 50_000_000);
+        assertWithin(histogram.getValueAtPercentile(99), 99_000_000);
+        assertWithin(histogram.getValueAtPercentile(99.9), 99_900_000);
+        assertEquals(histogram.getValueAtPercentile(100), 100_000_000);
+
+        histogram.reset();
+        assertEquals(histogram.getCount(), 0);
+        assertEquals(histogram.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void testRequestsAreGroupedByEndpoint() throws NetworkException {
+        MetricsRecorder recorder = new MetricsRecorder();
+        RedditClient client = newClient(new FakeTransport());
+        client.setMetricsListener(recorder);
+
+        client.execute(client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, "pics").build());
+        client.execute(client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, "funny").build());
+        client.execute(client.request().path("/r/pics/hot.json").build());
+        client.execute(client.request().path("/comments/2ks3so.json").build());
+
+        MetricsRecorder.EndpointStats about = recorder.get("GET /r/{subreddit}/about.json");
+        assertNotNull(about, recorder.toString());
+        assertEquals(about.getCount(), 2);
+        assertEquals(about.getErrorCount(), 0);
+        assertEquals(about.getResponseBytes(), 2 * FakeTransport.JSON.length);
+        assertEquals((long) about.getCodeCounts().get(200), 2);
+        assertEquals(about.getParseTime().getCount(), 2);
+
+        assertNotNull(recorder.get("GET /r/{subreddit}/hot"), recorder.toString());
+        assertNotNull(recorder.get("GET /comments/{article}"), recorder.toString());
+        assertTrue(recorder.scrape().contains(
+                "jraw_requests_total{endpoint=\"GET /r/{subreddit}/about.json\",code=\"200\"} 2"));
+    }
+
+    @Test
+    public void testFailuresAreRecorded() throws InterruptedException {
+        List<RequestMetrics> reported = new CopyOnWriteArrayList<>();
+        RedditClient client = newClient(new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+        client.setMetricsListener(reported::add);
+        RestRequest request = client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, "pics").build();
+
+        try {
+            client.execute(request);
+            fail("Expected the request to fail");
+        } catch (NetworkException e) {
+            // Expected
+        }
+        try {
+            client.executeAsync(request).get();
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            // Expected
+        }
+
+        assertEquals(reported.size(), 2);
+        for (RequestMetrics metrics : reported) {
+            assertFalse(metrics.isSuccessful());
+            assertEquals(metrics.getCode(), -1);
+            assertEquals(metrics.getAttempts(), 1);
+            assertEquals(metrics.getResponseBytes(), 0);
+        }
+    }
+
+    @Test
+    public void testListenerErrorsAreIgnored() throws NetworkException {
+        RedditClient client = newClient(new FakeTransport());
+        client.setMetricsListener(metrics -> {
+            throw new IllegalStateException("Broken listener");
+        });
+        assertEquals(client.execute(client.request().endpoint(Endpoints.ME).build()).getJson().get("kind").asText(),
+                "t5");
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.04, actual + " is not close to " + expected);
+    }
+
+    private RedditClient newClient(HttpTransport transport) {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setCoalesceRequests(false);
+        client.setTransport(transport);
+        return client;
+    }
+}
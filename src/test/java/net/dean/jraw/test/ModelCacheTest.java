@@ -0,0 +1,86 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.InMemoryModelCache;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/** Tests the InMemoryModelCache with a fake clock */
+public class ModelCacheTest extends RedditTest {
+
+    @Test
+    public void testPerTypeTimeToLive() {
+        FakeTicker ticker = new FakeTicker();
+        InMemoryModelCache cache = new InMemoryModelCache.Builder()
+                .timeToLive(1, TimeUnit.MINUTES)
+                .timeToLive(String.class, 10, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+
+        cache.put("string", "value", null);
+        cache.put("list", Arrays.asList("a", "b"), null);
+
+        ticker.advance(2, TimeUnit.MINUTES);
+        assertEquals(cache.getIfPresent("string", String.class), "value");
+        assertNull(cache.getIfPresent("list", List.class));
+
+        ticker.advance(10, TimeUnit.MINUTES);
+        assertNull(cache.getIfPresent("string", String.class));
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 2);
+    }
+
+    @Test
+    public void testWrongTypeIsAMiss() {
+        InMemoryModelCache cache = new InMemoryModelCache.Builder().build();
+        cache.put("key", "value", null);
+        assertNull(cache.getIfPresent("key", Integer.class));
+    }
+
+    @Test
+    public void testRefreshAhead() {
+        FakeTicker ticker = new FakeTicker();
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryModelCache cache = new InMemoryModelCache.Builder()
+                .timeToLive(10, TimeUnit.MINUTES)
+                .refreshAhead(0.5, Runnable::run)
+                .ticker(ticker)
+                .build();
+
+        cache.put("key", "old", () -> "new" + loads.incrementAndGet());
+
+        ticker.advance(1, TimeUnit.MINUTES);
+        assertEquals(cache.getIfPresent("key", String.class), "old");
+        assertEquals(loads.get(), 0);
+
+        // Past the refresh point, the old value is returned one last time while the new one is loaded
+        ticker.advance(5, TimeUnit.MINUTES);
+        assertEquals(cache.getIfPresent("key", String.class), "old");
+        assertEquals(cache.getIfPresent("key", String.class), "new1");
+        assertEquals(cache.getRefreshCount(), 1);
+
+        // The refreshed value has a whole new time to live
+        ticker.advance(9, TimeUnit.MINUTES);
+        assertEquals(cache.getIfPresent("key", String.class), "new1");
+        assertEquals(cache.getIfPresent("key", String.class), "new2");
+    }
+
+    @Test
+    public void testWeightBasedEviction() {
+        InMemoryModelCache cache = new InMemoryModelCache.Builder()
+                .maximumWeight(10)
+                .build();
+
+        cache.put("small", Arrays.asList("a", "b"), null);
+        cache.put("large", Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k"), null);
+
+        // Heavier than the whole cache, so it is evicted right away
+        assertNull(cache.getIfPresent("large", List.class));
+        assertNotNull(cache.getIfPresent("small", List.class));
+    }
+}
@@ -0,0 +1,139 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.InMemoryModelCache;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.models.Comment;
+import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.Projection;
+import net.dean.jraw.models.Submission;
+import net.dean.jraw.models.Subreddit;
+import net.dean.jraw.models.ThingFilter;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+/** Tests that projections drop unused attributes while parsing, without touching the network */
+public class ProjectionTest extends RedditTest {
+    private static final String LISTING = "{\"kind\": \"Listing\", \"data\": {\"after\": \"t3_b\", \"before\": null, " +
+            "\"modhash\": \"\", \"children\": [" +
+            "{\"kind\": \"t3\", \"data\": {\"id\": \"a\", \"name\": \"t3_a\", \"title\": \"First\", \"score\": 12, " +
+            "\"selftext\": \"text\", \"selftext_html\": \"<p>text</p>\", \"media\": {\"oembed\": {\"width\": 600}}}}, " +
+            "{\"kind\": \"t3\", \"data\": {\"id\": \"b\", \"name\": \"t3_b\", \"title\": \"Second\", \"score\": 3, " +
+            "\"selftext\": \"\", \"selftext_html\": null, \"media\": null}}]}}";
+
+    @Test
+    public void testUnusedAttributesAreDropped() {
+        Projection projection = new Projection.Builder()
+                .include(Submission.class, "getTitle", "getScore")
+                .build();
+        Listing<Submission> listing = parse(projection).asListing(Submission.class);
+
+        assertEquals(listing.size(), 2);
+        assertEquals(listing.getAfter(), "t3_b");
+        Submission first = listing.get(0);
+        assertEquals(first.getTitle(), "First");
+        assertEquals(first.getScore(), Integer.valueOf(12));
+        assertEquals(first.getId(), "a");
+        // id, name, title and score
+        assertEquals(first.getDataNode().size(), 4);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testProjectedAwayAttributeThrows() {
+        Projection projection = new Projection.Builder()
+                .include(Submission.class, "getTitle")
+                .build();
+        parse(projection).asListing(Submission.class).get(0).getSelftext();
+    }
+
+    @Test
+    public void testOtherKindsAreKept() {
+        Projection projection = new Projection.Builder()
+                .include(Comment.class, "getBody")
+                .build();
+        Submission first = parse(projection).asListing(Submission.class).get(0);
+        assertEquals(first.getSelftext().md(), "text");
+        assertTrue(first.getDataNode().has("media"));
+    }
+
+    @Test
+    public void testCachedModelsKeepTheirProjection() throws NetworkException {
+        byte[] json = ("{\"kind\": \"t5\", \"data\": {\"id\": \"2qh0u\", \"name\": \"t5_2qh0u\", " +
+                "\"display_name\": \"pics\", \"title\": \"Pictures\"}}").getBytes(StandardCharsets.UTF_8);
+        FakeTransport transport = new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                sent.add(request);
+                return new HttpResponse(request, 200, "OK",
+                        Headers.of("Content-Type", "application/json; charset=UTF-8"), json);
+            }
+        };
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+        client.setModelCache(new InMemoryModelCache.Builder().build());
+
+        client.setProjection(new Projection.Builder()
+                .include(Subreddit.class, "getDisplayName")
+                .build());
+        assertEquals(client.getSubreddit("pics").getDisplayName(), "pics");
+
+        // The projected model isn't handed to a request made without the projection
+        client.setProjection(null);
+        assertEquals(client.getSubreddit("pics").getTitle(), "Pictures");
+        assertEquals(transport.sent.size(), 2);
+
+        client.getSubreddit("pics");
+        assertEquals(transport.sent.size(), 2);
+    }
+
+    @Test
+    public void testRequestFiltersSeeProjectedAwayAttributes() {
+        Projection projection = new Projection.Builder()
+                .include(Submission.class, "getTitle")
+                .build();
+        ThingFilter score = ThingFilter.atLeast("score", 10);
+        RestRequest request = new RestRequest.Builder()
+                .host("www.reddit.com")
+                .path("/r/pics.json")
+                .projection(projection)
+                .filters(Collections.singletonList(score))
+                .build();
+        Listing<Submission> listing = parse(request).asListing(Submission.class);
+
+        assertEquals(listing.size(), 1);
+        assertEquals(score.getRejectedCount(), 1);
+        Submission first = listing.get(0);
+        assertEquals(first.getTitle(), "First");
+        // id, name and title, even though the filter read the score
+        assertEquals(first.getDataNode().size(), 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownMethod() {
+        new Projection.Builder().include(Submission.class, "getTitel");
+    }
+
+    private RedditResponse parse(Projection projection) {
+        return parse(new RestRequest.Builder()
+                .host("www.reddit.com")
+                .path("/r/pics.json")
+                .projection(projection)
+                .build());
+    }
+
+    private RedditResponse parse(RestRequest request) {
+        return new RedditResponse(new HttpResponse(request, 200, "OK",
+                Headers.of("Content-Type", "application/json; charset=UTF-8"),
+                LISTING.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,124 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.http.AdaptiveRatelimiter;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.RatelimitState;
+import net.dean.jraw.http.StaticRatelimiter;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/** Tests the Ratelimiter implementations with a fake clock */
+public class RatelimiterTest extends RedditTest {
+
+    @Test
+    public void testStaticSpacing() {
+        FakeTicker ticker = new FakeTicker();
+        StaticRatelimiter limiter = new StaticRatelimiter(30, ticker);
+
+        assertEquals(limiter.reserve(), 0);
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(2));
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(4));
+        assertFalse(limiter.tryAcquire());
+
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testAdaptiveFallsBackWithoutHeaders() {
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, ticker);
+        limiter.update(Headers.of("Content-Type", "application/json"));
+
+        assertEquals(limiter.reserve(), 0);
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(2));
+        assertFalse(limiter.getState().isHeaderDriven());
+    }
+
+    @Test
+    public void testAdaptiveBurstsWithFullBudget() {
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, ticker);
+        limiter.update(budget(0, 600, 600));
+
+        // A full budget should not be spent 2 seconds at a time
+        long wait = 0;
+        for (int i = 0; i < 10; i++) {
+            wait = limiter.reserve();
+        }
+        assertTrue(wait < TimeUnit.SECONDS.toNanos(1));
+
+        RatelimitState state = limiter.getState();
+        assertTrue(state.isHeaderDriven());
+        assertEquals(state.getRemaining(), 590, 0);
+        assertEquals(state.getTimeUntilReset(TimeUnit.SECONDS), 600);
+    }
+
+    @Test
+    public void testAdaptiveSlowsDownNearExhaustion() {
+        long relaxed = secondInterval(budget(100, 500, 600));
+        long tight = secondInterval(budget(500, 100, 600));
+
+        assertTrue(tight > relaxed, "Expected the interval to grow as the budget is used up");
+        // Below the low watermark the remaining requests are spread over the rest of the period
+        assertTrue(tight <= TimeUnit.SECONDS.toNanos(600) / 97);
+    }
+
+    @Test
+    public void testAdaptiveWaitsForReset() {
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, ticker);
+        limiter.update(budget(598, 2, 30));
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(30));
+    }
+
+    @Test
+    public void testAdaptiveFallbackKeepsSchedule() {
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, ticker);
+        limiter.update(budget(598, 2, 30));
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(30));
+
+        // The period ended without new headers. The permit reserved for the reset is still in use.
+        ticker.advance(30, TimeUnit.SECONDS);
+        assertFalse(limiter.getState().isHeaderDriven());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(limiter.reserve(), TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testAdaptiveReleaseGoesToItsBudget() {
+        FakeTicker ticker = new FakeTicker();
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, ticker);
+
+        // Handed out at the fallback rate, so the server's budget never counted it
+        limiter.reserve();
+        limiter.update(budget(0, 600, 600));
+        limiter.release();
+        assertEquals(limiter.getState().getRemaining(), 600, 0);
+
+        limiter.reserve();
+        assertEquals(limiter.getState().getRemaining(), 599, 0);
+        limiter.release();
+        assertEquals(limiter.getState().getRemaining(), 600, 0);
+    }
+
+    private static long secondInterval(Headers budget) {
+        AdaptiveRatelimiter limiter = new AdaptiveRatelimiter(30, 0.5, 2, new FakeTicker());
+        limiter.update(budget);
+        limiter.reserve();
+        return limiter.reserve();
+    }
+
+    private static Headers budget(int used, int remaining, int reset) {
+        return Headers.of(
+                AdaptiveRatelimiter.HEADER_USED, String.valueOf(used),
+                AdaptiveRatelimiter.HEADER_REMAINING, remaining + ".0",
+                AdaptiveRatelimiter.HEADER_RESET, String.valueOf(reset));
+    }
+}
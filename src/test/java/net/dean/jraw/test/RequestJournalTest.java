@@ -0,0 +1,131 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RequestJournal;
+import net.dean.jraw.test.stub.LoadDriver;
+import net.dean.jraw.test.stub.LoadReport;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+/** Tests the RequestJournal a RestClient records its requests in, without touching the network */
+public class RequestJournalTest extends RedditTest {
+
+    @Test
+    public void testRequestsAreRecorded() throws NetworkException {
+        RedditClient client = newClient();
+        for (int i = 0; i < 3; i++) {
+            client.execute(client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, "pics").build());
+        }
+
+        List<RequestJournal.Entry> entries = client.getJournal().snapshot();
+        assertEquals(entries.size(), 3);
+        for (RequestJournal.Entry entry : entries) {
+            assertEquals(entry.getMethod(), "GET");
+            assertEquals(entry.getEndpoint(), "GET /r/{subreddit}/about.json");
+            assertEquals(entry.getCode(), 200);
+            assertEquals(entry.getResponseBytes(), FakeTransport.JSON.length);
+            assertNull(entry.getError());
+            // Responses are not retained by default
+            assertNull(entry.getResponse());
+        }
+    }
+
+    @Test
+    public void testOldestEntriesAreOverwritten() throws NetworkException {
+        RedditClient client = newClient();
+        RequestJournal journal = new RequestJournal(4);
+        journal.setRetainResponses(true);
+        client.setJournal(journal);
+        for (int i = 0; i < 10; i++) {
+            client.execute(client.request().endpoint(Endpoints.ME).build());
+        }
+
+        List<RequestJournal.Entry> entries = journal.snapshot();
+        assertEquals(journal.getTotalCount(), 10);
+        assertEquals(entries.size(), 4);
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).getSequence(), 6 + i);
+            assertNotNull(entries.get(i).getResponse());
+        }
+
+        journal.clear();
+        assertTrue(journal.snapshot().isEmpty());
+        client.execute(client.request().endpoint(Endpoints.ME).build());
+        assertEquals(journal.snapshot().size(), 1);
+    }
+
+    @Test
+    public void testConcurrentWrites() throws InterruptedException {
+        RedditClient client = newClient();
+        RequestJournal journal = new RequestJournal(64);
+        client.setJournal(journal);
+
+        LoadReport report = new LoadDriver(8).run(() ->
+                client.execute(client.request().endpoint(Endpoints.ME).build()), 8000);
+        assertEquals(report.getErrors(), 0, report.toString());
+        assertEquals(journal.getTotalCount(), 8000);
+
+        // A writer that was preempted for a long time can overwrite a newer entry, so a few may be missing
+        List<RequestJournal.Entry> entries = journal.snapshot();
+        assertTrue(entries.size() > 0 && entries.size() <= 64, "Unexpected size " + entries.size());
+        long previous = 8000 - 64 - 1;
+        for (RequestJournal.Entry entry : entries) {
+            assertTrue(entry.getSequence() > previous, "Out of order: " + entries);
+            previous = entry.getSequence();
+        }
+    }
+
+    @Test
+    public void testSnapshotWhileClearing() throws InterruptedException {
+        RedditClient client = newClient();
+        RequestJournal journal = new RequestJournal(64);
+        client.setJournal(journal);
+
+        // Snapshots that overlap a clear() and new entries must not fail
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            boolean clearing = i == 0;
+            readers.add(new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        if (clearing) {
+                            journal.clear();
+                        } else {
+                            journal.snapshot();
+                        }
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        LoadReport report = new LoadDriver(4).run(() ->
+                client.execute(client.request().endpoint(Endpoints.ME).build()), 20000);
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(report.getErrors(), 0, report.toString());
+        assertNull(error.get());
+    }
+
+    private RedditClient newClient() {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setCoalesceRequests(false);
+        client.setTransport(new FakeTransport());
+        return client;
+    }
+}
@@ -0,0 +1,154 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RatelimitState;
+import net.dean.jraw.http.Ratelimiter;
+import net.dean.jraw.http.RequestPriority;
+import net.dean.jraw.http.RequestScheduler;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.http.StaticRatelimiter;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.*;
+
+/** Tests the order in which a RequestScheduler hands out rate limit permits, without touching the network */
+public class RequestSchedulerTest extends RedditTest {
+    @Test
+    public void testHigherPrioritiesGoFirst() {
+        GatedRatelimiter ratelimiter = new GatedRatelimiter();
+        RequestScheduler scheduler = new RequestScheduler(ratelimiter);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        futures.add(enqueue(scheduler, order, RequestPriority.BACKGROUND, "crawler", "b1"));
+        futures.add(enqueue(scheduler, order, RequestPriority.BACKGROUND, "crawler", "b2"));
+        futures.add(enqueue(scheduler, order, RequestPriority.NORMAL, null, "n1"));
+        futures.add(enqueue(scheduler, order, RequestPriority.INTERACTIVE, "user", "i1"));
+        futures.add(enqueue(scheduler, order, RequestPriority.BACKGROUND, "crawler", "b3"));
+        assertEquals(scheduler.getQueueDepth(RequestPriority.BACKGROUND), 3);
+        assertEquals(scheduler.getQueueDepth(), 5);
+
+        ratelimiter.open();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+
+        assertEquals(order, list("i1", "n1", "b1", "b2", "b3"));
+        assertEquals(scheduler.getQueueDepth(), 0);
+        assertEquals(scheduler.getWaitTime(RequestPriority.INTERACTIVE).getCount(), 1);
+        assertEquals(scheduler.getWaitTime(RequestPriority.BACKGROUND).getCount(), 3);
+    }
+
+    @Test
+    public void testTenantsShareByWeight() {
+        GatedRatelimiter ratelimiter = new GatedRatelimiter();
+        RequestScheduler scheduler = new RequestScheduler(ratelimiter);
+        scheduler.setWeight("heavy", 3);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(enqueue(scheduler, order, RequestPriority.BACKGROUND, "heavy", "heavy"));
+            futures.add(enqueue(scheduler, order, RequestPriority.BACKGROUND, "light", "light"));
+        }
+        ratelimiter.open();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+
+        // While both tenants have requests waiting, the heavy one is given three permits for every one the light gets
+        assertEquals(Collections.frequency(order.subList(0, 8), "heavy"), 6, order.toString());
+        assertEquals(order.size(), 16);
+    }
+
+    @Test
+    public void testTimedOutRequestsLeaveTheQueue() throws InterruptedException {
+        GatedRatelimiter ratelimiter = new GatedRatelimiter();
+        RequestScheduler scheduler = new RequestScheduler(ratelimiter);
+        RestRequest request = new RestRequest.Builder().host("www.reddit.com").path("/api/me.json").build();
+
+        try {
+            scheduler.acquire(request, TimeUnit.MILLISECONDS.toNanos(50));
+            fail("Expected the wait to time out");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+        assertEquals(scheduler.getQueueDepth(), 0);
+        ratelimiter.open();
+    }
+
+    @Test
+    public void testClientWaitsThroughScheduler() throws NetworkException {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setCoalesceRequests(false);
+        client.setTransport(new FakeTransport());
+        client.setRatelimiter(new StaticRatelimiter(6000));
+        client.setEnforceRatelimit(true);
+        RequestScheduler scheduler = new RequestScheduler(client.getRatelimiter());
+        client.setRequestScheduler(scheduler);
+
+        client.execute(client.request().endpoint(Endpoints.ME).priority(RequestPriority.INTERACTIVE).build());
+        client.executeAsync(client.request().endpoint(Endpoints.ME).build()).join();
+
+        assertEquals(scheduler.getWaitTime(RequestPriority.INTERACTIVE).getCount(), 1);
+        assertEquals(scheduler.getWaitTime(RequestPriority.NORMAL).getCount(), 1);
+    }
+
+    private static CompletableFuture<Void> enqueue(RequestScheduler scheduler, List<String> order,
+                                                   RequestPriority priority, String tenant, String name) {
+        RestRequest request = new RestRequest.Builder()
+                .host("www.reddit.com")
+                .path("/api/me.json")
+                .priority(priority)
+                .tenant(tenant)
+                .build();
+        return scheduler.acquireAsync(request).thenRun(() -> order.add(name));
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+
+    /** Hands out permits immediately, but only once opened, so that every request is queued before the first permit */
+    private static class GatedRatelimiter implements Ratelimiter {
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        private void open() {
+            gate.countDown();
+        }
+
+        @Override
+        public long reserve() {
+            try {
+                assertTrue(gate.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean tryAcquire() {
+            return gate.getCount() == 0;
+        }
+
+        @Override
+        public void update(Headers headers) {
+            // Ignored
+        }
+
+        @Override
+        public RatelimitState getState() {
+            return null;
+        }
+    }
+}
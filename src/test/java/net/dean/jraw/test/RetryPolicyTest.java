@@ -0,0 +1,88 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.JrawUtils;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.http.RetryPolicy;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/** Tests the RetryPolicy's decisions without sending any requests */
+public class RetryPolicyTest extends RedditTest {
+    private final RestRequest get = new RestRequest.Builder()
+            .host("www.reddit.com")
+            .endpoint(Endpoints.SUBREDDIT_ABOUT, "pics")
+            .build();
+
+    @Test
+    public void testOnlyIdempotentRequestsAreRetried() {
+        RetryPolicy policy = new RetryPolicy.Builder().build();
+        RestRequest post = new RestRequest.Builder()
+                .host("www.reddit.com")
+                .endpoint(Endpoints.COMMENT)
+                .post(JrawUtils.args("text", "hi"))
+                .build();
+
+        assertTrue(policy.isIdempotent(get));
+        assertFalse(policy.isIdempotent(post));
+        assertTrue(policy.getRetryDelay(get, 1, response(503)) >= 0);
+        assertEquals(policy.getRetryDelay(post, 1, response(503)), -1);
+    }
+
+    @Test
+    public void testOnlyRetryableCodesAreRetried() {
+        RetryPolicy policy = new RetryPolicy.Builder().build();
+        assertEquals(policy.getRetryDelay(get, 1, response(404)), -1);
+        assertTrue(policy.getRetryDelay(get, 1, response(429)) >= 0);
+        assertTrue(policy.getRetryDelay(get, 1, null) >= 0);
+        assertEquals(policy.getRetryDelay(get, 3, response(503)), -1);
+    }
+
+    @Test
+    public void testBackoffIsBounded() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .maxAttempts(10)
+                .backoff(1, 4, TimeUnit.SECONDS)
+                .budget(0, 100)
+                .build();
+        for (int attempt = 1; attempt < 10; attempt++) {
+            long delay = policy.getRetryDelay(get, attempt, response(500));
+            assertTrue(delay >= 0 && delay <= TimeUnit.SECONDS.toNanos(4), "Delay out of bounds: " + delay);
+        }
+    }
+
+    @Test
+    public void testRetryAfterIsHonored() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .backoff(0, 0, TimeUnit.SECONDS)
+                .maxRetryAfter(10, TimeUnit.SECONDS)
+                .build();
+        assertEquals(policy.getRetryDelay(get, 1, response(429, "Retry-After", "5")), TimeUnit.SECONDS.toNanos(5));
+        assertEquals(policy.getRetryDelay(get, 1, response(429, "Retry-After", "60")), -1);
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .budget(0.5, 2)
+                .build();
+        assertTrue(policy.getRetryDelay(get, 1, response(500)) >= 0);
+        assertTrue(policy.getRetryDelay(get, 1, response(500)) >= 0);
+        assertEquals(policy.getRetryDelay(get, 1, response(500)), -1);
+
+        // Two new requests earn one more retry
+        policy.onRequest();
+        policy.onRequest();
+        assertTrue(policy.getRetryDelay(get, 1, response(500)) >= 0);
+        assertEquals(policy.getRetryDelay(get, 1, response(500)), -1);
+    }
+
+    private HttpResponse response(int code, String... headers) {
+        return new HttpResponse(get, code, "", Headers.of(headers), new byte[0]);
+    }
+}
@@ -0,0 +1,99 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.ApiException;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RetryPolicy;
+import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.Submission;
+import net.dean.jraw.pagination.SubredditPaginator;
+import net.dean.jraw.test.stub.LoadDriver;
+import net.dean.jraw.test.stub.LoadReport;
+import net.dean.jraw.test.stub.StubRedditServer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/** Runs a RedditClient against a StubRedditServer, without touching the network */
+public class StubServerTest extends RedditTest {
+    private StubRedditServer server;
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        server = new StubRedditServer().start();
+        server.addSubreddit("funny", 30);
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testPagination() {
+        SubredditPaginator paginator = new SubredditPaginator(newClient(), "pics");
+        paginator.setLimit(100);
+        Set<String> ids = new HashSet<>();
+        int pages = 0;
+        while (paginator.hasNext()) {
+            Listing<Submission> page = paginator.next();
+            for (Submission submission : page) {
+                assertTrue(ids.add(submission.getId()), "Duplicate submission " + submission.getId());
+            }
+            pages++;
+        }
+        assertEquals(pages, 3);
+        assertEquals(ids.size(), 250);
+    }
+
+    @Test
+    public void testModels() throws NetworkException, ApiException {
+        RedditClient reddit = newClient();
+        assertEquals(reddit.getSubreddit("funny").getDisplayName(), "funny");
+
+        Submission first = new SubredditPaginator(reddit, "funny").next().get(0);
+        Submission submission = reddit.getSubmission(first.getId());
+        assertEquals(submission.getTitle(), first.getTitle());
+        assertNotNull(submission.getComments());
+
+        assertEquals(reddit.login("stub_user", "hunter2").getFullName(), reddit.me().getFullName());
+    }
+
+    @Test
+    public void testRetriesThroughThrottling() throws Exception {
+        StubRedditServer throttled = new StubRedditServer().start();
+        try {
+            throttled.setThrottleRate(0.3, 0);
+            RedditClient client = new RedditClient(throttled.getHost(), getUserAgent(getClass()));
+            client.setEnforceRatelimit(false);
+            // Every call should reach the server
+            client.setCoalesceRequests(false);
+            client.setRetryPolicy(new RetryPolicy.Builder()
+                    .maxAttempts(10)
+                    .backoff(1, 5, TimeUnit.MILLISECONDS)
+                    .budget(1, 100)
+                    .build());
+
+            LoadReport report = new LoadDriver(4).run(() -> client.getSubreddit("pics"), 100);
+            assertEquals(report.getCalls(), 100);
+            assertEquals(report.getErrors(), 0, report.toString());
+            assertTrue(throttled.getResponseCount(429) > 0);
+            assertEquals(throttled.getRequestCount(), 100 + throttled.getResponseCount(429));
+        } finally {
+            throttled.close();
+        }
+    }
+
+    private RedditClient newClient() {
+        RedditClient client = new RedditClient(server.getHost(), getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        return client;
+    }
+}
@@ -0,0 +1,109 @@
+package net.dean.jraw.test;
+
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.models.Listing;
+import net.dean.jraw.models.Submission;
+import net.dean.jraw.models.ThingFilter;
+import org.codehaus.jackson.JsonNode;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+/** Tests that filters reject the children of a listing before they are parsed, without touching the network */
+public class ThingFilterTest extends RedditTest {
+    private static final String LISTING = "{\"kind\": \"Listing\", \"data\": {\"after\": null, \"before\": null, " +
+            "\"modhash\": \"\", \"children\": [" +
+            child("a", "alice", 50, false) + ", " +
+            child("b", "bob", 1, false) + ", " +
+            child("c", "carol", 80, true) + ", " +
+            child("d", "spammer", 99, false) + ", " +
+            "{\"kind\": \"more\", \"data\": {\"count\": 1, \"children\": [\"e\"]}}]}}";
+
+    @Test
+    public void testRejectedChildrenAreSkipped() {
+        ThingFilter sfw = ThingFilter.isFalse("over_18");
+        ThingFilter score = ThingFilter.atLeast("score", 10);
+        ThingFilter banned = ThingFilter.notIn("author", Collections.singleton("spammer"));
+
+        Listing<Submission> listing = parse().asListing(Submission.class, sfw, score, banned);
+
+        assertEquals(listing.size(), 1);
+        assertEquals(listing.get(0).getId(), "a");
+        assertNotNull(listing.getMoreChildren());
+
+        assertEquals(sfw.getEvaluatedCount(), 4);
+        assertEquals(sfw.getRejectedCount(), 1);
+        // Only the children the first filter accepted reach the second one
+        assertEquals(score.getEvaluatedCount(), 3);
+        assertEquals(score.getRejectedCount(), 1);
+        assertEquals(banned.getRejectedCount(), 1);
+    }
+
+    @Test
+    public void testAllowList() {
+        ThingFilter authors = ThingFilter.in("author", Collections.singleton("bob"));
+        Listing<Submission> listing = parse().asListing(Submission.class, authors);
+        assertEquals(listing.size(), 1);
+        assertEquals(listing.get(0).getAuthor(), "bob");
+        assertEquals(authors.getRejectedCount(), 3);
+    }
+
+    @Test
+    public void testRequestFiltersDropChildrenWhileReading() {
+        ThingFilter sfw = ThingFilter.isFalse("over_18");
+        ThingFilter banned = ThingFilter.notIn("author", Collections.singleton("spammer"));
+        RedditResponse response = parse(new RestRequest.Builder().host("www.reddit.com").path("/r/pics.json")
+                .filters(Arrays.asList(sfw, banned)).build());
+
+        // Rejected children never make it into the tree, but the "more" child does
+        JsonNode children = response.getJson().get("data").get("children");
+        assertEquals(children.size(), 3);
+        assertEquals(children.get(2).get("kind").asText(), "more");
+        assertEquals(sfw.getEvaluatedCount(), 4);
+        assertEquals(banned.getRejectedCount(), 1);
+
+        Listing<Submission> listing = response.asListing(Submission.class);
+        assertEquals(listing.size(), 2);
+        assertEquals(listing.get(0).getId(), "a");
+        assertEquals(listing.get(1).getId(), "b");
+        assertNotNull(listing.getMoreChildren());
+
+        // The body is only kept when the request asks for it
+        assertNull(response.getRaw());
+    }
+
+    @Test
+    public void testKeptRawBodyIsWhatWasReceived() {
+        ThingFilter sfw = ThingFilter.isFalse("over_18");
+        RedditResponse response = parse(new RestRequest.Builder().host("www.reddit.com").path("/r/pics.json")
+                .filters(Collections.singletonList(sfw))
+                .keepRaw(true)
+                .build());
+
+        // The raw body is what was received, not the filtered tree
+        assertEquals(response.getJson().get("data").get("children").size(), 4);
+        assertEquals(response.getRaw(), LISTING);
+    }
+
+    private static String child(String id, String author, int score, boolean nsfw) {
+        return "{\"kind\": \"t3\", \"data\": {\"id\": \"" + id + "\", \"name\": \"t3_" + id + "\", \"author\": \"" +
+                author + "\", \"score\": " + score + ", \"over_18\": " + nsfw + "}}";
+    }
+
+    private RedditResponse parse() {
+        return parse(new RestRequest.Builder().host("www.reddit.com").path("/r/pics.json").build());
+    }
+
+    private RedditResponse parse(RestRequest request) {
+        return new RedditResponse(new HttpResponse(request, 200, "OK",
+                Headers.of("Content-Type", "application/json; charset=UTF-8"),
+                LISTING.getBytes(StandardCharsets.UTF_8)));
+    }
+}
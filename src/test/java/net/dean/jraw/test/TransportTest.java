@@ -0,0 +1,290 @@
+package net.dean.jraw.test;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import net.dean.jraw.Endpoints;
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.CircuitBreakerConfig;
+import net.dean.jraw.http.Headers;
+import net.dean.jraw.http.HttpRecording;
+import net.dean.jraw.http.HttpResponse;
+import net.dean.jraw.http.HttpTransport;
+import net.dean.jraw.http.NetworkException;
+import net.dean.jraw.http.RecordingTransport;
+import net.dean.jraw.http.RedditResponse;
+import net.dean.jraw.http.ReplayTransport;
+import net.dean.jraw.http.RestRequest;
+import net.dean.jraw.http.StaticRatelimiter;
+import net.dean.jraw.http.TransportConfig;
+import net.dean.jraw.http.UrlConnectionTransport;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.*;
+
+/** Tests that a RestClient works the same way with any HttpTransport, without touching the network */
+public class TransportTest extends RedditTest {
+    @Test
+    public void testCustomTransport() throws NetworkException {
+        FakeTransport transport = new FakeTransport();
+        RedditClient client = newClient(transport);
+
+        RedditResponse response = client.execute(request(client));
+        assertEquals(response.getJson().get("kind").asText(), "t5");
+        assertEquals(transport.sent.size(), 1);
+        assertEquals(transport.sent.get(0).getHeader("User-Agent"), client.getUserAgent());
+    }
+
+    @Test
+    public void testEachRequestIsSentOnceAndStreamed() throws NetworkException {
+        List<ByteArrayInputStream> bodies = new CopyOnWriteArrayList<>();
+        FakeTransport transport = new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                sent.add(request);
+                ByteArrayInputStream body = new ByteArrayInputStream(JSON);
+                bodies.add(body);
+                return new HttpResponse(request, 200, "OK",
+                        Headers.of("Content-Type", "application/json; charset=UTF-8"), body);
+            }
+        };
+        RedditClient client = newClient(transport);
+
+        for (int i = 1; i <= 3; i++) {
+            RedditResponse response = client.execute(request(client));
+            assertEquals(response.getJson().get("kind").asText(), "t5");
+            assertEquals(transport.sent.size(), i);
+            // The JSON was decoded from the body the transport returned
+            assertEquals(bodies.get(i - 1).available(), 0);
+        }
+    }
+
+    @Test
+    public void testAsyncSuccess() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        RedditClient client = newClient(transport);
+
+        CompletableFuture<RedditResponse> future = client.executeAsync(request(client));
+        assertEquals(future.get(5, TimeUnit.SECONDS).getJson().get("kind").asText(), "t5");
+        assertEquals(transport.sent.size(), 1);
+    }
+
+    @Test
+    public void testAsyncFailure() throws Exception {
+        RedditClient client = newClient(new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                sent.add(request);
+                return new HttpResponse(request, 503, "Service Unavailable", Headers.of(), new byte[0]);
+            }
+        });
+
+        try {
+            client.executeAsync(request(client)).get(5, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NetworkException, String.valueOf(e.getCause()));
+            assertEquals(((NetworkException) e.getCause()).getCode(), 503);
+        }
+    }
+
+    @Test
+    public void testCookiesAreSentBack() throws Exception {
+        FakeTransport transport = new FakeTransport("Set-Cookie", "session=abc; Path=/");
+        RedditClient client = newClient(transport);
+
+        client.execute(request(client));
+        client.executeAsync(request(client)).get();
+        assertNull(transport.sent.get(0).getHeader("Cookie"));
+        assertEquals(transport.sent.get(1).getHeader("Cookie"), "session=abc");
+    }
+
+    @Test(expectedExceptions = NetworkException.class)
+    public void testTransportErrorIsWrapped() throws NetworkException {
+        RedditClient client = newClient(new FakeTransport() {
+            @Override
+            public HttpResponse execute(RestRequest request) throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+        client.execute(request(client));
+    }
+
+    @Test
+    public void testSynchronousTransportErrorFailsFuture() throws Exception {
+        IllegalArgumentException error = new IllegalArgumentException("unexpected url");
+        RedditClient client = newClient(new FakeTransport() {
+            @Override
+            public CompletableFuture<HttpResponse> executeAsync(RestRequest request) {
+                throw error;
+            }
+        });
+        StaticRatelimiter ratelimiter = new StaticRatelimiter(60, new FakeTicker());
+        client.setRatelimiter(ratelimiter);
+        client.setEnforceRatelimit(true);
+        client.setCircuitBreakerConfig(new CircuitBreakerConfig.Builder().build());
+
+        try {
+            client.executeAsync(request(client)).get(5, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertSame(e.getCause(), error);
+        }
+        assertEquals(client.getCircuitBreaker(client.getDefaultHost()).getFailureRate(), 1.0);
+        // Nothing was sent, so the permit is given back
+        assertEquals(ratelimiter.reserve(), 0);
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        HttpRecording recording = new HttpRecording();
+        RedditClient client = newClient(new RecordingTransport(new FakeTransport(), recording));
+        client.execute(request(client));
+        assertEquals(recording.size(), 1);
+
+        File file = File.createTempFile("jraw", ".rec");
+        file.deleteOnExit();
+        recording.save(file);
+
+        ReplayTransport replay = new ReplayTransport(HttpRecording.load(file));
+        client.setTransport(replay);
+        client.setCoalesceRequests(false);
+        assertEquals(client.execute(request(client)).getJson().get("kind").asText(), "t5");
+        assertEquals(client.executeAsync(request(client)).get().getJson().get("kind").asText(), "t5");
+
+        try {
+            client.execute(client.request().endpoint(Endpoints.SUBREDDIT_ABOUT, "funny").build());
+            fail("Expected a request that was never recorded to fail");
+        } catch (NetworkException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRecordingLeavesOutCredentials() throws Exception {
+        HttpRecording recording = new HttpRecording();
+        RecordingTransport transport = new RecordingTransport(
+                new FakeTransport("Set-Cookie", "reddit_session=secret", "X-Ratelimit-Remaining", "60"), recording);
+        RedditClient client = newClient(transport);
+        RestRequest request = request(client);
+
+        // The client still gets the cookie
+        assertEquals(transport.execute(request).getHeader("Set-Cookie"), "reddit_session=secret");
+
+        File file = File.createTempFile("jraw", ".rec");
+        file.deleteOnExit();
+        recording.save(file);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            String saved = new String(ByteStreams.toByteArray(in), StandardCharsets.ISO_8859_1);
+            assertFalse(saved.contains("Set-Cookie"));
+            assertFalse(saved.contains("reddit_session"));
+        }
+
+        HttpResponse replayed = new ReplayTransport(HttpRecording.load(file)).execute(request);
+        assertNull(replayed.getHeader("Set-Cookie"));
+        assertEquals(replayed.getHeader("X-Ratelimit-Remaining"), "60");
+    }
+
+    @Test
+    public void testGzippedResponsesAreDecompressed() throws Exception {
+        AtomicBoolean compressed = new AtomicBoolean();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            boolean gzip = "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            compressed.set(gzip);
+            byte[] body = FakeTransport.JSON;
+            if (gzip) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                    out.write(body);
+                }
+                body = buffer.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            RedditClient client = new RedditClient("localhost:" + server.getAddress().getPort(),
+                    getUserAgent(getClass()));
+            client.setEnforceRatelimit(false);
+            client.setTransport(new UrlConnectionTransport(new TransportConfig.Builder().gzip(true).build()));
+
+            RedditResponse response = client.execute(request(client));
+            assertEquals(response.getJson().get("kind").asText(), "t5");
+            assertTrue(compressed.get(), "The response was not compressed");
+
+            // Like OkHttpTransport, it asks for gzip by default
+            compressed.set(false);
+            client.setTransport(new UrlConnectionTransport());
+            assertEquals(client.execute(request(client)).getJson().get("kind").asText(), "t5");
+            assertTrue(compressed.get(), "The response was not compressed by default");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(expectedExceptions = NetworkException.class)
+    public void testCallTimeout() throws NetworkException {
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            RedditClient client = new RedditClient("localhost:" + server.getAddress().getPort(),
+                    getUserAgent(getClass()));
+            client.setEnforceRatelimit(false);
+            client.setTransport(new UrlConnectionTransport(new TransportConfig.Builder()
+                    .callTimeout(200, TimeUnit.MILLISECONDS)
+                    .build()));
+            client.execute(request(client));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private RedditClient newClient(HttpTransport transport) {
+        RedditClient client = new RedditClient(getUserAgent(getClass()));
+        client.setEnforceRatelimit(false);
+        client.setTransport(transport);
+        return client;
+    }
+
+    private RestRequest request(RedditClient client) {
+        return client.request()
+                .endpoint(Endpoints.SUBREDDIT_ABOUT, "pics")
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package net.dean.jraw.test.stub;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A distribution of the time a {@link StubRedditServer} waits before responding
+ */
+@FunctionalInterface
+public interface Latency {
+
+    /**
+     * Picks the latency of one response
+     *
+     * @param random The source of randomness to use
+     * @return The amount of nanoseconds to wait
+     */
+    long nextNanos(Random random);
+
+    /**
+     * Responds immediately
+     * @return A Latency that is always 0
+     */
+    static Latency none() {
+        return random -> 0;
+    }
+
+    /**
+     * Always waits the same amount of time
+     *
+     * @param duration The amount of time
+     * @param unit The unit of {@code duration}
+     * @return A new Latency
+     */
+    static Latency fixed(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        return random -> nanos;
+    }
+
+    /**
+     * Waits a uniformly distributed amount of time
+     *
+     * @param min The shortest wait
+     * @param max The longest wait
+     * @param unit The unit of {@code min} and {@code max}
+     * @return A new Latency
+     */
+    static Latency uniform(long min, long max, TimeUnit unit) {
+        long minNanos = unit.toNanos(min);
+        long range = unit.toNanos(max) - minNanos;
+        return random -> minNanos + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Waits a log-normally distributed amount of time, which has the long tail real servers tend to have
+     *
+     * @param median The median wait
+     * @param sigma The standard deviation of the underlying normal distribution. 0.5 gives a p99 of about three times
+     *              the median, 1.0 of about ten times.
+     * @param unit The unit of {@code median}
+     * @return A new Latency
+     */
+    static Latency logNormal(long median, double sigma, TimeUnit unit) {
+        long medianNanos = unit.toNanos(median);
+        return random -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+    }
+}
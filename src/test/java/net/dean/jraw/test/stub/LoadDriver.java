@@ -0,0 +1,179 @@
+package net.dean.jraw.test.stub;
+
+import net.dean.jraw.RedditClient;
+import net.dean.jraw.http.RetryPolicy;
+import net.dean.jraw.pagination.SubredditPaginator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class calls a task from several threads at once and measures how long every call takes. It is meant to be
+ * pointed at a {@link StubRedditServer} to see how the rate limiter, retries, and pagination behave under load.
+ *
+ * <p>Running this class starts a StubRedditServer and pages through one of its subreddits:
+ * <pre>
+ * LoadDriver [threads] [seconds] [median latency in ms] [error rate]
+ * </pre>
+ */
+public class LoadDriver {
+    private final int threads;
+
+    /**
+     * Instantiates a new LoadDriver
+     * @param threads The amount of threads that will call the task at the same time
+     */
+    public LoadDriver(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Calls a task repeatedly until some time has passed
+     *
+     * @param task The task to call
+     * @param duration How long to keep calling it
+     * @param unit The unit of {@code duration}
+     * @return The results of the run
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the run to end
+     */
+    public LoadReport run(Task task, long duration, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(duration);
+        return run(task, () -> System.nanoTime() < deadline);
+    }
+
+    /**
+     * Calls a task a fixed amount of times
+     *
+     * @param task The task to call
+     * @param calls The total amount of calls, spread over all threads
+     * @return The results of the run
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the run to end
+     */
+    public LoadReport run(Task task, long calls) throws InterruptedException {
+        AtomicLong remaining = new AtomicLong(calls);
+        return run(task, () -> remaining.getAndDecrement() > 0);
+    }
+
+    private LoadReport run(Task task, BooleanSupplier keepGoing) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Worker> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(task, keepGoing, start);
+            worker.setName("load-driver-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] latencies = new long[0];
+        Map<String, Long> errorTypes = new HashMap<>();
+        for (Worker worker : workers) {
+            worker.join();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            worker.errorTypes.forEach((type, count) -> errorTypes.merge(type, count, Long::sum));
+        }
+        return new LoadReport(latencies, errorTypes, System.nanoTime() - begin);
+    }
+
+    /**
+     * Something to call under load
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Makes one call. Calls that throw an exception are counted as errors.
+         * @throws Exception If the call failed
+         */
+        void run() throws Exception;
+    }
+
+    private static final class Worker extends Thread {
+        private final Task task;
+        private final BooleanSupplier keepGoing;
+        private final CountDownLatch start;
+        private final Map<String, Long> errorTypes;
+        private long[] latencies;
+        private int count;
+
+        private Worker(Task task, BooleanSupplier keepGoing, CountDownLatch start) {
+            this.task = task;
+            this.keepGoing = keepGoing;
+            this.start = start;
+            this.errorTypes = new HashMap<>();
+            this.latencies = new long[1024];
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            while (keepGoing.getAsBoolean()) {
+                long begin = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    errorTypes.merge(e.getClass().getSimpleName(), 1L, Long::sum);
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - begin;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int latencyMillis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double errorRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+
+        try (StubRedditServer server = new StubRedditServer().start()) {
+            server.setLatency(Latency.logNormal(latencyMillis, 0.5, TimeUnit.MILLISECONDS));
+            server.setErrorRate(errorRate);
+
+            RedditClient reddit = new RedditClient(server.getHost(), "LoadDriver for JRAW");
+            reddit.setEnforceRatelimit(false);
+            reddit.setRetryPolicy(new RetryPolicy.Builder()
+                    .backoff(10, 100, TimeUnit.MILLISECONDS)
+                    .build());
+            ThreadLocal<SubredditPaginator> paginators = ThreadLocal.withInitial(() -> {
+                SubredditPaginator paginator = new SubredditPaginator(reddit, "pics");
+                paginator.setLimit(100);
+                return paginator;
+            });
+
+            LoadReport report = new LoadDriver(threads).run(() -> {
+                SubredditPaginator paginator = paginators.get();
+                if (!paginator.hasNext()) {
+                    paginator.reset();
+                }
+                paginator.next();
+            }, seconds, TimeUnit.SECONDS);
+
+            System.out.println(report);
+            System.out.printf("Server saw %d requests, %d of which failed, and %d calls were coalesced%n",
+                    server.getRequestCount(),
+                    server.getResponseCount(500) + server.getResponseCount(502) + server.getResponseCount(503),
+                    reddit.getCoalescedRequestCount());
+        }
+    }
+}
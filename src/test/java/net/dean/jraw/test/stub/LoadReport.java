@@ -0,0 +1,96 @@
+package net.dean.jraw.test.stub;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link LoadDriver} run: how many calls were made, how fast, and how long they took
+ */
+public final class LoadReport {
+    private final long[] latencies;
+    private final long errors;
+    private final Map<String, Long> errorTypes;
+    private final long elapsedNanos;
+
+    LoadReport(long[] latencies, Map<String, Long> errorTypes, long elapsedNanos) {
+        this.latencies = latencies.clone();
+        Arrays.sort(this.latencies);
+        this.errorTypes = Collections.unmodifiableMap(new TreeMap<>(errorTypes));
+        long errors = 0;
+        for (long count : errorTypes.values()) {
+            errors += count;
+        }
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the amount of calls made, including failed ones
+     * @return The amount of calls
+     */
+    public long getCalls() {
+        return latencies.length;
+    }
+
+    /**
+     * Gets the amount of calls that threw an exception
+     * @return The amount of failed calls
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets the amount of failed calls by the simple name of the exception they threw
+     * @return An unmodifiable map of exception names to counts
+     */
+    public Map<String, Long> getErrorTypes() {
+        return errorTypes;
+    }
+
+    /**
+     * Gets the amount of calls completed per second
+     * @return The throughput
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : latencies.length / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Gets a latency percentile using the nearest-rank method
+     *
+     * @param percentile A number between 0 and 100, for example 99.9
+     * @param unit The unit of the returned value
+     * @return The latency below which the given percentage of calls fall, or 0 if no calls were made
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        if (latencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return unit.convert(latencies[Math.max(0, rank - 1)], TimeUnit.NANOSECONDS);
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d calls (%d failed) in %.1f s, %.1f calls/s, latency p50=%.2f ms p90=%.2f ms " +
+                        "p99=%.2f ms p99.9=%.2f ms max=%.2f ms%s",
+                getCalls(), errors, elapsedNanos / 1e9, getThroughput(),
+                millis(50), millis(90), millis(99), millis(99.9), millis(100),
+                errorTypes.isEmpty() ? "" : ", errors=" + errorTypes);
+    }
+
+    private double millis(double percentile) {
+        return getPercentile(percentile, TimeUnit.MICROSECONDS) / 1000.0;
+    }
+}
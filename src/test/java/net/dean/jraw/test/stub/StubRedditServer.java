@@ -0,0 +1,520 @@
+package net.dean.jraw.test.stub;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is an embeddable HTTP server that imitates the parts of the Reddit API JRAW reads the most, filled with
+ * generated data:
+ *
+ * <ul>
+ *     <li>Listings of submissions ({@code /{sorting}.json} and {@code /r/{subreddit}/{sorting}.json}) that honor
+ *     {@code limit}, {@code after}, and {@code before}</li>
+ *     <li>{@code /r/{subreddit}/about.json}</li>
+ *     <li>{@code /comments/{id}.json}</li>
+ *     <li>{@code /by_id/{fullnames}.json}</li>
+ *     <li>{@code /api/login} (any username and password work) and {@code /api/me.json}</li>
+ * </ul>
+ *
+ * <p>Every response carries {@code X-Ratelimit-*} headers. Latency, server errors, 429s, and slow bodies can be
+ * injected, and can be changed while the server is running. Point a RedditClient at it using
+ * {@code new RedditClient(server.getHost(), userAgent)}.
+ */
+public class StubRedditServer implements AutoCloseable {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int[] ERROR_CODES = {500, 502, 503};
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    /** Generated submissions by subreddit, in the order subreddits were added. Replaced as a whole when modified. */
+    private volatile Map<String, List<Map<String, Object>>> subreddits;
+    private final Map<String, Map<String, Object>> submissions;
+    /** Logged in users by modhash */
+    private final Map<String, String> sessions;
+
+    private volatile Latency latency;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile int throttleRetryAfter;
+    private volatile long bodyBytesPerSecond;
+
+    // Rate limit window, guarded by this
+    private int ratelimitRequests;
+    private long ratelimitPeriodNanos;
+    private boolean enforceRatelimit;
+    private long windowStart;
+    private int windowUsed;
+
+    private final AtomicLong requestCount;
+    private final Map<Integer, AtomicLong> responseCodes;
+
+    /**
+     * Instantiates a new StubRedditServer bound to a random port on the loopback interface. It has one subreddit, "pics",
+     * with 250 submissions, and reports a rate limit of 600 requests every 10 minutes without enforcing it.
+     *
+     * @throws IOException If the server could not be bound
+     */
+    public StubRedditServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Latency is simulated by sleeping, so every request needs its own thread
+        this.executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("stub-reddit-%d")
+                .build());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+
+        this.subreddits = Collections.emptyMap();
+        this.submissions = new ConcurrentHashMap<>();
+        this.sessions = new ConcurrentHashMap<>();
+        this.latency = Latency.none();
+        this.ratelimitRequests = 600;
+        this.ratelimitPeriodNanos = TimeUnit.MINUTES.toNanos(10);
+        this.windowStart = System.nanoTime();
+        this.requestCount = new AtomicLong();
+        this.responseCodes = new ConcurrentHashMap<>();
+        addSubreddit("pics", 250);
+    }
+
+    /**
+     * Starts accepting requests
+     * @return This server
+     */
+    public StubRedditServer start() {
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the host to point a RedditClient at
+     * @return The address and port of this server, for example "127.0.0.1:51234"
+     */
+    public String getHost() {
+        return "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Adds a subreddit filled with generated submissions. Adding a subreddit that already exists replaces it.
+     *
+     * @param name The subreddit's name
+     * @param size The amount of submissions in it
+     */
+    public synchronized void addSubreddit(String name, int size) {
+        Map<String, List<Map<String, Object>>> updated = new LinkedHashMap<>(subreddits);
+        int index = updated.containsKey(name) ? new ArrayList<>(updated.keySet()).indexOf(name) : updated.size();
+        List<Map<String, Object>> links = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> link = link(name, Long.toString(index * 1_000_000L + i, 36));
+            links.add(link);
+            submissions.put((String) link.get("name"), link);
+        }
+        updated.put(name, Collections.unmodifiableList(links));
+        this.subreddits = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Sets how long the server waits before responding
+     * @param latency The latency distribution to use
+     */
+    public void setLatency(Latency latency) {
+        if (latency == null) {
+            throw new NullPointerException("latency cannot be null");
+        }
+        this.latency = latency;
+    }
+
+    /**
+     * Sets the fraction of requests that fail with a 500, 502, or 503
+     * @param errorRate A number between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = checkRate(errorRate);
+    }
+
+    /**
+     * Sets the fraction of requests that are rejected with a 429 regardless of the rate limit
+     *
+     * @param throttleRate A number between 0 and 1
+     * @param retryAfterSeconds The value of the Retry-After header sent along, or a negative number to send none
+     */
+    public void setThrottleRate(double throttleRate, int retryAfterSeconds) {
+        this.throttleRate = checkRate(throttleRate);
+        this.throttleRetryAfter = retryAfterSeconds;
+    }
+
+    /**
+     * Limits how fast response bodies are sent, to imitate a slow or congested connection
+     * @param bytesPerSecond The maximum speed, or 0 for no limit
+     */
+    public void setBodyRate(long bytesPerSecond) {
+        this.bodyBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Sets the rate limit reported in the X-Ratelimit headers. Starts a new window.
+     *
+     * @param requests The amount of requests allowed in each window
+     * @param period The length of a window
+     * @param unit The unit of {@code period}
+     * @param enforce If requests over the limit should be rejected with a 429
+     */
+    public synchronized void setRatelimit(int requests, long period, TimeUnit unit, boolean enforce) {
+        this.ratelimitRequests = requests;
+        this.ratelimitPeriodNanos = unit.toNanos(period);
+        this.enforceRatelimit = enforce;
+        this.windowStart = System.nanoTime();
+        this.windowUsed = 0;
+    }
+
+    /**
+     * Gets the amount of requests received so far
+     * @return The amount of requests
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Gets the amount of responses sent with a status code
+     *
+     * @param code The HTTP status code
+     * @return The amount of responses
+     */
+    public long getResponseCount(int code) {
+        AtomicLong count = responseCodes.get(code);
+        return count != null ? count.get() : 0;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            Random random = ThreadLocalRandom.current();
+            long delay = latency.nextNanos(random);
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+
+            Map<String, String> ratelimit = new LinkedHashMap<>();
+            boolean allowed = consumeRatelimit(ratelimit);
+            ratelimit.forEach(exchange.getResponseHeaders()::set);
+
+            if (!allowed) {
+                respond(exchange, 429, error(429), ratelimit.get("X-Ratelimit-Reset"));
+            } else if (random.nextDouble() < throttleRate) {
+                respond(exchange, 429, error(429), throttleRetryAfter >= 0 ? String.valueOf(throttleRetryAfter) : null);
+            } else if (random.nextDouble() < errorRate) {
+                int code = ERROR_CODES[random.nextInt(ERROR_CODES.length)];
+                respond(exchange, code, error(code), null);
+            } else {
+                route(exchange);
+            }
+        } catch (InterruptedException e) {
+            // The server is shutting down
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private synchronized boolean consumeRatelimit(Map<String, String> headers) {
+        long now = System.nanoTime();
+        if (now - windowStart >= ratelimitPeriodNanos) {
+            windowStart = now;
+            windowUsed = 0;
+        }
+        boolean allowed = !enforceRatelimit || windowUsed < ratelimitRequests;
+        if (allowed) {
+            windowUsed++;
+        }
+        long reset = TimeUnit.NANOSECONDS.toSeconds(ratelimitPeriodNanos - (now - windowStart));
+        headers.put("X-Ratelimit-Used", String.valueOf(windowUsed));
+        headers.put("X-Ratelimit-Remaining", String.valueOf(Math.max(0, ratelimitRequests - windowUsed)));
+        headers.put("X-Ratelimit-Reset", String.valueOf(reset));
+        return allowed;
+    }
+
+    private void route(HttpExchange exchange) throws IOException, InterruptedException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith(".json")) {
+            path = path.substring(0, path.length() - ".json".length());
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String[] parts = path.substring(1).split("/");
+
+        Object body = null;
+        if (parts.length == 2 && parts[0].equals("api") && parts[1].equals("login")) {
+            body = login(exchange);
+        } else if (parts.length == 2 && parts[0].equals("api") && parts[1].equals("me")) {
+            String user = sessions.get(String.valueOf(exchange.getRequestHeaders().getFirst("X-Modhash")));
+            body = user != null ? thing("t2", account(user)) : new HashMap<>();
+        } else if (parts.length == 2 && parts[0].equals("comments")) {
+            Map<String, Object> link = submissions.get("t3_" + parts[1]);
+            if (link != null) {
+                body = Arrays.asList(listing(Collections.singletonList(thing("t3", link)), null, null),
+                        listing(comments(link, query), null, null));
+            }
+        } else if (parts.length == 2 && parts[0].equals("by_id")) {
+            List<Map<String, Object>> found = new ArrayList<>();
+            for (String name : parts[1].split(",")) {
+                if (submissions.containsKey(name)) {
+                    found.add(submissions.get(name));
+                }
+            }
+            body = page(found, query);
+        } else if (parts.length == 3 && parts[0].equals("r") && parts[2].equals("about")) {
+            if (subreddits.containsKey(parts[1])) {
+                body = thing("t5", subreddit(parts[1]));
+            }
+        } else if (parts.length == 3 && parts[0].equals("r")) {
+            List<Map<String, Object>> links = subreddits.get(parts[1]);
+            if (links != null) {
+                body = page(links, query);
+            }
+        } else if (parts.length == 1 && !parts[0].isEmpty()) {
+            // The front page is every subreddit, one after another
+            List<Map<String, Object>> links = new ArrayList<>();
+            subreddits.values().forEach(links::addAll);
+            body = page(links, query);
+        }
+
+        if (body == null) {
+            respond(exchange, 404, error(404), null);
+        } else {
+            respond(exchange, 200, body, null);
+        }
+    }
+
+    private Map<String, Object> login(HttpExchange exchange) throws IOException {
+        Map<String, String> form = parseQuery(new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+        String user = form.getOrDefault("user", "stub_user");
+        String modhash = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        sessions.put(modhash, user);
+        exchange.getResponseHeaders().add("Set-Cookie", "reddit_session=" + modhash + "; Path=/; HttpOnly");
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("need_https", false);
+        data.put("modhash", modhash);
+        data.put("cookie", modhash);
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("errors", Collections.emptyList());
+        json.put("data", data);
+        return Collections.singletonMap("json", json);
+    }
+
+    /** Creates one page of a listing, honoring the limit, after, and before query parameters */
+    private Map<String, Object> page(List<Map<String, Object>> links, Map<String, String> query) {
+        int limit = Math.max(1, Math.min(100, parseInt(query.get("limit"), 25)));
+        int start = 0;
+        int end = links.size();
+        if (query.containsKey("after")) {
+            start = indexOf(links, query.get("after")) + 1;
+            end = Math.min(links.size(), start + limit);
+        } else if (query.containsKey("before")) {
+            end = Math.max(0, indexOf(links, query.get("before")));
+            start = Math.max(0, end - limit);
+        } else {
+            end = Math.min(links.size(), limit);
+        }
+
+        List<Object> children = new ArrayList<>();
+        for (Map<String, Object> link : links.subList(start, Math.max(start, end))) {
+            children.add(thing("t3", link));
+        }
+        String after = end < links.size() && end > start ? (String) links.get(end - 1).get("name") : null;
+        String before = start > 0 && end > start ? (String) links.get(start).get("name") : null;
+        return listing(children, after, before);
+    }
+
+    private static int indexOf(List<Map<String, Object>> links, String name) {
+        for (int i = 0; i < links.size(); i++) {
+            if (links.get(i).get("name").equals(name)) {
+                return i;
+            }
+        }
+        // Unknown names act like the end of the listing, like on Reddit
+        return links.size();
+    }
+
+    private static Map<String, Object> listing(List<?> children, String after, String before) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("modhash", "");
+        data.put("children", children);
+        data.put("after", after);
+        data.put("before", before);
+        return thing("Listing", data);
+    }
+
+    private static Map<String, Object> thing(String kind, Map<String, Object> data) {
+        Map<String, Object> thing = new LinkedHashMap<>();
+        thing.put("kind", kind);
+        thing.put("data", data);
+        return thing;
+    }
+
+    private static Map<String, Object> link(String subreddit, String id) {
+        int seed = Integer.parseInt(id.substring(Math.max(0, id.length() - 4)), 36);
+        Map<String, Object> link = new LinkedHashMap<>();
+        link.put("id", id);
+        link.put("name", "t3_" + id);
+        link.put("subreddit", subreddit);
+        link.put("subreddit_id", "t5_" + Integer.toString(subreddit.hashCode() & 0xffff, 36));
+        link.put("title", "Generated submission " + id + " in /r/" + subreddit);
+        link.put("author", "user_" + (seed % 97));
+        link.put("author_flair_css_class", null);
+        link.put("author_flair_text", null);
+        link.put("domain", "self." + subreddit);
+        link.put("url", "http://www.reddit.com/r/" + subreddit + "/comments/" + id + "/");
+        link.put("permalink", "/r/" + subreddit + "/comments/" + id + "/");
+        link.put("selftext", "");
+        link.put("is_self", true);
+        link.put("over_18", false);
+        link.put("score", seed * 7 % 5000);
+        link.put("ups", seed * 7 % 5000);
+        link.put("downs", 0);
+        link.put("num_comments", seed % 50);
+        link.put("created_utc", 1_400_000_000L + seed * 60L);
+        link.put("created", 1_400_000_000L + seed * 60L);
+        return link;
+    }
+
+    private static List<Object> comments(Map<String, Object> link, Map<String, String> query) {
+        int count = Math.min((Integer) link.get("num_comments"), parseInt(query.get("limit"), 200));
+        List<Object> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = link.get("id") + "c" + Integer.toString(i, 36);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("id", id);
+            data.put("name", "t1_" + id);
+            data.put("link_id", link.get("name"));
+            data.put("parent_id", link.get("name"));
+            data.put("subreddit", link.get("subreddit"));
+            data.put("author", "user_" + (i % 97));
+            data.put("body", "Generated comment " + i);
+            data.put("score", i % 100);
+            data.put("ups", i % 100);
+            data.put("downs", 0);
+            data.put("replies", "");
+            data.put("created_utc", (Long) link.get("created_utc") + i);
+            comments.add(thing("t1", data));
+        }
+        return comments;
+    }
+
+    private Map<String, Object> subreddit(String name) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        String id = Integer.toString(name.hashCode() & 0xffff, 36);
+        data.put("id", id);
+        data.put("name", "t5_" + id);
+        data.put("display_name", name);
+        data.put("title", "The " + name + " subreddit");
+        data.put("public_description", "Generated by StubRedditServer");
+        data.put("subscribers", subreddits.get(name).size() * 1000);
+        data.put("over18", false);
+        data.put("url", "/r/" + name + "/");
+        data.put("created_utc", 1_200_000_000L);
+        return data;
+    }
+
+    private static Map<String, Object> account(String name) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", Integer.toString(name.hashCode() & 0xffff, 36));
+        data.put("name", name);
+        data.put("link_karma", 1);
+        data.put("comment_karma", 1);
+        data.put("has_mail", false);
+        data.put("has_mod_mail", false);
+        data.put("is_gold", false);
+        data.put("is_mod", false);
+        data.put("over_18", false);
+        data.put("created_utc", 1_300_000_000L);
+        return data;
+    }
+
+    private static Map<String, Object> error(int code) {
+        return Collections.singletonMap("error", code);
+    }
+
+    private void respond(HttpExchange exchange, int code, Object body, String retryAfter)
+            throws IOException, InterruptedException {
+        responseCodes.computeIfAbsent(code, c -> new AtomicLong()).incrementAndGet();
+        byte[] bytes = MAPPER.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        if (retryAfter != null) {
+            exchange.getResponseHeaders().set("Retry-After", retryAfter);
+        }
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        OutputStream out = exchange.getResponseBody();
+        long rate = bodyBytesPerSecond;
+        if (rate <= 0) {
+            out.write(bytes);
+        } else {
+            // Send a tenth of a second's worth of bytes at a time
+            int chunk = (int) Math.max(1, Math.min(bytes.length, rate / 10));
+            for (int offset = 0; offset < bytes.length; offset += chunk) {
+                out.write(bytes, offset, Math.min(chunk, bytes.length - offset));
+                out.flush();
+                TimeUnit.NANOSECONDS.sleep(TimeUnit.SECONDS.toNanos(1) * chunk / rate);
+            }
+        }
+        out.close();
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> args = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return args;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            args.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return args;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1");
+        }
+        return rate;
+    }
+}